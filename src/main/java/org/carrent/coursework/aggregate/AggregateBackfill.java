@@ -0,0 +1,164 @@
+package org.carrent.coursework.aggregate;
+
+import org.carrent.coursework.dto.AggregateBackfillStatus;
+import org.carrent.coursework.exception.BackfillAlreadyRunningException;
+import org.carrent.coursework.service.DashboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds the daily aggregates from the orders and services, archived ones included. Ids are read
+ * in keyset chunks and every chunk is refreshed in its own transaction on a small pool, through the
+ * same delta logic as the incremental path, so a backfill can run while the application keeps writing. With {@code reset} the
+ * aggregates are truncated first, which is only safe while nothing else writes orders or services.
+ */
+@Component
+public class AggregateBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(AggregateBackfill.class);
+
+    private final DailyAggregator dailyAggregator;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final DashboardService dashboardService;
+
+    @Value("${aggregates.backfill.chunk-size}")
+    private int chunkSize;
+
+    @Value("${aggregates.backfill.parallelism}")
+    private int parallelism;
+
+    @Value("${aggregates.backfill.on-startup}")
+    private boolean onStartup;
+
+    private final Object lock = new Object();
+    private final AtomicInteger chunksTotal = new AtomicInteger();
+    private final AtomicInteger chunksDone = new AtomicInteger();
+    private final AtomicLong sourcesChanged = new AtomicLong();
+    private volatile String state = "IDLE";
+    private volatile boolean reset;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public AggregateBackfill(DailyAggregator dailyAggregator,
+                             NamedParameterJdbcTemplate jdbc,
+                             PlatformTransactionManager transactionManager,
+                             DashboardService dashboardService) {
+        this.dailyAggregator = dailyAggregator;
+        this.jdbc = jdbc;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.dashboardService = dashboardService;
+    }
+
+    // Fills the aggregates of a database that has orders from before the aggregates existed
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!onStartup) {
+            return;
+        }
+        Boolean empty = jdbc.getJdbcTemplate().queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM aggregate_sources)", Boolean.class);
+        if (Boolean.TRUE.equals(empty)) {
+            logger.info("Aggregates are empty, starting the backfill");
+            start(false);
+        }
+    }
+
+    public AggregateBackfillStatus start(boolean reset) {
+        synchronized (lock) {
+            if ("RUNNING".equals(state)) {
+                throw new BackfillAlreadyRunningException("An aggregate backfill is already running since " + startedAt);
+            }
+            this.reset = reset;
+            state = "RUNNING";
+            startedAt = Instant.now();
+            finishedAt = null;
+            error = null;
+            chunksTotal.set(0);
+            chunksDone.set(0);
+            sourcesChanged.set(0);
+        }
+        Thread.ofPlatform().name("aggregate-backfill").daemon().start(() -> run(reset));
+        return getStatus();
+    }
+
+    public AggregateBackfillStatus getStatus() {
+        return new AggregateBackfillStatus(state, reset, startedAt, finishedAt,
+                chunksTotal.get(), chunksDone.get(), sourcesChanged.get(), error);
+    }
+
+    private void run(boolean reset) {
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("aggregate-backfill-", 0).daemon().factory());
+        try {
+            if (reset) {
+                transaction.executeWithoutResult(status ->
+                        jdbc.getJdbcTemplate().execute("TRUNCATE daily_aggregates, aggregate_sources"));
+            }
+            List<Future<?>> chunks = new ArrayList<>();
+            submitChunks(pool, DailyAggregator.ORDERS, "orders", chunks);
+            submitChunks(pool, DailyAggregator.SERVICES, "services", chunks);
+            submitChunks(pool, DailyAggregator.ORDERS, "orders_archive", chunks);
+            submitChunks(pool, DailyAggregator.SERVICES, "services_archive", chunks);
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+            state = "COMPLETED";
+            dashboardService.requestRefresh();
+            logger.info("Aggregate backfill finished: {} chunks, {} orders and services changed",
+                    chunksDone.get(), sourcesChanged.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            fail(ex);
+        } catch (ExecutionException ex) {
+            fail(ex.getCause());
+        } catch (RuntimeException ex) {
+            fail(ex);
+        } finally {
+            pool.shutdownNow();
+            finishedAt = Instant.now();
+        }
+    }
+
+    private void submitChunks(ExecutorService pool, String sourceType, String table, List<Future<?>> chunks) {
+        long after = 0;
+        while (true) {
+            List<Long> ids = jdbc.queryForList("SELECT id FROM " + table + " WHERE id > :after ORDER BY id LIMIT :limit",
+                    new MapSqlParameterSource("after", after).addValue("limit", chunkSize), Long.class);
+            if (ids.isEmpty()) {
+                return;
+            }
+            after = ids.get(ids.size() - 1);
+            chunksTotal.incrementAndGet();
+            chunks.add(pool.submit(() -> {
+                Integer changed = transaction.execute(status -> dailyAggregator.refresh(sourceType, ids));
+                sourcesChanged.addAndGet(changed == null ? 0 : changed);
+                chunksDone.incrementAndGet();
+            }));
+        }
+    }
+
+    private void fail(Throwable ex) {
+        state = "FAILED";
+        error = ex.getMessage();
+        logger.error("Aggregate backfill failed", ex);
+    }
+}
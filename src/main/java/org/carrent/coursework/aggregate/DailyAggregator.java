@@ -0,0 +1,289 @@
+package org.carrent.coursework.aggregate;
+
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the {@code daily_aggregates} roll-ups. For every changed order or service the contribution
+ * recorded in {@code aggregate_sources} is subtracted and the current one added, so a refresh can be
+ * repeated safely and concurrent refreshes only ever add increments to the shared rows.
+ * <p>
+ * An order counts once on the day it starts (orders, revenue) and with its rented time on every day
+ * it spans; a service likewise with its cost and its time in the workshop. Canceled and deleted rows
+ * contribute nothing.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class DailyAggregator {
+    private static final Logger logger = LoggerFactory.getLogger(DailyAggregator.class);
+
+    public static final String ORDERS = "orders";
+    public static final String SERVICES = "services";
+
+    public static final String FLEET = "fleet";
+    public static final String CAR = "car";
+    public static final String CUSTOMER = "customer";
+    public static final String EMPLOYEE = "employee";
+
+    // key_id of the fleet-wide rows
+    public static final long FLEET_KEY = 0;
+
+    // Archived rows keep contributing, so a backfill reads the archive tables as well
+    private static final String CURRENT_ORDERS = """
+            SELECT id, car_id, customer_id, employee_id, start_date, end_date, cost
+            FROM (SELECT id, deleted, status, car_id, customer_id, employee_id, start_date, end_date, cost
+                  FROM orders WHERE id IN (:ids)
+                  UNION ALL
+                  SELECT id, deleted, status, car_id, customer_id, employee_id, start_date, end_date, cost
+                  FROM orders_archive WHERE id IN (:ids)) o
+            WHERE NOT deleted AND status IS DISTINCT FROM 'CANCELED'
+              AND start_date IS NOT NULL AND end_date IS NOT NULL
+            """;
+
+    private static final String CURRENT_SERVICES = """
+            SELECT id, car_id, NULL AS customer_id, employee_id, start_date, end_date, cost
+            FROM (SELECT id, deleted, status, car_id, employee_id, start_date, end_date, cost
+                  FROM services WHERE id IN (:ids)
+                  UNION ALL
+                  SELECT id, deleted, status, car_id, employee_id, start_date, end_date, cost
+                  FROM services_archive WHERE id IN (:ids)) s
+            WHERE NOT deleted AND status IS DISTINCT FROM 'CANCELED'
+              AND start_date IS NOT NULL AND end_date IS NOT NULL
+            """;
+
+    private static final String UPSERT_AGGREGATE = """
+            INSERT INTO daily_aggregates (dimension, key_id, day, orders_count, revenue, rented_seconds,
+                                          service_count, service_cost, service_seconds)
+            VALUES (:dimension, :keyId, :day, :orders, :revenue, :rentedSeconds, :serviceCount, :serviceCost, :serviceSeconds)
+            ON CONFLICT (dimension, key_id, day) DO UPDATE SET
+                orders_count = daily_aggregates.orders_count + EXCLUDED.orders_count,
+                revenue = daily_aggregates.revenue + EXCLUDED.revenue,
+                rented_seconds = daily_aggregates.rented_seconds + EXCLUDED.rented_seconds,
+                service_count = daily_aggregates.service_count + EXCLUDED.service_count,
+                service_cost = daily_aggregates.service_cost + EXCLUDED.service_cost,
+                service_seconds = daily_aggregates.service_seconds + EXCLUDED.service_seconds
+            """;
+
+    private static final String UPDATE_SOURCE = """
+            UPDATE aggregate_sources
+            SET counted = :counted, car_id = :carId, customer_id = :customerId, employee_id = :employeeId,
+                start_date = :startDate, end_date = :endDate, cost = :cost
+            WHERE source_type = :type AND source_id = :id
+            """;
+
+    record Source(boolean counted, Long carId, Long customerId, Long employeeId,
+                          LocalDateTime startDate, LocalDateTime endDate, BigDecimal cost) {
+        static final Source NOT_COUNTED = new Source(false, null, null, null, null, null, null);
+    }
+
+    record Key(String dimension, long keyId, LocalDate day) {
+        // Upserts lock the rows in this order everywhere, so concurrent refreshes cannot deadlock
+        static final Comparator<Key> ORDER = Comparator.comparing(Key::dimension)
+                .thenComparingLong(Key::keyId)
+                .thenComparing(Key::day);
+    }
+
+    static final class Delta {
+        long orders;
+        BigDecimal revenue = BigDecimal.ZERO;
+        long rentedSeconds;
+        long serviceCount;
+        BigDecimal serviceCost = BigDecimal.ZERO;
+        long serviceSeconds;
+
+        boolean isZero() {
+            return orders == 0 && revenue.signum() == 0 && rentedSeconds == 0
+                    && serviceCount == 0 && serviceCost.signum() == 0 && serviceSeconds == 0;
+        }
+    }
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final EntityManager entityManager;
+
+    public DailyAggregator(NamedParameterJdbcTemplate jdbc, EntityManager entityManager) {
+        this.jdbc = jdbc;
+        this.entityManager = entityManager;
+    }
+
+    public void refreshOrder(Long orderId) {
+        refreshOrders(List.of(orderId));
+    }
+
+    public void refreshOrders(Collection<Long> orderIds) {
+        // The changes of the surrounding transaction have to reach the database before they are read back
+        entityManager.flush();
+        refresh(ORDERS, orderIds);
+    }
+
+    public void refreshService(Long serviceId) {
+        refreshServices(List.of(serviceId));
+    }
+
+    public void refreshServices(Collection<Long> serviceIds) {
+        entityManager.flush();
+        refresh(SERVICES, serviceIds);
+    }
+
+    // Also called by AggregateBackfill, one transaction per chunk
+    int refresh(String sourceType, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String table = ORDERS.equals(sourceType) ? "orders" : "services";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("type", sourceType)
+                .addValue("ids", ids);
+
+        jdbc.update("INSERT INTO aggregate_sources (source_type, source_id) " +
+                "SELECT :type, id FROM " + table + " WHERE id IN (:ids) " +
+                "UNION ALL SELECT :type, id FROM " + table + "_archive WHERE id IN (:ids) " +
+                "ON CONFLICT DO NOTHING", params);
+        // Locking the recorded contributions serializes refreshes of the same row
+        Map<Long, Source> recorded = new HashMap<>();
+        jdbc.query("SELECT source_id, counted, car_id, customer_id, employee_id, start_date, end_date, cost " +
+                        "FROM aggregate_sources WHERE source_type = :type AND source_id IN (:ids) ORDER BY source_id FOR UPDATE",
+                params, resultSet -> {
+                    recorded.put(resultSet.getLong("source_id"),
+                            resultSet.getBoolean("counted") ? readSource(resultSet) : Source.NOT_COUNTED);
+                });
+        Map<Long, Source> current = new HashMap<>();
+        jdbc.query(ORDERS.equals(sourceType) ? CURRENT_ORDERS : CURRENT_SERVICES, params,
+                resultSet -> {
+                    current.put(resultSet.getLong("id"), readSource(resultSet));
+                });
+
+        Map<Key, Delta> deltas = new TreeMap<>(Key.ORDER);
+        List<SqlParameterSource> sourceUpdates = new ArrayList<>();
+        for (Map.Entry<Long, Source> entry : recorded.entrySet()) {
+            Source before = entry.getValue();
+            Source after = current.getOrDefault(entry.getKey(), Source.NOT_COUNTED);
+            if (before.equals(after)) {
+                continue;
+            }
+            contribute(sourceType, before, -1, deltas);
+            contribute(sourceType, after, 1, deltas);
+            sourceUpdates.add(new MapSqlParameterSource()
+                    .addValue("type", sourceType)
+                    .addValue("id", entry.getKey())
+                    .addValue("counted", after.counted())
+                    .addValue("carId", after.carId())
+                    .addValue("customerId", after.customerId())
+                    .addValue("employeeId", after.employeeId())
+                    .addValue("startDate", after.startDate())
+                    .addValue("endDate", after.endDate())
+                    .addValue("cost", after.cost()));
+        }
+
+        List<SqlParameterSource> upserts = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                upserts.add(new MapSqlParameterSource()
+                        .addValue("dimension", key.dimension())
+                        .addValue("keyId", key.keyId())
+                        .addValue("day", key.day())
+                        .addValue("orders", delta.orders)
+                        .addValue("revenue", delta.revenue)
+                        .addValue("rentedSeconds", delta.rentedSeconds)
+                        .addValue("serviceCount", delta.serviceCount)
+                        .addValue("serviceCost", delta.serviceCost)
+                        .addValue("serviceSeconds", delta.serviceSeconds));
+            }
+        });
+        if (!upserts.isEmpty()) {
+            jdbc.batchUpdate(UPSERT_AGGREGATE, upserts.toArray(SqlParameterSource[]::new));
+        }
+        if (!sourceUpdates.isEmpty()) {
+            jdbc.batchUpdate(UPDATE_SOURCE, sourceUpdates.toArray(SqlParameterSource[]::new));
+        }
+        logger.debug("Refreshed {} {}: {} changed, {} aggregate rows touched", ids.size(), sourceType, sourceUpdates.size(), upserts.size());
+        return sourceUpdates.size();
+    }
+
+    private static Source readSource(ResultSet resultSet) throws SQLException {
+        return new Source(true,
+                resultSet.getObject("car_id", Long.class),
+                resultSet.getObject("customer_id", Long.class),
+                resultSet.getObject("employee_id", Long.class),
+                resultSet.getObject("start_date", LocalDateTime.class),
+                resultSet.getObject("end_date", LocalDateTime.class),
+                resultSet.getBigDecimal("cost"));
+    }
+
+    static void contribute(String sourceType, Source source, int sign, Map<Key, Delta> deltas) {
+        if (!source.counted()) {
+            return;
+        }
+        boolean order = ORDERS.equals(sourceType);
+        BigDecimal cost = source.cost() == null ? BigDecimal.ZERO : source.cost();
+        if (sign < 0) {
+            cost = cost.negate();
+        }
+
+        LocalDate firstDay = source.startDate().toLocalDate();
+        List<Key> keys = new ArrayList<>(4);
+        keys.add(new Key(FLEET, FLEET_KEY, firstDay));
+        if (source.carId() != null) {
+            keys.add(new Key(CAR, source.carId(), firstDay));
+        }
+        if (order && source.customerId() != null) {
+            keys.add(new Key(CUSTOMER, source.customerId(), firstDay));
+        }
+        if (order && source.employeeId() != null) {
+            keys.add(new Key(EMPLOYEE, source.employeeId(), firstDay));
+        }
+        for (Key key : keys) {
+            Delta delta = deltas.computeIfAbsent(key, k -> new Delta());
+            if (order) {
+                delta.orders += sign;
+                delta.revenue = delta.revenue.add(cost);
+            } else {
+                delta.serviceCount += sign;
+                delta.serviceCost = delta.serviceCost.add(cost);
+            }
+        }
+
+        // Busy time is split at midnight and only tracked for the fleet and the car
+        LocalDateTime from = source.startDate();
+        while (from.isBefore(source.endDate())) {
+            LocalDate day = from.toLocalDate();
+            LocalDateTime nextMidnight = day.plusDays(1).atStartOfDay();
+            LocalDateTime to = source.endDate().isBefore(nextMidnight) ? source.endDate() : nextMidnight;
+            long seconds = sign * Duration.between(from, to).getSeconds();
+            addBusyTime(deltas, new Key(FLEET, FLEET_KEY, day), order, seconds);
+            if (source.carId() != null) {
+                addBusyTime(deltas, new Key(CAR, source.carId(), day), order, seconds);
+            }
+            from = to;
+        }
+    }
+
+    private static void addBusyTime(Map<Key, Delta> deltas, Key key, boolean order, long seconds) {
+        Delta delta = deltas.computeIfAbsent(key, k -> new Delta());
+        if (order) {
+            delta.rentedSeconds += seconds;
+        } else {
+            delta.serviceSeconds += seconds;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.carrent.coursework.archive;
+
+import org.carrent.coursework.dto.OrderExportRow;
+import org.carrent.coursework.dto.ServiceOfCarExportRow;
+import org.carrent.coursework.enums.OrderStatus;
+import org.carrent.coursework.enums.ServiceOfCarStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Export cursors over {@code orders_archive} and {@code services_archive}, with the same filters and
+ * the same id order as the export queries of the hot tables. Must be consumed inside a transaction,
+ * like those, for the fetch size to keep the rows on the server.
+ */
+@Component
+public class ArchiveReader {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public ArchiveReader(DataSource dataSource) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(FETCH_SIZE);
+        this.jdbc = new NamedParameterJdbcTemplate(template);
+    }
+
+    public Stream<OrderExportRow> streamOrders(LocalDateTime from, LocalDateTime to, OrderStatus status) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT id, car_id, customer_id, employee_id, start_date, end_date, status, cost, created_at, updated_at " +
+                "FROM orders_archive" + where(params, from, to, status == null ? null : status.name()) + " ORDER BY id";
+        return jdbc.queryForStream(sql, params, (resultSet, rowNum) -> new OrderExportRow(
+                resultSet.getLong("id"),
+                resultSet.getObject("car_id", Long.class),
+                resultSet.getObject("customer_id", Long.class),
+                resultSet.getObject("employee_id", Long.class),
+                resultSet.getObject("start_date", LocalDateTime.class),
+                resultSet.getObject("end_date", LocalDateTime.class),
+                resultSet.getString("status") == null ? null : OrderStatus.valueOf(resultSet.getString("status")),
+                resultSet.getBigDecimal("cost"),
+                resultSet.getTimestamp("created_at"),
+                resultSet.getTimestamp("updated_at")));
+    }
+
+    public Stream<ServiceOfCarExportRow> streamServices(LocalDateTime from, LocalDateTime to, ServiceOfCarStatus status) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT id, car_id, employee_id, start_date, end_date, description, status, cost, created_at, updated_at " +
+                "FROM services_archive" + where(params, from, to, status == null ? null : status.name()) + " ORDER BY id";
+        return jdbc.queryForStream(sql, params, (resultSet, rowNum) -> new ServiceOfCarExportRow(
+                resultSet.getLong("id"),
+                resultSet.getObject("car_id", Long.class),
+                resultSet.getObject("employee_id", Long.class),
+                resultSet.getObject("start_date", LocalDateTime.class),
+                resultSet.getObject("end_date", LocalDateTime.class),
+                resultSet.getString("description"),
+                resultSet.getString("status") == null ? null : ServiceOfCarStatus.valueOf(resultSet.getString("status")),
+                resultSet.getBigDecimal("cost"),
+                resultSet.getTimestamp("created_at"),
+                resultSet.getTimestamp("updated_at")));
+    }
+
+    private static String where(MapSqlParameterSource params, LocalDateTime from, LocalDateTime to, String status) {
+        StringBuilder where = new StringBuilder(" WHERE deleted = FALSE");
+        if (from != null) {
+            where.append(" AND end_date >= :from");
+            params.addValue("from", from);
+        }
+        if (to != null) {
+            where.append(" AND start_date <= :to");
+            params.addValue("to", to);
+        }
+        if (status != null) {
+            where.append(" AND status = :status");
+            params.addValue("status", status);
+        }
+        return where.toString();
+    }
+}
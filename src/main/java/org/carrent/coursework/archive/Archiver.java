@@ -0,0 +1,190 @@
+package org.carrent.coursework.archive;
+
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.carrent.coursework.dto.ArchiveStatus;
+import org.carrent.coursework.exception.ArchiveAlreadyRunningException;
+import org.carrent.coursework.service.DashboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves orders and services completed more than {@code archive.after-months} ago from the hot tables
+ * into {@code orders_archive} and {@code services_archive}. Candidates are walked in (end_date, id)
+ * order and every chunk is copied and deleted in its own short transaction, so the hot tables are
+ * never locked for long; rows locked by a concurrent request are skipped until the next run.
+ * <p>
+ * The daily aggregates keep the contribution of archived rows, and the timeline and export read the
+ * archive alongside the hot tables. Archived rows are no longer listed, filtered or editable, so the
+ * cached orders and services are dropped once a run has moved any.
+ */
+@Component
+public class Archiver {
+    private static final Logger logger = LoggerFactory.getLogger(Archiver.class);
+
+    // cleanup removes what references the rows before they leave the hot table
+    private record Table(String name, String archive, String columns, String cleanup) {
+    }
+
+    private record Chunk(int moved, LocalDateTime lastEndDate, long lastId) {
+    }
+
+    private static final Table ORDERS = new Table("orders", "orders_archive",
+            "id, deleted, created_at, updated_at, version, car_id, customer_id, employee_id, start_date, end_date, status, cost",
+            "DELETE FROM order_view WHERE order_id IN (:ids)");
+    private static final Table SERVICES = new Table("services", "services_archive",
+            "id, deleted, created_at, updated_at, version, car_id, employee_id, start_date, end_date, description, cost, status",
+            null);
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final DashboardService dashboardService;
+    private final CacheInvalidator cacheInvalidator;
+
+    @Value("${archive.after-months}")
+    private int afterMonths;
+
+    @Value("${archive.chunk-size}")
+    private int chunkSize;
+
+    private final Object lock = new Object();
+    private final AtomicLong ordersArchived = new AtomicLong();
+    private final AtomicLong servicesArchived = new AtomicLong();
+    private volatile String state = "IDLE";
+    private volatile LocalDateTime cutoff;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public Archiver(NamedParameterJdbcTemplate jdbc,
+                    PlatformTransactionManager transactionManager,
+                    DashboardService dashboardService,
+                    CacheInvalidator cacheInvalidator) {
+        this.jdbc = jdbc;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.dashboardService = dashboardService;
+        this.cacheInvalidator = cacheInvalidator;
+    }
+
+    // archive.cron=- disables the scheduled runs
+    @Scheduled(cron = "${archive.cron}")
+    public void archiveOnSchedule() {
+        try {
+            begin();
+        } catch (ArchiveAlreadyRunningException ex) {
+            logger.info("Skipping the scheduled archival: {}", ex.getMessage());
+            return;
+        }
+        run();
+    }
+
+    public ArchiveStatus start() {
+        begin();
+        Thread.ofPlatform().name("archiver").daemon().start(this::run);
+        return getStatus();
+    }
+
+    public ArchiveStatus getStatus() {
+        return new ArchiveStatus(state, cutoff, startedAt, finishedAt,
+                ordersArchived.get(), servicesArchived.get(), error);
+    }
+
+    private void begin() {
+        synchronized (lock) {
+            if ("RUNNING".equals(state)) {
+                throw new ArchiveAlreadyRunningException("An archival is already running since " + startedAt);
+            }
+            state = "RUNNING";
+            cutoff = LocalDateTime.now().minusMonths(afterMonths);
+            startedAt = Instant.now();
+            finishedAt = null;
+            error = null;
+            ordersArchived.set(0);
+            servicesArchived.set(0);
+        }
+    }
+
+    private void run() {
+        logger.info("Archiving orders and services completed before {}", cutoff);
+        try {
+            archive(ORDERS, ordersArchived);
+            archive(SERVICES, servicesArchived);
+            state = "COMPLETED";
+            if (ordersArchived.get() > 0) {
+                dashboardService.requestRefresh();
+            }
+            logger.info("Archival finished: {} orders and {} services archived", ordersArchived.get(), servicesArchived.get());
+        } catch (RuntimeException ex) {
+            state = "FAILED";
+            error = ex.getMessage();
+            logger.error("Archival failed", ex);
+        } finally {
+            // The chunks were moved with plain JDBC, nothing evicted the rows they took away
+            if (ordersArchived.get() > 0) {
+                cacheInvalidator.invalidate(CacheInvalidator.ORDERS);
+            }
+            if (servicesArchived.get() > 0) {
+                cacheInvalidator.invalidate(CacheInvalidator.SERVICES);
+            }
+            finishedAt = Instant.now();
+        }
+    }
+
+    private void archive(Table table, AtomicLong archived) {
+        LocalDateTime afterEndDate = null;
+        long afterId = 0;
+        while (true) {
+            LocalDateTime resumeAt = afterEndDate;
+            long resumeAfter = afterId;
+            Chunk chunk = transaction.execute(status -> moveChunk(table, resumeAt, resumeAfter));
+            if (chunk == null || chunk.moved() == 0) {
+                return;
+            }
+            archived.addAndGet(chunk.moved());
+            afterEndDate = chunk.lastEndDate();
+            afterId = chunk.lastId();
+        }
+    }
+
+    private Chunk moveChunk(Table table, LocalDateTime afterEndDate, long afterId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("cutoff", cutoff)
+                .addValue("limit", chunkSize)
+                .addValue("afterEndDate", afterEndDate)
+                .addValue("afterId", afterId);
+        String keyset = afterEndDate == null ? "" : " AND (end_date, id) > (:afterEndDate, :afterId)";
+        List<Long> ids = new ArrayList<>(chunkSize);
+        LocalDateTime[] lastEndDate = new LocalDateTime[1];
+        jdbc.query("SELECT id, end_date FROM " + table.name() +
+                        " WHERE status = 'COMPLETED' AND end_date < :cutoff" + keyset +
+                        " ORDER BY end_date, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+                params, resultSet -> {
+                    ids.add(resultSet.getLong("id"));
+                    lastEndDate[0] = resultSet.getObject("end_date", LocalDateTime.class);
+                });
+        if (ids.isEmpty()) {
+            return new Chunk(0, null, 0);
+        }
+
+        MapSqlParameterSource idParams = new MapSqlParameterSource("ids", ids);
+        if (table.cleanup() != null) {
+            jdbc.update(table.cleanup(), idParams);
+        }
+        jdbc.update("INSERT INTO " + table.archive() + " (" + table.columns() + ") " +
+                "SELECT " + table.columns() + " FROM " + table.name() + " WHERE id IN (:ids)", idParams);
+        int moved = jdbc.update("DELETE FROM " + table.name() + " WHERE id IN (:ids)", idParams);
+        logger.debug("Archived {} {} up to end date {}", moved, table.name(), lastEndDate[0]);
+        return new Chunk(moved, lastEndDate[0], ids.get(ids.size() - 1));
+    }
+}
@@ -0,0 +1,103 @@
+package org.carrent.coursework.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops the cached DTOs and the cached responses of a resource once the transaction that changed it
+ * has committed. The services call {@link #invalidate(String)} from their write paths, so writes that
+ * do not come in through {@code /api/<resource>} - status sweeps, imports, archival - evict as well.
+ * <p>
+ * Every resource has a generation that is bumped before its entries are evicted. A GET reads the
+ * generation before it runs and {@link #store} refuses the response once it has moved, so a reader
+ * that loaded the old rows before the commit cannot put them back after the eviction.
+ */
+@Component
+public class CacheInvalidator {
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    public static final String CARS = "cars";
+    public static final String CUSTOMERS = "customers";
+    public static final String EMPLOYEES = "employees";
+    public static final String ORDERS = "orders";
+    public static final String SERVICES = "services";
+    public static final String USERS = "users";
+
+    // Orders and services switch the status of the car they are booked on; order lists show the
+    // car, customer and employee names.
+    private static final Map<String, List<String>> DEPENDENT_RESOURCES = Map.of(
+            ORDERS, List.of(CARS),
+            SERVICES, List.of(CARS),
+            CARS, List.of(ORDERS),
+            CUSTOMERS, List.of(ORDERS),
+            EMPLOYEES, List.of(ORDERS));
+
+    private final CacheManager cacheManager;
+    private final Cache<String, CachedResponse> responseCache;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public CacheInvalidator(CacheManager cacheManager, Cache<String, CachedResponse> responseCache) {
+        this.cacheManager = cacheManager;
+        this.responseCache = responseCache;
+    }
+
+    public void invalidate(String resource) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(resource);
+                }
+            });
+        } else {
+            invalidateNow(resource);
+        }
+    }
+
+    public long generation(String resource) {
+        return generations.computeIfAbsent(resource, key -> new AtomicLong()).get();
+    }
+
+    /**
+     * Caches a response read at {@code generation}; returns false when the resource changed meanwhile
+     */
+    public boolean store(String resource, long generation, String key, CachedResponse response) {
+        if (generation(resource) != generation) {
+            return false;
+        }
+        responseCache.put(key, response);
+        // An invalidation between the check and the put has already run its eviction
+        if (generation(resource) != generation) {
+            responseCache.asMap().remove(key, response);
+            return false;
+        }
+        return true;
+    }
+
+    void invalidateNow(String resource) {
+        evict(resource);
+        DEPENDENT_RESOURCES.getOrDefault(resource, List.of()).forEach(this::evict);
+    }
+
+    private void evict(String resource) {
+        generations.computeIfAbsent(resource, key -> new AtomicLong()).incrementAndGet();
+        org.springframework.cache.Cache cache = cacheManager.getCache(resource);
+        if (cache != null) {
+            cache.clear();
+        }
+        String prefix = "/api/" + resource;
+        responseCache.asMap().keySet().removeIf(key -> key.equals(prefix) || key.startsWith(prefix + "/")
+                || key.startsWith(prefix + "?"));
+        logger.debug("Evicted cached {} and the cached responses of {}", resource, prefix);
+    }
+}
@@ -0,0 +1,191 @@
+package org.carrent.coursework.cache;
+
+import org.carrent.coursework.dto.CarDto;
+import org.carrent.coursework.dto.EmployeeDto;
+import org.carrent.coursework.repository.OrderRepository;
+import org.carrent.coursework.service.CarService;
+import org.carrent.coursework.service.CustomerService;
+import org.carrent.coursework.service.EmployeeService;
+import org.carrent.coursework.service.OrderService;
+import org.carrent.coursework.service.ServiceOfCarService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Preloads the hot data into the Caffeine and second-level caches once the application has started,
+ * through the same cached service methods the requests use: the first list pages of every resource,
+ * the cars and employees on those pages and the orders active today. Nothing is loaded beyond those
+ * pages. The caches are warmed in parallel on a dedicated pool so startup itself is not delayed;
+ * until warm-up completes or times out this indicator keeps the readiness group OUT_OF_SERVICE.
+ */
+@Component
+public class CacheWarmUp implements HealthIndicator {
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmUp.class);
+
+    private enum State { PENDING, RUNNING, COMPLETED, TIMED_OUT, DISABLED }
+
+    private final CarService carService;
+    private final CustomerService customerService;
+    private final EmployeeService employeeService;
+    private final OrderService orderService;
+    private final ServiceOfCarService serviceOfCarService;
+    private final OrderRepository orderRepository;
+
+    @Value("${cache.warm-up.enabled}")
+    private boolean enabled;
+
+    @Value("${cache.warm-up.list-pages}")
+    private int listPages;
+
+    @Value("${cache.warm-up.page-size}")
+    private int pageSize;
+
+    @Value("${cache.warm-up.parallelism}")
+    private int parallelism;
+
+    @Value("${cache.warm-up.timeout}")
+    private Duration timeout;
+
+    private volatile State state = State.PENDING;
+
+    public CacheWarmUp(CarService carService,
+                       CustomerService customerService,
+                       EmployeeService employeeService,
+                       OrderService orderService,
+                       ServiceOfCarService serviceOfCarService,
+                       OrderRepository orderRepository) {
+        this.carService = carService;
+        this.customerService = customerService;
+        this.employeeService = employeeService;
+        this.orderService = orderService;
+        this.serviceOfCarService = serviceOfCarService;
+        this.orderRepository = orderRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        state = State.RUNNING;
+        long startedAt = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+
+        List<CompletableFuture<Void>> tasks = List.of(
+                task("cars", this::warmCars, executor),
+                task("employees", this::warmEmployees, executor),
+                task("customers", this::warmCustomers, executor),
+                task("orders", this::warmOrders, executor),
+                task("services", this::warmServices, executor));
+
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, ex) -> {
+                    executor.shutdownNow();
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                    if (ex instanceof TimeoutException) {
+                        state = State.TIMED_OUT;
+                        logger.warn("Cache warm-up timed out after {} ms, serving with partially warm caches", elapsed);
+                    } else {
+                        state = State.COMPLETED;
+                        logger.info("Cache warm-up completed in {} ms", elapsed);
+                    }
+                });
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = state == State.PENDING || state == State.RUNNING
+                ? Health.outOfService()
+                : Health.up();
+        return builder.withDetail("state", state).build();
+    }
+
+    private CompletableFuture<Void> task(String cache, Runnable warmer, ExecutorService executor) {
+        return CompletableFuture.runAsync(() -> {
+            long startedAt = System.nanoTime();
+            try {
+                warmer.run();
+                logger.info("Warmed cache {} in {} ms", cache, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            } catch (RuntimeException ex) {
+                logger.warn("Warm-up of cache {} failed after {} ms", cache,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), ex);
+            }
+        }, executor);
+    }
+
+    // The key the list endpoints use for their default sort
+    private Pageable page(int page) {
+        return PageRequest.of(page, pageSize, Sort.by("id").ascending());
+    }
+
+    private void warmCars() {
+        // Loading the listed cars by id fills the "cars" second-level region with the hot rows
+        int preloaded = 0;
+        for (int page = 0; page < listPages; page++) {
+            for (CarDto car : carService.getAll(page(page))) {
+                carService.getById(car.id());
+                preloaded++;
+            }
+            carService.getAllAvailable(page(page));
+        }
+        logger.debug("Preloaded {} cars", preloaded);
+    }
+
+    private void warmEmployees() {
+        int preloaded = 0;
+        for (int page = 0; page < listPages; page++) {
+            for (EmployeeDto employee : employeeService.getAll(page(page))) {
+                employeeService.getById(employee.id());
+                preloaded++;
+            }
+            employeeService.getAllAvailable(page(page));
+        }
+        logger.debug("Preloaded {} employees", preloaded);
+    }
+
+    private void warmCustomers() {
+        for (int page = 0; page < listPages; page++) {
+            customerService.getAll(page(page));
+            customerService.getAllAvailable(page(page));
+        }
+    }
+
+    private void warmOrders() {
+        for (int page = 0; page < listPages; page++) {
+            orderService.getAll(page(page));
+            orderService.getAllAvailable(page(page));
+        }
+        LocalDate today = LocalDate.now();
+        List<Long> todaysOrders = orderRepository.findIdsOfOrdersOverlapping(
+                today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        todaysOrders.forEach(orderService::getById);
+        logger.debug("Preloaded {} orders active today", todaysOrders.size());
+    }
+
+    private void warmServices() {
+        for (int page = 0; page < listPages; page++) {
+            serviceOfCarService.getAll(page(page));
+            serviceOfCarService.getAllAvailable(page(page));
+        }
+    }
+}
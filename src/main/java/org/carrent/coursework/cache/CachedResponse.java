@@ -0,0 +1,15 @@
+package org.carrent.coursework.cache;
+
+/**
+ * Pre-serialized response body kept by {@link ResponseCacheFilter}.
+ * {@code gzippedBody} is {@code null} when the body is too small to be worth compressing.
+ */
+public record CachedResponse(String contentType,
+                             byte[] body,
+                             byte[] gzippedBody,
+                             String etag) {
+
+    public int weight() {
+        return body.length + (gzippedBody == null ? 0 : gzippedBody.length);
+    }
+}
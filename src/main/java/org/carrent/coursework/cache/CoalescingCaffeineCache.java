@@ -0,0 +1,114 @@
+package org.carrent.coursework.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Caffeine cache with per-key single-flight loading for {@code @Cacheable(sync = true)} methods.
+ * The first caller of a missing key runs the loader on its own thread (so the security context
+ * and transaction stay intact), concurrent callers wait for that result up to {@code waitTimeout}
+ * and fall back to loading themselves when it takes longer.
+ */
+public class CoalescingCaffeineCache extends CaffeineCache {
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingCaffeineCache.class);
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    private final Duration waitTimeout;
+    private final Counter loads;
+    private final Counter coalescedLoads;
+    private final Counter timedOutWaits;
+
+    public CoalescingCaffeineCache(String name,
+                                   com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                   boolean allowNullValues,
+                                   Duration waitTimeout,
+                                   MeterRegistry meterRegistry) {
+        super(name, cache, allowNullValues);
+        this.waitTimeout = waitTimeout;
+        this.loads = Counter.builder("cache.single-flight.loads")
+                .description("Loader invocations that populated the cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.coalescedLoads = Counter.builder("cache.single-flight.coalesced")
+                .description("Callers that reused a load already in flight for the same key")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.timedOutWaits = Counter.builder("cache.single-flight.timeouts")
+                .description("Callers that stopped waiting for an in-flight load and loaded themselves")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        CompletableFuture<Object> ownLoad = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(key, ownLoad);
+        if (inFlight == null) {
+            // A load may have put the value and left between the lookup above and putIfAbsent
+            ValueWrapper loaded = get(key);
+            if (loaded != null) {
+                ownLoad.complete(loaded.get());
+                inFlightLoads.remove(key, ownLoad);
+                return (T) loaded.get();
+            }
+            return load(key, valueLoader, ownLoad);
+        }
+
+        coalescedLoads.increment();
+        try {
+            return (T) inFlight.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            timedOutWaits.increment();
+            logger.warn("Waited more than {} for key {} in cache {}, loading directly", waitTimeout, key, getName());
+            return loadDirectly(key, valueLoader);
+        } catch (ExecutionException ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+
+    private <T> T load(Object key, Callable<T> valueLoader, CompletableFuture<Object> ownLoad) {
+        try {
+            T value = loadDirectly(key, valueLoader);
+            ownLoad.complete(value);
+            return value;
+        } catch (ValueRetrievalException ex) {
+            ownLoad.completeExceptionally(ex.getCause());
+            throw ex;
+        } finally {
+            inFlightLoads.remove(key, ownLoad);
+        }
+    }
+
+    private <T> T loadDirectly(Object key, Callable<T> valueLoader) {
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        loads.increment();
+        put(key, value);
+        return value;
+    }
+}
@@ -0,0 +1,26 @@
+package org.carrent.coursework.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+
+/**
+ * {@link CaffeineCacheManager} that hands out {@link CoalescingCaffeineCache} instances, so every
+ * {@code @Cacheable(sync = true)} method gets single-flight loading per key.
+ */
+public class CoalescingCaffeineCacheManager extends CaffeineCacheManager {
+    private final Duration waitTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public CoalescingCaffeineCacheManager(Duration waitTimeout, MeterRegistry meterRegistry) {
+        this.waitTimeout = waitTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        return new CoalescingCaffeineCache(name, cache, isAllowNullValues(), waitTimeout, meterRegistry);
+    }
+}
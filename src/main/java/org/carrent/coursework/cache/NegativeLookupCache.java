@@ -0,0 +1,69 @@
+package org.carrent.coursework.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Short-lived memory of ids that were looked up and not found, so clients polling ids that
+ * never existed do not hit the database on every request. Services drop the entry for an id
+ * once the transaction that created an entity with that id has committed.
+ */
+@Component
+public class NegativeLookupCache {
+    private record MissingKey(Class<?> type, Long id) { }
+
+    private final Cache<MissingKey, Boolean> missing;
+    private final MeterRegistry meterRegistry;
+
+    public NegativeLookupCache(@Value("${cache.negative.expire-after-write}") Duration expireAfterWrite,
+                               @Value("${cache.negative.maximum-size}") long maximumSize,
+                               MeterRegistry meterRegistry) {
+        this.missing = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWrite)
+                .maximumSize(maximumSize)
+                .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns {@code true} when the id was recently found missing; every such answer is a
+     * database lookup saved and is counted in {@code cache.negative.hits}.
+     */
+    public boolean isKnownMissing(Class<?> type, Long id) {
+        boolean known = missing.getIfPresent(new MissingKey(type, id)) != null;
+        if (known) {
+            meterRegistry.counter("cache.negative.hits", "entity", type.getSimpleName()).increment();
+        }
+        return known;
+    }
+
+    public void markMissing(Class<?> type, Long id) {
+        missing.put(new MissingKey(type, id), Boolean.TRUE);
+        meterRegistry.counter("cache.negative.stores", "entity", type.getSimpleName()).increment();
+    }
+
+    /**
+     * Drops the entry after the current transaction commits. Dropping it earlier would let a lookup
+     * that does not see the new row yet store the id as missing again.
+     */
+    public void forget(Class<?> type, Long id) {
+        MissingKey key = new MissingKey(type, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    missing.invalidate(key);
+                }
+            });
+        } else {
+            missing.invalidate(key);
+        }
+    }
+}
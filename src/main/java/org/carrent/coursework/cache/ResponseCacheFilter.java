@@ -0,0 +1,123 @@
+package org.carrent.coursework.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves cached GET responses of the entity endpoints straight from their encoded JSON bytes,
+ * skipping the controller, the DTO mapping and Jackson on a hit. Entries carry an ETag and an
+ * optional gzip copy. Entries are dropped by {@link CacheInvalidator} when the services write, and
+ * a response is only stored if its resource was not invalidated while it was being produced.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern CACHEABLE_PATH =
+            Pattern.compile("^/api/(cars|customers|employees|orders|services|users)(/available|/\\d+)?$");
+
+    private final Cache<String, CachedResponse> responseCache;
+    private final CacheInvalidator cacheInvalidator;
+
+    @Value("${cache.response.enabled}")
+    private boolean enabled;
+
+    @Value("${cache.response.gzip-min-size}")
+    private int gzipMinSize;
+
+    public ResponseCacheFilter(Cache<String, CachedResponse> responseCache, CacheInvalidator cacheInvalidator) {
+        this.responseCache = responseCache;
+        this.cacheInvalidator = cacheInvalidator;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Matcher matcher = CACHEABLE_PATH.matcher(path);
+        if (!"GET".equals(request.getMethod()) || !matcher.matches()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String key = cacheKey(path, request.getQueryString());
+        CachedResponse cached = responseCache.getIfPresent(key);
+        if (cached != null) {
+            write(cached, request, response);
+            return;
+        }
+
+        String resource = matcher.group(1);
+        long generation = cacheInvalidator.generation(resource);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && isJson(wrapper.getContentType())) {
+            byte[] body = wrapper.getContentAsByteArray();
+            String etag = wrapper.getHeader(HttpHeaders.ETAG);
+            if (etag == null) {
+                etag = "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+                wrapper.setHeader(HttpHeaders.ETAG, etag);
+            }
+            byte[] gzippedBody = body.length >= gzipMinSize ? gzip(body) : null;
+            cacheInvalidator.store(resource, generation, key, new CachedResponse(wrapper.getContentType(), body, gzippedBody, etag));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void write(CachedResponse cached, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(cached.etag()) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = cached.body();
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzippedBody() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = cached.gzippedBody();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cached.contentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static String cacheKey(String path, String queryString) {
+        return queryString == null ? path : path + "?" + queryString;
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(body);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -1,14 +1,18 @@
 package org.carrent.coursework.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.carrent.coursework.cache.CachedResponse;
+import org.carrent.coursework.cache.CoalescingCaffeineCacheManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @EnableCaching
@@ -19,13 +23,32 @@ public class CacheConfig {
     @Value("${cache.maximum-size}")
     private int maximumSize;
 
+    @Value("${cache.single-flight.wait-timeout}")
+    private Duration singleFlightWaitTimeout;
+
+    @Value("${cache.response.maximum-weight}")
+    private long responseMaximumWeight;
+
     @Bean
-    public CacheManager localCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("cars", "customers", "employees","orders","services");
+    public CacheManager localCacheManager(MeterRegistry meterRegistry) {
+        CoalescingCaffeineCacheManager cacheManager = new CoalescingCaffeineCacheManager(singleFlightWaitTimeout, meterRegistry);
         cacheManager.setCaffeine(Caffeine.newBuilder()
                 .expireAfterWrite(expireAfterWrite)
-                .maximumSize(maximumSize));
+                .maximumSize(maximumSize)
+                .recordStats());
+        cacheManager.setCacheNames(List.of("cars", "customers", "employees", "orders", "services", "users"));
         return cacheManager;
     }
 
-}
\ No newline at end of file
+    @Bean
+    public com.github.benmanes.caffeine.cache.Cache<String, CachedResponse> responseCache(MeterRegistry meterRegistry) {
+        com.github.benmanes.caffeine.cache.Cache<String, CachedResponse> responseCache = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWrite)
+                .maximumWeight(responseMaximumWeight)
+                .weigher((String key, CachedResponse value) -> key.length() + value.weight())
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, responseCache, "responses");
+    }
+
+}
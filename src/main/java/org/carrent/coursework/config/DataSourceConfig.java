@@ -0,0 +1,87 @@
+package org.carrent.coursework.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.carrent.coursework.datasource.ReadYourWritesTracker;
+import org.carrent.coursework.datasource.Replica;
+import org.carrent.coursework.datasource.ReplicaRoutingDataSource;
+import org.carrent.coursework.datasource.StatementCountingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primary pool from {@code spring.datasource.*} plus one read-only pool per URL in
+ * {@code datasource.replicas.urls}. JPA uses the lazy routing proxy, whose statements are counted for
+ * {@link org.carrent.coursework.datasource.SqlBudgetFilter}; Flyway always migrates the primary.
+ * With no replica URLs every transaction runs on the primary, exactly as before.
+ */
+@Configuration
+public class DataSourceConfig {
+    @Value("${datasource.replicas.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${datasource.replicas.username}")
+    private String replicaUsername;
+
+    @Value("${datasource.replicas.password}")
+    private String replicaPassword;
+
+    @Value("${datasource.replicas.connection-timeout}")
+    private Duration replicaConnectionTimeout;
+
+    @Value("${datasource.replicas.max-lag}")
+    private Duration maxLag;
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReadYourWritesTracker readYourWritesTracker,
+                                                             MeterRegistry meterRegistry) {
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + replicas.size();
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(name);
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(replicaUsername);
+            pool.setPassword(replicaPassword);
+            pool.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+            pool.setReadOnly(true);
+            pool.setConnectionTimeout(replicaConnectionTimeout.toMillis());
+            // A replica that is down at startup must not stop the application, the health check picks it up later
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new Replica(name, pool));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWritesTracker, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(new StatementCountingDataSource(replicaRoutingDataSource));
+    }
+}
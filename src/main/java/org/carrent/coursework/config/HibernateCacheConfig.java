@@ -0,0 +1,71 @@
+package org.carrent.coursework.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Second-level cache regions for the reference entities ({@code Car}, {@code Customer},
+ * {@code Employee}) and the query cache, sized from {@code cache.hibernate.*}.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${cache.hibernate.expire-after-write}")
+    private Duration expireAfterWrite;
+
+    @Value("${cache.hibernate.cars-maximum-size}")
+    private long carsMaximumSize;
+
+    @Value("${cache.hibernate.customers-maximum-size}")
+    private long customersMaximumSize;
+
+    @Value("${cache.hibernate.employees-maximum-size}")
+    private long employeesMaximumSize;
+
+    @Value("${cache.hibernate.query-maximum-size}")
+    private long queryMaximumSize;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        CacheManager cacheManager = secondLevelCacheManager();
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    private CacheManager secondLevelCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        createRegion(cacheManager, "cars", carsMaximumSize, true);
+        createRegion(cacheManager, "customers", customersMaximumSize, true);
+        createRegion(cacheManager, "employees", employeesMaximumSize, true);
+        createRegion(cacheManager, QUERY_RESULTS_REGION, queryMaximumSize, true);
+        // Hibernate requires the timestamps region to never evict or expire, otherwise stale query results are served.
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, 0, false);
+        return cacheManager;
+    }
+
+    private void createRegion(CacheManager cacheManager, String name, long maximumSize, boolean bounded) {
+        if (cacheManager.getCache(name) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStatisticsEnabled(true);
+        if (bounded) {
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+}
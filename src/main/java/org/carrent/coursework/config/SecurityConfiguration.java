@@ -7,6 +7,7 @@ import org.carrent.coursework.entity.JwtAuthenticationFilter;
 import org.carrent.coursework.service.UserService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -63,7 +64,12 @@ public class SecurityConfiguration {
                                 "/api-docs/**",
                                 "/api-docs",
                                 "http://localhost:8080/api-docs").permitAll()
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        // Clearing the caches at will would bring back the miss stampede single-flight prevents
+                        .requestMatchers("/actuator/caches", "/actuator/caches/**").hasRole("ADMIN")
                         .requestMatchers("/admin/**").hasRole("ADMIN")
+                        // Rebuilding the aggregates rewrites every report row, archival moves rows out of the hot tables
+                        .requestMatchers(HttpMethod.POST, "/api/reports/backfill", "/api/archive").hasRole("ADMIN")
                         .requestMatchers("/users/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .sessionManagement(manager -> manager.sessionCreationPolicy(STATELESS))
@@ -0,0 +1,53 @@
+package org.carrent.coursework.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.AllArgsConstructor;
+import org.carrent.coursework.archive.Archiver;
+import org.carrent.coursework.dto.ArchiveStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/archive")
+@AllArgsConstructor
+public class ArchiveController {
+    private final Archiver archiver;
+
+    @Operation(
+            summary = "Archive old orders and services",
+            description = "Starts moving orders and services completed more than archive.after-months ago into the archive tables "
+                    + "in chunks. The same run is scheduled by archive.cron. Requires the ADMIN role.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Archival started",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ArchiveStatus.class))),
+                    @ApiResponse(responseCode = "403", description = "Caller is not an administrator"),
+                    @ApiResponse(responseCode = "409", description = "An archival is already running")
+            }
+    )
+    @PostMapping
+    public ResponseEntity<ArchiveStatus> startArchival() {
+        return new ResponseEntity<>(archiver.start(), HttpStatus.ACCEPTED);
+    }
+
+    @Operation(
+            summary = "Report archival progress",
+            description = "State and progress of the last archival run.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched the archival status",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ArchiveStatus.class)))
+            }
+    )
+    @GetMapping
+    public ResponseEntity<ArchiveStatus> archivalStatus() {
+        return ResponseEntity.ok(archiver.getStatus());
+    }
+}
@@ -8,21 +8,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.dto.CursorPage;
+import org.carrent.coursework.dto.ImportReport;
 import org.carrent.coursework.dto.CarCreationDto;
 import org.carrent.coursework.dto.CarDto;
+import org.carrent.coursework.dto.TimelineEntry;
 import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.service.BulkImportService;
 import org.carrent.coursework.service.CarService;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.carrent.coursework.service.TimelineService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -31,6 +36,8 @@ import java.util.List;
 @AllArgsConstructor
 public class CarController {
     private final CarService carService;
+    private final BulkImportService bulkImportService;
+    private final TimelineService timelineService;
 
     @Operation(
             summary = "Get car by ID",
@@ -44,9 +51,11 @@ public class CarController {
             }
     )
     @GetMapping("{id}")
-    @Cacheable(value = "cars", key = "#id")
     public ResponseEntity<CarDto> getCarById(@PathVariable Long id) {
-        return ResponseEntity.ok(carService.getById(id));
+        CarDto car = carService.getById(id);
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("car", car.id(), car.version()))
+                .body(car);
     }
 
     @Operation(
@@ -60,7 +69,6 @@ public class CarController {
             }
     )
     @GetMapping
-    @Cacheable(value = "cars")
     public ResponseEntity<Page<CarDto>> getAllCars(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -72,7 +80,9 @@ public class CarController {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<CarDto> cars = carService.getAll(pageable);
-        return ResponseEntity.ok(cars);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(cars, CarDto::id, CarDto::version))
+                .body(cars);
     }
 
 
@@ -87,7 +97,6 @@ public class CarController {
             }
     )
     @GetMapping("/available")
-    @Cacheable(value = "cars")
     public ResponseEntity<Page<CarDto>> getAllCarsAvailable(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -99,7 +108,9 @@ public class CarController {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<CarDto> cars = carService.getAllAvailable(pageable);
-        return ResponseEntity.ok(cars);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(cars, CarDto::id, CarDto::version))
+                .body(cars);
     }
 
     @Operation(
@@ -113,7 +124,6 @@ public class CarController {
             }
     )
     @PostMapping
-    @CacheEvict(value = "cars", allEntries = true)
     public ResponseEntity<CarDto> createCar(@Valid @RequestBody CarCreationDto carCreationDto) {
         return new ResponseEntity<>(carService.create(carCreationDto), HttpStatus.CREATED);
     }
@@ -126,16 +136,21 @@ public class CarController {
                     @ApiResponse(responseCode = "200", description = "Car updated successfully",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = CarDto.class))),
-                    @ApiResponse(responseCode = "404", description = "Car not found")
+                    @ApiResponse(responseCode = "404", description = "Car not found"),
+                    @ApiResponse(responseCode = "409", description = "The version in the body is stale, the record was changed concurrently"),
+                    @ApiResponse(responseCode = "412", description = "If-Match does not match the current ETag")
             }
     )
     @PutMapping("{id}")
-    @CacheEvict(value = "cars", allEntries = true)
     public ResponseEntity<CarDto> updateCar(
             @PathVariable Long id,
-            @Valid @RequestBody CarDto carDto
+            @Valid @RequestBody CarDto carDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        return ResponseEntity.ok(carService.updateCar(id, carDto));
+        CarDto updated = carService.updateCar(id, carDto, ETags.versionFromIfMatch(ifMatch, "car", id));
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("car", updated.id(), updated.version()))
+                .body(updated);
     }
 
     @Operation(
@@ -160,12 +175,16 @@ public class CarController {
 
     @Operation(
             summary = "Get filtered cars",
-            description = "Retrieves a list of cars filtered by specific parameters.",
+            description = "Retrieves a list of cars filtered by specific parameters. min/max parameters are inclusive ranges; "
+                    + "sort takes one or more properties in one direction (e.g. sort=year,desc) backed by an index: "
+                    + "price, year or mileage, optionally after a status filter, or licensePlate. "
+                    + "Ranges can be combined; without a sort, one of them has to be on price, year or mileage.",
             security = @SecurityRequirement(name = "BearerAuth"),
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully fetched filtered cars",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = Page.class))),
+                    @ApiResponse(responseCode = "400", description = "A minimum above its maximum, or a sort or unsorted range without a matching index"),
                     @ApiResponse(responseCode = "404", description = "No cars found")
             }
     )
@@ -178,9 +197,16 @@ public class CarController {
             @RequestParam(required = false) CarStatus status,
             @RequestParam(required = false) Long mileage,
             @RequestParam(required = false) BigDecimal price,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Long minMileage,
+            @RequestParam(required = false) Long maxMileage,
+            @RequestParam(required = false) Integer minYear,
+            @RequestParam(required = false) Integer maxYear,
             @PageableDefault Pageable pageable
     ) {
-        Page<CarDto> filteredCars = carService.getFilteredCars(brand, model, year, licensePlate, status, mileage, price, pageable);
+        Page<CarDto> filteredCars = carService.getFilteredCars(brand, model, year, licensePlate, status, mileage, price,
+                minPrice, maxPrice, minMileage, maxMileage, minYear, maxYear, pageable);
         if (filteredCars.isEmpty()) {
             return new ResponseEntity<>("No cars found.", HttpStatus.NOT_FOUND);
         }
@@ -188,7 +214,6 @@ public class CarController {
     }
 
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "cars", allEntries = true)
     @Operation(
             summary = "Delete a car by ID",
             description = "Deletes a car from the database using the specified ID. Also clears the cache associated with the list of cars.",
@@ -218,7 +243,68 @@ public class CarController {
         return ResponseEntity.ok(carService.deleteCar(id));
     }
 
+    @Operation(
+            summary = "Scroll cars by cursor",
+            description = "Keyset pagination: returns the cars following the given cursor without counting the whole table. "
+                    + "Pass the returned nextCursor to fetch the next slice; the sort of the first request is kept in the cursor. "
+                    + "sortBy is one of the indexed properties id, price, year, mileage or licensePlate.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched a slice of cars",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor or a sortBy without an index")
+            }
+    )
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<CarDto>> scrollCars(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String order
+    ) {
+        return ResponseEntity.ok(carService.scroll(cursor, size, sortBy, order));
+    }
 
+    @Operation(
+            summary = "Get the timeline of a car",
+            description = "Orders and services of the car, archived ones included, interleaved by start date, newest first unless order=asc. "
+                    + "Pass the returned nextCursor to continue; the order of the first request is kept in the cursor.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched a slice of the timeline",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor or size out of range"),
+                    @ApiResponse(responseCode = "404", description = "Car not found")
+            }
+    )
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<CursorPage<TimelineEntry>> getCarTimeline(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "desc") String order
+    ) {
+        return ResponseEntity.ok(timelineService.carTimeline(id, cursor, size, order));
+    }
 
+    @Operation(
+            summary = "Bulk import cars",
+            description = "Streams a CSV upload (header row with the field names of POST /api/cars) or NDJSON (one JSON object per line) "
+                    + "into the database. Every row is validated like POST /api/cars; invalid rows and rows that duplicate an existing "
+                    + "license plate are rejected individually and listed in the report.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished, rejected rows are listed in the report",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ImportReport.class))),
+                    @ApiResponse(responseCode = "400", description = "Unsupported content type or unreadable upload")
+            }
+    )
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importCars(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                InputStream body) {
+        return ResponseEntity.ok(bulkImportService.importCars(body, contentType));
+    }
 }
-
@@ -8,21 +8,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.dto.CursorPage;
+import org.carrent.coursework.dto.ImportReport;
 import org.carrent.coursework.dto.CustomerCreationDto;
 import org.carrent.coursework.dto.CustomerDto;
+import org.carrent.coursework.dto.TimelineEntry;
+import org.carrent.coursework.service.BulkImportService;
 import org.carrent.coursework.service.CustomerService;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.carrent.coursework.service.TimelineService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.Date;
 import java.util.Map;
 
@@ -31,6 +36,8 @@ import java.util.Map;
 @AllArgsConstructor
 public class CustomerController {
     private final CustomerService customerService;
+    private final BulkImportService bulkImportService;
+    private final TimelineService timelineService;
 
     @Operation(
             summary = "Get customer by ID",
@@ -44,9 +51,11 @@ public class CustomerController {
             }
     )
     @GetMapping("{id}")
-    @Cacheable(value = "customers", key = "#id")
     public ResponseEntity<CustomerDto> getCustomerById(@PathVariable Long id) {
-        return ResponseEntity.ok(customerService.getById(id));
+        CustomerDto customer = customerService.getById(id);
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("customer", customer.id(), customer.version()))
+                .body(customer);
     }
 
     @Operation(
@@ -60,7 +69,6 @@ public class CustomerController {
             }
     )
     @GetMapping
-    @Cacheable(value = "customers")
     public ResponseEntity<Page<CustomerDto>> getAllCustomers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -71,7 +79,10 @@ public class CustomerController {
                 ? Sort.by(sortBy).descending()
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
-        return ResponseEntity.ok(customerService.getAll(pageable));
+        Page<CustomerDto> customers = customerService.getAll(pageable);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(customers, CustomerDto::id, CustomerDto::version))
+                .body(customers);
     }
 
     @Operation(
@@ -85,7 +96,6 @@ public class CustomerController {
             }
     )
     @PostMapping
-    @CacheEvict(value = "customers", allEntries = true)
     public ResponseEntity<CustomerDto> createCustomer(@Valid @RequestBody CustomerCreationDto customerCreationDto) {
         return new ResponseEntity<>(customerService.create(customerCreationDto), HttpStatus.CREATED);
     }
@@ -98,16 +108,21 @@ public class CustomerController {
                     @ApiResponse(responseCode = "200", description = "Customer updated successfully",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = CustomerDto.class))),
-                    @ApiResponse(responseCode = "404", description = "Customer not found")
+                    @ApiResponse(responseCode = "404", description = "Customer not found"),
+                    @ApiResponse(responseCode = "409", description = "The version in the body is stale, the record was changed concurrently"),
+                    @ApiResponse(responseCode = "412", description = "If-Match does not match the current ETag")
             }
     )
     @PutMapping("{id}")
-    @CacheEvict(value = "customers", allEntries = true)
     public ResponseEntity<CustomerDto> updateCustomer(
             @PathVariable Long id,
-            @Valid @RequestBody CustomerDto customerDto
+            @Valid @RequestBody CustomerDto customerDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        return ResponseEntity.ok(customerService.updateCustomer(id, customerDto));
+        CustomerDto updated = customerService.updateCustomer(id, customerDto, ETags.versionFromIfMatch(ifMatch, "customer", id));
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("customer", updated.id(), updated.version()))
+                .body(updated);
     }
 
     @Operation(
@@ -162,7 +177,6 @@ public class CustomerController {
     }
 
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "customers", allEntries = true)
     @Operation(
             summary = "Delete a customer by ID",
             description = "Deletes a customer from the database using the specified ID. Clears the cache associated with the list of customers.",
@@ -205,7 +219,6 @@ public class CustomerController {
             }
     )
     @GetMapping("/available")
-    @Cacheable(value = "customers")
     public ResponseEntity<Page<CustomerDto>> getAllCustomersAvailable(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -217,7 +230,73 @@ public class CustomerController {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<CustomerDto> customers = customerService.getAllAvailable(pageable);
-        return ResponseEntity.ok(customers);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(customers, CustomerDto::id, CustomerDto::version))
+                .body(customers);
+    }
+
+    @Operation(
+            summary = "Scroll customers by cursor",
+            description = "Keyset pagination: returns the customers following the given cursor without counting the whole table. "
+                    + "Pass the returned nextCursor to fetch the next slice; the sort of the first request is kept in the cursor. "
+                    + "sortBy is one of the indexed properties id or licenseNumber.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched a slice of customers",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor or a sortBy without an index")
+            }
+    )
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<CustomerDto>> scrollCustomers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String order
+    ) {
+        return ResponseEntity.ok(customerService.scroll(cursor, size, sortBy, order));
     }
 
+    @Operation(
+            summary = "Get the order history of a customer",
+            description = "Orders of the customer, archived ones included, by start date, newest first unless order=asc. "
+                    + "Pass the returned nextCursor to continue; the order of the first request is kept in the cursor.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched a slice of the order history",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor or size out of range"),
+                    @ApiResponse(responseCode = "404", description = "Customer not found")
+            }
+    )
+    @GetMapping("/{id}/orders")
+    public ResponseEntity<CursorPage<TimelineEntry>> getCustomerOrders(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "desc") String order
+    ) {
+        return ResponseEntity.ok(timelineService.customerOrders(id, cursor, size, order));
+    }
+
+    @Operation(
+            summary = "Bulk import customers",
+            description = "Streams a CSV upload (header row with the field names of POST /api/customers) or NDJSON (one JSON object per line) "
+                    + "into the database. Every row is validated like POST /api/customers; invalid rows and rows that duplicate an existing "
+                    + "license number are rejected individually and listed in the report.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished, rejected rows are listed in the report",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ImportReport.class))),
+                    @ApiResponse(responseCode = "400", description = "Unsupported content type or unreadable upload")
+            }
+    )
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importCustomers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                InputStream body) {
+        return ResponseEntity.ok(bulkImportService.importCustomers(body, contentType));
+    }
 }
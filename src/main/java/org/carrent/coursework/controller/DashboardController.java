@@ -0,0 +1,39 @@
+package org.carrent.coursework.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.AllArgsConstructor;
+import org.carrent.coursework.dto.DashboardSnapshot;
+import org.carrent.coursework.service.DashboardService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@AllArgsConstructor
+public class DashboardController {
+    private final DashboardService dashboardService;
+
+    @Operation(
+            summary = "Get the fleet dashboard",
+            description = "Cars by status, orders by status, services starting in the next 7 days and today's orders and revenue. "
+                    + "Served from a snapshot refreshed on a schedule and after bulk imports, refreshedAt tells its age.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched the dashboard",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = DashboardSnapshot.class))),
+                    @ApiResponse(responseCode = "304", description = "The dashboard figures have not changed since the given ETag")
+            }
+    )
+    @GetMapping
+    public ResponseEntity<DashboardSnapshot> getDashboard() {
+        DashboardSnapshot snapshot = dashboardService.getSnapshot();
+        return ResponseEntity.ok()
+                .eTag(ETags.forDashboard(snapshot))
+                .body(snapshot);
+    }
+}
@@ -0,0 +1,65 @@
+package org.carrent.coursework.controller;
+
+import org.carrent.coursework.dto.DashboardSnapshot;
+import org.carrent.coursework.exception.PreconditionFailedException;
+import org.springframework.data.domain.Page;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Builds the ETags of entity responses. A single entity is tagged by its {@code @Version}; a page by a
+ * hash of the ids and versions it contains, so any change to one of its rows changes the tag.
+ * Spring MVC answers a matching {@code If-None-Match} with 304 before the body is serialized.
+ * Updates read the version back out of {@code If-Match}. The dashboard has no version and is tagged by
+ * a hash of its figures.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String forEntity(String type, Long id, Long version) {
+        return "\"" + type + "-" + id + "-v" + version + "\"";
+    }
+
+    static <T> String forPage(Page<T> page, Function<T, Long> id, Function<T, ?> version) {
+        StringBuilder fingerprint = new StringBuilder()
+                .append(page.getNumber()).append('/')
+                .append(page.getSize()).append('/')
+                .append(page.getTotalElements());
+        for (T item : page) {
+            fingerprint.append(';').append(id.apply(item)).append(':').append(version.apply(item));
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // refreshedAt is left out: a refresh that changed nothing keeps the tag, so clients keep getting 304
+    static String forDashboard(DashboardSnapshot snapshot) {
+        String fingerprint = snapshot.carsByStatus() + "/" + snapshot.ordersByStatus() + "/"
+                + snapshot.upcomingServicesByDay() + "/" + snapshot.ordersToday() + "/"
+                + snapshot.revenueToday().stripTrailingZeros().toPlainString();
+        return "\"dashboard-" + DigestUtils.md5DigestAsHex(fingerprint.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // The version named by an If-Match of this entity's ETag; null when the header is absent or "*"
+    static Long versionFromIfMatch(String ifMatch, String type, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + type + "-" + id + "-v";
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            // If-Match uses the strong comparison, a weak tag never matches
+            if (value.startsWith(prefix) && value.endsWith("\"") && value.length() > prefix.length() + 1) {
+                try {
+                    return Long.parseLong(value.substring(prefix.length(), value.length() - 1));
+                } catch (NumberFormatException ignored) {
+                    // not one of our tags, try the next one
+                }
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + ifMatch + " does not match " + type + " with ID: " + id);
+    }
+}
@@ -8,23 +8,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.dto.CursorPage;
+import org.carrent.coursework.dto.ImportReport;
 import org.carrent.coursework.dto.CustomerDto;
 import org.carrent.coursework.dto.EmployeeCreationDto;
 import org.carrent.coursework.dto.EmployeeDto;
 import org.carrent.coursework.enums.EmployeePosition;
+import org.carrent.coursework.service.BulkImportService;
 import org.carrent.coursework.service.EmployeeService;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.Date;
 import java.util.Map;
 
@@ -33,6 +36,7 @@ import java.util.Map;
 @AllArgsConstructor
 public class EmployeeController {
     private final EmployeeService employeeService;
+    private final BulkImportService bulkImportService;
 
     @Operation(
             summary = "Get employee by ID",
@@ -45,9 +49,11 @@ public class EmployeeController {
             }
     )
     @GetMapping("{id}")
-    @Cacheable(value = "employees", key = "#id")
     public ResponseEntity<EmployeeDto> getEmployeeById(@PathVariable Long id) {
-        return ResponseEntity.ok(employeeService.getById(id));
+        EmployeeDto employee = employeeService.getById(id);
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("employee", employee.id(), employee.version()))
+                .body(employee);
     }
 
     @Operation(
@@ -61,7 +67,6 @@ public class EmployeeController {
             }
     )
     @GetMapping
-    @Cacheable(value = "employees")
     public ResponseEntity<Page<EmployeeDto>> getAllEmployees(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -72,7 +77,10 @@ public class EmployeeController {
                 ? Sort.by(sortBy).descending()
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
-        return ResponseEntity.ok(employeeService.getAll(pageable));
+        Page<EmployeeDto> employees = employeeService.getAll(pageable);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(employees, EmployeeDto::id, EmployeeDto::version))
+                .body(employees);
     }
 
     @Operation(
@@ -86,7 +94,6 @@ public class EmployeeController {
             }
     )
     @PostMapping
-    @CacheEvict(value = "employees", allEntries = true)
     public ResponseEntity<EmployeeDto> createEmployee(@Valid @RequestBody EmployeeCreationDto employeeCreationDto) {
         return new ResponseEntity<>(employeeService.create(employeeCreationDto), HttpStatus.CREATED);
     }
@@ -99,16 +106,21 @@ public class EmployeeController {
                     @ApiResponse(responseCode = "200", description = "Employee successfully updated",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = EmployeeDto.class))),
                     @ApiResponse(responseCode = "404", description = "Employee not found"),
-                    @ApiResponse(responseCode = "400", description = "Invalid input data")
+                    @ApiResponse(responseCode = "400", description = "Invalid input data"),
+                    @ApiResponse(responseCode = "409", description = "The version in the body is stale, the record was changed concurrently"),
+                    @ApiResponse(responseCode = "412", description = "If-Match does not match the current ETag")
             }
     )
     @PutMapping("{id}")
-    @CacheEvict(value = "employees", allEntries = true)
     public ResponseEntity<EmployeeDto> updateEmployee(
             @PathVariable Long id,
-            @Valid @RequestBody EmployeeDto employeeDto
+            @Valid @RequestBody EmployeeDto employeeDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        return ResponseEntity.ok(employeeService.updateEmployee(id, employeeDto));
+        EmployeeDto updated = employeeService.updateEmployee(id, employeeDto, ETags.versionFromIfMatch(ifMatch, "employee", id));
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("employee", updated.id(), updated.version()))
+                .body(updated);
     }
 
     @Operation(
@@ -166,7 +178,6 @@ public class EmployeeController {
     }
 
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "employees", allEntries = true)
     @Operation(
             summary = "Delete an employee by ID",
             description = "Deletes an employee from the database using the specified ID. Also clears the cache associated with the list of employees.",
@@ -209,7 +220,6 @@ public class EmployeeController {
             }
     )
     @GetMapping("/available")
-    @Cacheable(value = "employees")
     public ResponseEntity<Page<EmployeeDto>> getAllEmployeesAvailable(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -221,6 +231,50 @@ public class EmployeeController {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<EmployeeDto> employees = employeeService.getAllAvailable(pageable);
-        return ResponseEntity.ok(employees);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(employees, EmployeeDto::id, EmployeeDto::version))
+                .body(employees);
+    }
+
+    @Operation(
+            summary = "Scroll employees by cursor",
+            description = "Keyset pagination: returns the employees following the given cursor without counting the whole table. "
+                    + "Pass the returned nextCursor to fetch the next slice; the sort of the first request is kept in the cursor. "
+                    + "sortBy is one of the indexed properties id or position.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched a slice of employees",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor or a sortBy without an index")
+            }
+    )
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<EmployeeDto>> scrollEmployees(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String order
+    ) {
+        return ResponseEntity.ok(employeeService.scroll(cursor, size, sortBy, order));
+    }
+
+    @Operation(
+            summary = "Bulk import employees",
+            description = "Streams a CSV upload (header row with the field names of POST /api/employees) or NDJSON (one JSON object per line) "
+                    + "into the database. Every row is validated like POST /api/employees; invalid rows and rows that duplicate an existing "
+                    + "position with the same email or phone number are rejected individually and listed in the report.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished, rejected rows are listed in the report",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ImportReport.class))),
+                    @ApiResponse(responseCode = "400", description = "Unsupported content type or unreadable upload")
+            }
+    )
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importEmployees(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                InputStream body) {
+        return ResponseEntity.ok(bulkImportService.importEmployees(body, contentType));
     }
 }
@@ -8,34 +8,40 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.dto.CursorPage;
 import org.carrent.coursework.dto.EmployeeDto;
 import org.carrent.coursework.dto.OrderCreationDto;
 import org.carrent.coursework.dto.OrderDto;
+import org.carrent.coursework.dto.OrderSummaryDto;
 import org.carrent.coursework.enums.EmployeePosition;
 import org.carrent.coursework.enums.OrderStatus;
+import org.carrent.coursework.service.ExportService;
 import org.carrent.coursework.service.OrderService;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/orders")
 @AllArgsConstructor
 public class OrderController {
     private final OrderService orderService;
+    private final ExportService exportService;
 
     @Operation(
             summary = "Get order by ID",
@@ -49,9 +55,11 @@ public class OrderController {
             }
     )
     @GetMapping("{id}")
-    @Cacheable(value = "orders", key = "#id")
     public ResponseEntity<OrderDto> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getById(id));
+        OrderDto order = orderService.getById(id);
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("order", order.id(), order.version()))
+                .body(order);
     }
 
     @Operation(
@@ -66,8 +74,7 @@ public class OrderController {
             }
     )
     @GetMapping
-    @Cacheable(value = "orders")
-    public ResponseEntity<Page<OrderDto>> getAllOrders(
+    public ResponseEntity<Page<OrderSummaryDto>> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
@@ -77,7 +84,11 @@ public class OrderController {
                 ? Sort.by(sortBy).descending()
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
-        return ResponseEntity.ok(orderService.getAll(pageable));
+        Page<OrderSummaryDto> orders = orderService.getAll(pageable);
+        return ResponseEntity.ok()
+                // A list row changes with the car, customer and employee names and with the time-derived status
+                .eTag(ETags.forPage(orders, OrderSummaryDto::id, summary -> summary.revision() + "/" + summary.status()))
+                .body(orders);
     }
 
     @Operation(
@@ -102,7 +113,6 @@ public class OrderController {
             }
     )
     @PostMapping
-    @CacheEvict(value = "orders", allEntries = true)
     public ResponseEntity<OrderDto> createOrder(@Valid @RequestBody OrderCreationDto orderCreationDto) {
         return new ResponseEntity<>(orderService.create(orderCreationDto), HttpStatus.CREATED);
     }
@@ -133,16 +143,21 @@ public class OrderController {
                             responseCode = "404",
                             description = "Order not found",
                             content = @Content(mediaType = "application/json")
-                    )
+                    ),
+                    @ApiResponse(responseCode = "409", description = "The version in the body is stale, the record was changed concurrently"),
+                    @ApiResponse(responseCode = "412", description = "If-Match does not match the current ETag")
             }
     )
     @PutMapping("{id}")
-    @CacheEvict(value = "orders", allEntries = true)
     public ResponseEntity<OrderDto> updateOrder(
             @PathVariable Long id,
-            @Valid @RequestBody OrderDto orderDto
+            @Valid @RequestBody OrderDto orderDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        return ResponseEntity.ok(orderService.updateOrder(id, orderDto));
+        OrderDto updated = orderService.updateOrder(id, orderDto, ETags.versionFromIfMatch(ifMatch, "order", id));
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("order", updated.id(), updated.version()))
+                .body(updated);
     }
 
 
@@ -163,7 +178,7 @@ public class OrderController {
             @RequestParam String order,
             @PageableDefault Pageable pageable
     ) {
-        Page<OrderDto> sortedOrders = orderService.getSortedOrders(sortBy, order, pageable);
+        Page<OrderSummaryDto> sortedOrders = orderService.getSortedOrders(sortBy, order, pageable);
         if (sortedOrders.isEmpty()) {
             return new ResponseEntity<>("No orders found.", HttpStatus.NOT_FOUND);
         }
@@ -172,12 +187,16 @@ public class OrderController {
 
     @Operation(
             summary = "Filter orders",
-            description = "Fetches orders based on various filter criteria.",
+            description = "Fetches orders based on various filter criteria. minCost/maxCost are an inclusive range; "
+                    + "sort takes one or more properties in one direction backed by an index: startDate, endDate or cost, "
+                    + "or startDate after a carId, customerId or employeeId filter. Ranges can be combined; without a sort, "
+                    + "one of them has to be on an indexed property.",
             security = @SecurityRequirement(name = "BearerAuth"),
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully fetched filtered orders",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = Page.class))),
+                    @ApiResponse(responseCode = "400", description = "minCost above maxCost, or a sort or unsorted range without a matching index"),
                     @ApiResponse(responseCode = "404", description = "No orders found")
             }
     )
@@ -190,10 +209,12 @@ public class OrderController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDateTime startDate,
             @RequestParam(required = false) OrderStatus status,
             @RequestParam(required = false) BigDecimal cost,
+            @RequestParam(required = false) BigDecimal minCost,
+            @RequestParam(required = false) BigDecimal maxCost,
             @PageableDefault Pageable pageable
     ) {
-        Page<OrderDto> filteredOrders = orderService.getFilteredOrders(
-                carId, customerId, employeeId, startDate, endDate, status, cost, pageable);
+        Page<OrderSummaryDto> filteredOrders = orderService.getFilteredOrders(
+                carId, customerId, employeeId, startDate, endDate, status, cost, minCost, maxCost, pageable);
 
         if (!filteredOrders.hasContent()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -204,7 +225,6 @@ public class OrderController {
     }
 
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "order", allEntries = true)
     @Operation(
             summary = "Delete an order by ID",
             description = "Deletes an order from the database using the specified ID. Also clears the cache associated with the orders.",
@@ -248,8 +268,7 @@ public class OrderController {
             }
     )
     @GetMapping("/available")
-    @Cacheable(value = "orders")
-    public ResponseEntity<Page<OrderDto>> getAllOrdersAvailable(
+    public ResponseEntity<Page<OrderSummaryDto>> getAllOrdersAvailable(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
@@ -259,7 +278,69 @@ public class OrderController {
                 ? Sort.by(sortBy).descending()
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<OrderDto> orders = orderService.getAllAvailable(pageable);
-        return ResponseEntity.ok(orders);
+        Page<OrderSummaryDto> orders = orderService.getAllAvailable(pageable);
+        return ResponseEntity.ok()
+                // A list row changes with the car, customer and employee names and with the time-derived status
+                .eTag(ETags.forPage(orders, OrderSummaryDto::id, summary -> summary.revision() + "/" + summary.status()))
+                .body(orders);
+    }
+
+    @Operation(
+            summary = "Scroll orders by cursor",
+            description = "Keyset pagination: returns the orders following the given cursor without counting the whole table. "
+                    + "Pass the returned nextCursor to fetch the next slice; the sort of the first request is kept in the cursor. "
+                    + "sortBy is one of the indexed properties id or startDate.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched a slice of orders",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor or a sortBy without an index")
+            }
+    )
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<OrderDto>> scrollOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String order
+    ) {
+        return ResponseEntity.ok(orderService.scroll(cursor, size, sortBy, order));
+    }
+
+    @Operation(
+            summary = "Export orders",
+            description = "Streams all non-deleted orders, archived ones included, matching the filters as NDJSON or CSV straight from a database cursor. "
+                    + "The body is gzip-compressed when the client sends Accept-Encoding: gzip.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Export stream started"),
+                    @ApiResponse(responseCode = "400", description = "Invalid filter or format")
+            }
+    )
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(defaultValue = "NDJSON") ExportService.Format format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = output -> {
+            OutputStream target = gzip ? new GZIPOutputStream(output, 64 * 1024) : output;
+            exportService.exportOrders(target, format, from, to, status);
+            target.close();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + format.getExtension() + (gzip ? ".gz" : "") + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 }
@@ -0,0 +1,128 @@
+package org.carrent.coursework.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.AllArgsConstructor;
+import org.carrent.coursework.aggregate.AggregateBackfill;
+import org.carrent.coursework.dto.AggregateBackfillStatus;
+import org.carrent.coursework.dto.MonthlyRevenueRow;
+import org.carrent.coursework.dto.RevenueReportRow;
+import org.carrent.coursework.dto.UtilizationReport;
+import org.carrent.coursework.service.ReportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reports")
+@AllArgsConstructor
+public class ReportController {
+    private final ReportService reportService;
+    private final AggregateBackfill aggregateBackfill;
+
+    @Operation(
+            summary = "Revenue by car, customer or employee",
+            description = "Number of orders and revenue per car, customer or employee for the orders starting between from and to "
+                    + "(both inclusive), highest revenue first. Canceled and deleted orders are not counted.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched the revenue report",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = RevenueReportRow.class)))),
+                    @ApiResponse(responseCode = "400", description = "Unknown dimension, invalid date range or limit out of range")
+            }
+    )
+    @GetMapping("/revenue")
+    public ResponseEntity<List<RevenueReportRow>> revenue(
+            @RequestParam(defaultValue = "car") String by,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long id,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        return ResponseEntity.ok(reportService.revenueBy(by, from, to, id, limit));
+    }
+
+    @Operation(
+            summary = "Monthly fleet revenue",
+            description = "Orders, revenue, services and service cost of the whole fleet per calendar month between from and to.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched the monthly report",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = MonthlyRevenueRow.class)))),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range")
+            }
+    )
+    @GetMapping("/revenue/monthly")
+    public ResponseEntity<List<MonthlyRevenueRow>> monthlyRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(reportService.monthlyRevenue(from, to));
+    }
+
+    @Operation(
+            summary = "Fleet or car utilization",
+            description = "Share of the car time between from and to (both inclusive) spent rented and in service, "
+                    + "for the whole fleet or for one car.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched the utilization report",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = UtilizationReport.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range"),
+                    @ApiResponse(responseCode = "404", description = "Car not found")
+            }
+    )
+    @GetMapping("/utilization")
+    public ResponseEntity<UtilizationReport> utilization(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long carId
+    ) {
+        return ResponseEntity.ok(reportService.utilization(from, to, carId));
+    }
+
+    @Operation(
+            summary = "Rebuild the report aggregates",
+            description = "Starts recomputing the daily aggregates from all orders and services in parallel chunks. "
+                    + "With reset=true the aggregates are cleared first; only do that while nothing else writes orders or services. "
+                    + "Requires the ADMIN role.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Backfill started",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = AggregateBackfillStatus.class))),
+                    @ApiResponse(responseCode = "403", description = "Caller is not an administrator"),
+                    @ApiResponse(responseCode = "409", description = "A backfill is already running")
+            }
+    )
+    @PostMapping("/backfill")
+    public ResponseEntity<AggregateBackfillStatus> startBackfill(@RequestParam(defaultValue = "false") boolean reset) {
+        return new ResponseEntity<>(aggregateBackfill.start(reset), HttpStatus.ACCEPTED);
+    }
+
+    @Operation(
+            summary = "Report aggregates backfill progress",
+            description = "State and progress of the last backfill of the daily aggregates.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched the backfill status",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = AggregateBackfillStatus.class)))
+            }
+    )
+    @GetMapping("/backfill")
+    public ResponseEntity<AggregateBackfillStatus> backfillStatus() {
+        return ResponseEntity.ok(aggregateBackfill.getStatus());
+    }
+}
@@ -0,0 +1,66 @@
+package org.carrent.coursework.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.AllArgsConstructor;
+import org.carrent.coursework.dto.AutocompleteHit;
+import org.carrent.coursework.dto.SearchHit;
+import org.carrent.coursework.service.SearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/search")
+@AllArgsConstructor
+public class SearchController {
+    private final SearchService searchService;
+
+    @Operation(
+            summary = "Search customers, employees and cars",
+            description = "Substring and fuzzy search by name, email, phone number, license number, brand, model or license plate. "
+                    + "Results of all requested types are ranked together by trigram similarity.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched ranked search results",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = SearchHit.class)))),
+                    @ApiResponse(responseCode = "400", description = "Query too short, unknown type or limit out of range")
+            }
+    )
+    @GetMapping
+    public ResponseEntity<List<SearchHit>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) Set<String> types,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(searchService.search(q, types, limit));
+    }
+
+    @Operation(
+            summary = "Autocomplete customers and cars",
+            description = "Returns the best prefix and substring matches on customer name, phone number and email and on car "
+                    + "license plate, brand and model. Served from an in-memory index, the database is not queried.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched suggestions",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = AutocompleteHit.class)))),
+                    @ApiResponse(responseCode = "400", description = "Unknown type or limit out of range")
+            }
+    )
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<AutocompleteHit>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(required = false) Set<String> types,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(searchService.autocomplete(q, types, limit));
+    }
+}
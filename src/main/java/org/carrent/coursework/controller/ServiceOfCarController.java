@@ -8,25 +8,29 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.dto.CursorPage;
 import org.carrent.coursework.dto.ServiceOfCarCreationDto;
 import org.carrent.coursework.dto.ServiceOfCarDto;
 import org.carrent.coursework.enums.ServiceOfCarStatus;
+import org.carrent.coursework.service.ExportService;
 import org.carrent.coursework.service.ServiceOfCarService;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/services")
@@ -34,6 +38,7 @@ import java.util.Map;
 public class ServiceOfCarController {
 
     private final ServiceOfCarService serviceOfCarService;
+    private final ExportService exportService;
 
     @Operation(
             summary = "Get service by ID",
@@ -52,9 +57,11 @@ public class ServiceOfCarController {
             }
     )
     @GetMapping("{id}")
-    @Cacheable(value = "services", key = "#id")
     public ResponseEntity<ServiceOfCarDto> getServiceById(@PathVariable Long id) {
-        return ResponseEntity.ok(serviceOfCarService.getById(id));
+        ServiceOfCarDto service = serviceOfCarService.getById(id);
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("service", service.id(), service.version()))
+                .body(service);
     }
 
     @Operation(
@@ -74,7 +81,6 @@ public class ServiceOfCarController {
     )
 
     @GetMapping
-    @Cacheable(value = "services")
     public ResponseEntity<Page<ServiceOfCarDto>> getAllServices(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -86,7 +92,9 @@ public class ServiceOfCarController {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<ServiceOfCarDto> services = serviceOfCarService.getAll(pageable);
-        return ResponseEntity.ok(services);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(services, ServiceOfCarDto::id, ServiceOfCarDto::version))
+                .body(services);
     }
 
     @Operation(
@@ -113,7 +121,6 @@ public class ServiceOfCarController {
             }
     )
     @PostMapping
-    @CacheEvict(value = "services", allEntries = true)
     public ResponseEntity<ServiceOfCarDto> createService(@Valid @RequestBody ServiceOfCarCreationDto serviceOfCarCreationDto) {
         return new ResponseEntity<>(serviceOfCarService.create(serviceOfCarCreationDto), HttpStatus.CREATED);
     }
@@ -139,13 +146,21 @@ public class ServiceOfCarController {
                                     schema = @Schema(implementation = ServiceOfCarDto.class)
                             )
                     ),
-                    @ApiResponse(responseCode = "404", description = "Service not found")
+                    @ApiResponse(responseCode = "404", description = "Service not found"),
+                    @ApiResponse(responseCode = "409", description = "The version in the body is stale, the record was changed concurrently"),
+                    @ApiResponse(responseCode = "412", description = "If-Match does not match the current ETag")
             }
     )
     @PutMapping("{id}")
-    @CacheEvict(value = "services", allEntries = true)
-    public ResponseEntity<ServiceOfCarDto> updateService(@PathVariable Long id, @Valid @RequestBody ServiceOfCarDto serviceOfCarDto) {
-        return ResponseEntity.ok(serviceOfCarService.updateServiceOfCar(id, serviceOfCarDto));
+    public ResponseEntity<ServiceOfCarDto> updateService(
+            @PathVariable Long id,
+            @Valid @RequestBody ServiceOfCarDto serviceOfCarDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        ServiceOfCarDto updated = serviceOfCarService.updateServiceOfCar(id, serviceOfCarDto, ETags.versionFromIfMatch(ifMatch, "service", id));
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("service", updated.id(), updated.version()))
+                .body(updated);
     }
 
     @Operation(
@@ -175,7 +190,10 @@ public class ServiceOfCarController {
 
     @Operation(
             summary = "Filter services",
-            description = "Fetches services that match the specified filters",
+            description = "Fetches services that match the specified filters. minCost/maxCost are an inclusive range; "
+                    + "sort takes one or more properties in one direction backed by an index: startDate, endDate or cost, "
+                    + "endDate after a carId filter or startDate after an employeeId filter. Ranges can be combined; "
+                    + "without a sort, one of them has to be on an indexed property.",
             security = @SecurityRequirement(name = "BearerAuth"),
             responses = {
                     @ApiResponse(
@@ -186,6 +204,7 @@ public class ServiceOfCarController {
                                     schema = @Schema(implementation = Page.class)
                             )
                     ),
+                    @ApiResponse(responseCode = "400", description = "minCost above maxCost, or a sort or unsorted range without a matching index"),
                     @ApiResponse(responseCode = "404", description = "No services found")
             }
     )
@@ -197,11 +216,13 @@ public class ServiceOfCarController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDateTime startDate,
             @RequestParam(required = false) String description,
             @RequestParam(required = false) BigDecimal cost,
+            @RequestParam(required = false) BigDecimal minCost,
+            @RequestParam(required = false) BigDecimal maxCost,
             @RequestParam(required = false) ServiceOfCarStatus status,
             @PageableDefault Pageable pageable) {
 
         Page<ServiceOfCarDto> filteredServices = serviceOfCarService.getFilteredServices(
-                carId, employeeId, startDate, endDate, description, cost, status, pageable);
+                carId, employeeId, startDate, endDate, description, cost, minCost, maxCost, status, pageable);
 
         if (!filteredServices.hasContent()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -212,7 +233,6 @@ public class ServiceOfCarController {
     }
 
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "service", allEntries = true)
     @Operation(
             summary = "Delete a service by ID",
             description = "Deletes a service record from the database using the specified ID. Also clears the cache associated with the list of services.",
@@ -254,7 +274,6 @@ public class ServiceOfCarController {
             }
     )
     @GetMapping("/available")
-    @Cacheable(value = "services")
     public ResponseEntity<Page<ServiceOfCarDto>> getAllServicesAvailable(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -266,6 +285,67 @@ public class ServiceOfCarController {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<ServiceOfCarDto> services = serviceOfCarService.getAllAvailable(pageable);
-        return ResponseEntity.ok(services);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(services, ServiceOfCarDto::id, ServiceOfCarDto::version))
+                .body(services);
+    }
+
+    @Operation(
+            summary = "Scroll services by cursor",
+            description = "Keyset pagination: returns the services following the given cursor without counting the whole table. "
+                    + "Pass the returned nextCursor to fetch the next slice; the sort of the first request is kept in the cursor. "
+                    + "sortBy is one of the indexed properties id, startDate, endDate or cost.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched a slice of services",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor or a sortBy without an index")
+            }
+    )
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ServiceOfCarDto>> scrollServices(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String order
+    ) {
+        return ResponseEntity.ok(serviceOfCarService.scroll(cursor, size, sortBy, order));
+    }
+
+    @Operation(
+            summary = "Export services",
+            description = "Streams all non-deleted services, archived ones included, matching the filters as NDJSON or CSV straight from a database cursor. "
+                    + "The body is gzip-compressed when the client sends Accept-Encoding: gzip.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Export stream started"),
+                    @ApiResponse(responseCode = "400", description = "Invalid filter or format")
+            }
+    )
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportServices(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) ServiceOfCarStatus status,
+            @RequestParam(defaultValue = "NDJSON") ExportService.Format format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = output -> {
+            OutputStream target = gzip ? new GZIPOutputStream(output, 64 * 1024) : output;
+            exportService.exportServices(target, format, from, to, status);
+            target.close();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"services." + format.getExtension() + (gzip ? ".gz" : "") + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 }
@@ -8,12 +8,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.dto.CursorPage;
 import org.carrent.coursework.dto.CarDto;
 import org.carrent.coursework.dto.UserCreationDto;
 import org.carrent.coursework.dto.UserDto;
 import org.carrent.coursework.service.UserService;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -41,9 +40,11 @@ public class UserController {
             }
     )
     @GetMapping("{id}")
-    @Cacheable(value = "users", key = "#id")
     public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
-        return ResponseEntity.ok(userService.getById(id));
+        UserDto user = userService.getById(id);
+        return ResponseEntity.ok()
+                .eTag(ETags.forEntity("user", user.id(), user.version()))
+                .body(user);
     }
 
     @Operation(
@@ -57,7 +58,6 @@ public class UserController {
             }
     )
     @GetMapping
-    @Cacheable(value = "users")
     public ResponseEntity<Page<UserDto>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -69,7 +69,9 @@ public class UserController {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<UserDto> users = userService.getAll(pageable);
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(users, UserDto::id, UserDto::version))
+                .body(users);
     }
 
     @Operation(
@@ -83,7 +85,6 @@ public class UserController {
             }
     )
     @GetMapping("/available")
-    @Cacheable(value = "users")
     public ResponseEntity<Page<UserDto>> getAllUsersAvailable(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -95,7 +96,9 @@ public class UserController {
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<UserDto> users = userService.getAllAvailable(pageable);
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok()
+                .eTag(ETags.forPage(users, UserDto::id, UserDto::version))
+                .body(users);
     }
 
     @Operation(
@@ -109,7 +112,6 @@ public class UserController {
             }
     )
     @PostMapping
-    @CacheEvict(value = "users", allEntries = true)
     public ResponseEntity<UserDto> createUser(@Valid @RequestBody UserCreationDto userCreationDto) {
         return new ResponseEntity<>(userService.createUser(userCreationDto), HttpStatus.CREATED);
     }
@@ -126,7 +128,6 @@ public class UserController {
             }
     )
     @PutMapping("{id}")
-    @CacheEvict(value = "users", allEntries = true)
     public ResponseEntity<UserDto> updateCar(
             @PathVariable Long id,
             @Valid @RequestBody UserDto userDto
@@ -178,7 +179,6 @@ public class UserController {
     }
 
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "users", allEntries = true)
     @Operation(
             summary = "Delete a user by ID",
             description = "Deletes a user from the database using the specified ID. Also clears the cache associated with the list of users.",
@@ -208,6 +208,26 @@ public class UserController {
         return ResponseEntity.ok(userService.deleteUser(id));
     }
 
-
+    @Operation(
+            summary = "Scroll users by cursor",
+            description = "Keyset pagination: returns the users following the given cursor without counting the whole table. "
+                    + "Pass the returned nextCursor to fetch the next slice; the sort of the first request is kept in the cursor. "
+                    + "sortBy is one of the indexed properties id or username.",
+            security = @SecurityRequirement(name = "BearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched a slice of users",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor or a sortBy without an index")
+            }
+    )
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<UserDto>> scrollUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String order
+    ) {
+        return ResponseEntity.ok(userService.scroll(cursor, size, sortBy, order));
+    }
 }
-
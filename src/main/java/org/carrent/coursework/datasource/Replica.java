@@ -0,0 +1,41 @@
+package org.carrent.coursework.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.time.Duration;
+
+/**
+ * A replica pool together with the result of its last health check
+ */
+public class Replica {
+    private final String name;
+    private final HikariDataSource dataSource;
+    private volatile boolean healthy;
+    private volatile Duration lag = Duration.ZERO;
+
+    public Replica(String name, HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public Duration getLag() {
+        return lag;
+    }
+
+    void update(boolean healthy, Duration lag) {
+        this.healthy = healthy;
+        this.lag = lag;
+    }
+}
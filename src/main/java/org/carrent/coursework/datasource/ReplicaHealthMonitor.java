@@ -0,0 +1,18 @@
+package org.carrent.coursework.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ReplicaHealthMonitor {
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaHealthMonitor(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${datasource.replicas.health-check-interval-ms}")
+    public void checkReplicas() {
+        routingDataSource.checkReplicas();
+    }
+}
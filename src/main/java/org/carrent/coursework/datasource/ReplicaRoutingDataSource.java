@@ -0,0 +1,189 @@
+package org.carrent.coursework.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to a healthy replica and everything else to the primary.
+ * <p>
+ * The decision is taken when the connection is actually fetched, so this data source has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: by then the transaction manager
+ * has published the read-only flag. A replica is skipped while it is unreachable or lags behind by more than
+ * {@code maxLag}, and a user whose write committed within the sticky window keeps reading from the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+
+    private static final String LAG_QUERY = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() THEN 0"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final Duration maxLag;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+    private final Counter stickyReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<Replica> replicas,
+                                    ReadYourWritesTracker readYourWritesTracker,
+                                    Duration maxLag,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.maxLag = maxLag;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : this.replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.getLag().toMillis() / 1000.0)
+                    .tag("replica", replica.getName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.primaryReads = readCounter(meterRegistry, "primary");
+        this.replicaReads = readCounter(meterRegistry, "replica");
+        this.stickyReads = readCounter(meterRegistry, "sticky");
+        this.fallbackReads = readCounter(meterRegistry, "fallback");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Replica replica = route();
+        return replica == null ? PRIMARY : replica.getName();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = route();
+        if (replica != null) {
+            try {
+                return replica.getDataSource().getConnection();
+            } catch (SQLException ex) {
+                logger.warn("Replica {} is unreachable, reading from the primary: {}", replica.getName(), ex.getMessage());
+                replica.update(false, replica.getLag());
+                fallbackReads.increment();
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Measures the replay lag of every replica; called periodically by {@link ReplicaHealthMonitor}
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.isHealthy();
+            try (Connection connection = replica.getDataSource().getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                Duration lag = Duration.ofMillis(Math.round(resultSet.getDouble(1) * 1000));
+                boolean healthy = lag.compareTo(maxLag) <= 0;
+                replica.update(healthy, lag);
+                if (healthy != wasHealthy) {
+                    logger.info("Replica {} is {} (lag {} ms)", replica.getName(), healthy ? "back in rotation" : "lagging, taken out of rotation", lag.toMillis());
+                }
+            } catch (SQLException ex) {
+                replica.update(false, replica.getLag());
+                if (wasHealthy) {
+                    logger.warn("Replica {} failed its health check, taken out of rotation: {}", replica.getName(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.getDataSource().close();
+        }
+    }
+
+    // null means the primary
+    private Replica route() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteOnCommit();
+            return null;
+        }
+        if (replicas.isEmpty()) {
+            primaryReads.increment();
+            return null;
+        }
+        if (readYourWritesTracker.wroteRecently()) {
+            stickyReads.increment();
+            return null;
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.isHealthy()) {
+                replicaReads.increment();
+                return replica;
+            }
+        }
+        fallbackReads.increment();
+        return null;
+    }
+
+    // The sticky window starts when the write becomes visible, not when its transaction begins;
+    // a rolled back transaction wrote nothing
+    private void recordWriteOnCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            readYourWritesTracker.recordWrite();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWritesTracker.recordWrite();
+            }
+        });
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.routing.reads")
+                .description("Read-only transactions by the data source that served them")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
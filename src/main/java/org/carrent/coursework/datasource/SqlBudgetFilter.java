@@ -0,0 +1,117 @@
+package org.carrent.coursework.datasource;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements and database time of every request. The totals are sent back as
+ * {@code X-SQL-*} headers and recorded per endpoint as {@code http.server.requests.sql.*} metrics;
+ * a request that exceeds the statement budget or repeats one statement too often (an N+1) is logged.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlBudgetFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(SqlBudgetFilter.class);
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String TIME_HEADER = "X-SQL-Time-Ms";
+    public static final String REPEATED_HEADER = "X-SQL-Repeated";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sql.budget.enabled}")
+    private boolean enabled;
+
+    @Value("${sql.budget.max-statements}")
+    private int maxStatements;
+
+    @Value("${sql.budget.n-plus-one-threshold}")
+    private int nPlusOneThreshold;
+
+    public SqlBudgetFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatementRecorder.start();
+        // Headers have to go out before the body commits the response, later statements only reach the metrics
+        OnCommittedResponseWrapper wrapper = new OnCommittedResponseWrapper(response) {
+            @Override
+            protected void onResponseCommitted() {
+                writeHeaders(response, statistics);
+            }
+        };
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            SqlStatementRecorder.stop();
+        }
+        if (!response.isCommitted()) {
+            writeHeaders(response, statistics);
+        }
+        report(request, statistics);
+    }
+
+    private static void writeHeaders(HttpServletResponse response, SqlStatistics statistics) {
+        response.setHeader(STATEMENTS_HEADER, String.valueOf(statistics.getStatements()));
+        response.setHeader(TIME_HEADER, String.valueOf(statistics.getTime().toMillis()));
+        response.setHeader(REPEATED_HEADER, String.valueOf(statistics.getRepeatedStatements()));
+    }
+
+    private void report(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        String method = request.getMethod();
+
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements executed per request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder("http.server.requests.sql.repeated")
+                .description("Executions of an already executed statement per request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getRepeatedStatements());
+        Timer.builder("http.server.requests.sql.time")
+                .description("Time spent executing SQL per request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getTime());
+
+        String repeatedSql = statistics.getMostRepeatedSql();
+        if (repeatedSql != null && statistics.getExecutions(repeatedSql) >= nPlusOneThreshold) {
+            logger.warn("Possible N+1 in {} {}: statement executed {} times: {}",
+                    method, uri, statistics.getExecutions(repeatedSql), repeatedSql);
+        }
+        if (statistics.getStatements() > maxStatements) {
+            logger.warn("{} {} executed {} statements, budget is {}", method, uri, statistics.getStatements(), maxStatements);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.carrent.coursework.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound recording of the statements run through {@link StatementCountingDataSource}.
+ * {@link SqlBudgetFilter} opens one recording per HTTP request;
+ * {@link #record(Runnable)} does the same around any piece of code, which is what a query budget
+ * assertion in a test needs.
+ */
+public final class SqlStatementRecorder {
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementRecorder() {
+    }
+
+    // Recordings nest: statements of an inner recording also count towards the enclosing one
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static void stop() {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics == null || statistics.getParent() == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics.getParent());
+        }
+    }
+
+    public static boolean isRecording() {
+        return CURRENT.get() != null;
+    }
+
+    public static SqlStatistics record(Runnable action) {
+        return recordResult(() -> {
+            action.run();
+            return null;
+        }).statistics();
+    }
+
+    public static <T> Recorded<T> recordResult(Supplier<T> action) {
+        SqlStatistics statistics = start();
+        try {
+            return new Recorded<>(action.get(), statistics);
+        } finally {
+            stop();
+        }
+    }
+
+    static void add(String sql, long elapsedNanos) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.add(sql, elapsedNanos);
+        }
+    }
+
+    public record Recorded<T>(T result, SqlStatistics statistics) {}
+}
@@ -0,0 +1,68 @@
+package org.carrent.coursework.datasource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statements executed on one thread while a {@link SqlStatementRecorder} recording was open.
+ * Statements are keyed by their SQL text with the bind markers left in place, so the same query
+ * run with different parameters - the usual N+1 shape - adds up under one key.
+ */
+public class SqlStatistics {
+    private final SqlStatistics parent;
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private int statements;
+    private long nanos;
+
+    SqlStatistics(SqlStatistics parent) {
+        this.parent = parent;
+    }
+
+    SqlStatistics getParent() {
+        return parent;
+    }
+
+    void add(String sql, long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+        executionsBySql.merge(sql, 1, Integer::sum);
+        if (parent != null) {
+            parent.add(sql, elapsedNanos);
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public Duration getTime() {
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * Executions beyond the first of every statement that ran more than once
+     */
+    public int getRepeatedStatements() {
+        int repeated = 0;
+        for (int executions : executionsBySql.values()) {
+            repeated += executions - 1;
+        }
+        return repeated;
+    }
+
+    /**
+     * The statement that ran most often, or null when nothing ran twice
+     */
+    public String getMostRepeatedSql() {
+        return executionsBySql.entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    public int getExecutions(String sql) {
+        return executionsBySql.getOrDefault(sql, 0);
+    }
+}
@@ -0,0 +1,16 @@
+package org.carrent.coursework.dto;
+
+import java.time.Instant;
+
+/**
+ * Progress of the last aggregate backfill; {@code state} is IDLE, RUNNING, COMPLETED or FAILED
+ */
+public record AggregateBackfillStatus(String state,
+                                      boolean reset,
+                                      Instant startedAt,
+                                      Instant finishedAt,
+                                      int chunksTotal,
+                                      int chunksDone,
+                                      long sourcesChanged,
+                                      String error) {
+}
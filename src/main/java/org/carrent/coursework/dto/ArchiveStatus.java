@@ -0,0 +1,16 @@
+package org.carrent.coursework.dto;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the last archival run; {@code state} is IDLE, RUNNING, COMPLETED or FAILED
+ */
+public record ArchiveStatus(String state,
+                            LocalDateTime cutoff,
+                            Instant startedAt,
+                            Instant finishedAt,
+                            long ordersArchived,
+                            long servicesArchived,
+                            String error) {
+}
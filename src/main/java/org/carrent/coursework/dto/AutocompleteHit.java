@@ -0,0 +1,12 @@
+package org.carrent.coursework.dto;
+
+import java.io.Serializable;
+
+/**
+ * Autocomplete suggestion, {@code matchedField} is the normalized field value that matched the query
+ */
+public record AutocompleteHit(String type,
+                              Long id,
+                              String label,
+                              String matchedField) implements Serializable {
+}
@@ -16,6 +16,7 @@ public record CarDto(
                      boolean deleted,
                      Date createdAt,
                      Date updatedAt,
+                     Long version,
                      String brand,
                      String model,
                      int year,
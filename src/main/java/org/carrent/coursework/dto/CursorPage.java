@@ -0,0 +1,18 @@
+package org.carrent.coursework.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing. {@code nextCursor} is an opaque token to pass back
+ * as {@code cursor} for the following slice; it is {@code null} on the last slice.
+ */
+public record CursorPage<T>(List<T> content,
+                            int size,
+                            String nextCursor
+) implements Serializable {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
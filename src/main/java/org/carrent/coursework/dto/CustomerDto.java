@@ -11,6 +11,7 @@ public record CustomerDto(
                           boolean deleted,
                           Date createdAt,
                           Date updatedAt,
+                          Long version,
                           String lastName,
                           String firstName,
                           String middleName,
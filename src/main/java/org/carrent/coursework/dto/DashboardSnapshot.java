@@ -0,0 +1,23 @@
+package org.carrent.coursework.dto;
+
+import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.enums.OrderStatus;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Fleet dashboard as of {@code refreshedAt}. Every status is present, with 0 when nothing has it;
+ * {@code upcomingServicesByDay} covers today and the following six days.
+ */
+public record DashboardSnapshot(Instant refreshedAt,
+                                Map<CarStatus, Long> carsByStatus,
+                                Map<OrderStatus, Long> ordersByStatus,
+                                long upcomingServices,
+                                Map<LocalDate, Long> upcomingServicesByDay,
+                                long ordersToday,
+                                BigDecimal revenueToday) implements Serializable {
+}
@@ -12,6 +12,7 @@ public record EmployeeDto(Long id,
                           boolean deleted,
                           Date createdAt,
                           Date updatedAt,
+                          Long version,
                           String lastName,
                           String firstName,
                           String middleName,
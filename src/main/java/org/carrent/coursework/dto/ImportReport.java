@@ -0,0 +1,17 @@
+package org.carrent.coursework.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import; {@code errors} is capped, {@code errorsTruncated} tells whether more rows were rejected
+ */
+public record ImportReport(String resource,
+                           long rowsRead,
+                           long imported,
+                           long rejected,
+                           List<RowError> errors,
+                           boolean errorsTruncated) implements Serializable {
+
+    public record RowError(long row, String message) implements Serializable {}
+}
@@ -0,0 +1,15 @@
+package org.carrent.coursework.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fleet-wide totals of one calendar month, {@code month} is its first day
+ */
+public record MonthlyRevenueRow(LocalDate month,
+                                long orders,
+                                BigDecimal revenue,
+                                long services,
+                                BigDecimal serviceCost) implements Serializable {
+}
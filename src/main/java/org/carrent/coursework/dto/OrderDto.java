@@ -14,6 +14,7 @@ public record OrderDto(Long id,
                        boolean deleted,
                        Date createdAt,
                        Date updatedAt,
+                       Long version,
                        Long carId,
                        Long customerId,
                        Long employeeId,
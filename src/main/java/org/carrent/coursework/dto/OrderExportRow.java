@@ -0,0 +1,24 @@
+package org.carrent.coursework.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.carrent.coursework.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Flat projection of {@link org.carrent.coursework.entity.Order} used by the streaming export
+ */
+@JsonPropertyOrder({"id", "carId", "customerId", "employeeId", "startDate", "endDate", "status", "cost", "createdAt", "updatedAt"})
+public record OrderExportRow(Long id,
+                             Long carId,
+                             Long customerId,
+                             Long employeeId,
+                             LocalDateTime startDate,
+                             LocalDateTime endDate,
+                             OrderStatus status,
+                             BigDecimal cost,
+                             Date createdAt,
+                             Date updatedAt) {
+}
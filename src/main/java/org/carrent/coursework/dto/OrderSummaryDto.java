@@ -0,0 +1,35 @@
+package org.carrent.coursework.dto;
+
+import org.carrent.coursework.enums.OrderStatus;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * List view of an order read from {@link org.carrent.coursework.entity.OrderView}: the fields of
+ * {@link OrderDto} plus the car, customer and employee names. {@code status} is the effective status
+ * at the time of the request, {@code storedStatus} the one last written to the order.
+ */
+public record OrderSummaryDto(Long id,
+                              boolean deleted,
+                              Date createdAt,
+                              Date updatedAt,
+                              Long version,
+                              long revision,
+                              Long carId,
+                              String carBrand,
+                              String carModel,
+                              String carLicensePlate,
+                              Long customerId,
+                              String customerName,
+                              Long employeeId,
+                              String employeeName,
+                              LocalDateTime startDate,
+                              LocalDateTime endDate,
+                              OrderStatus status,
+                              OrderStatus storedStatus,
+                              BigDecimal cost
+    ) implements Serializable {
+}
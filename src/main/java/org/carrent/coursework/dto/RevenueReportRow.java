@@ -0,0 +1,13 @@
+package org.carrent.coursework.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Revenue of one car, customer or employee over the requested days, {@code label} is its current name
+ */
+public record RevenueReportRow(Long keyId,
+                               String label,
+                               long orders,
+                               BigDecimal revenue) implements Serializable {
+}
@@ -0,0 +1,12 @@
+package org.carrent.coursework.dto;
+
+import java.io.Serializable;
+
+/**
+ * Single result of the unified search, {@code score} is the pg_trgm similarity of the best matching field
+ */
+public record SearchHit(String type,
+                        Long id,
+                        String label,
+                        double score) implements Serializable {
+}
@@ -14,6 +14,7 @@ public record ServiceOfCarDto(Long id,
                               boolean deleted,
                               Date createdAt,
                               Date updatedAt,
+                              Long version,
                               Long carId,
                               Long employeeId,
                               LocalDateTime startDate,
@@ -0,0 +1,24 @@
+package org.carrent.coursework.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.carrent.coursework.enums.ServiceOfCarStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Flat projection of {@link org.carrent.coursework.entity.ServiceOfCar} used by the streaming export
+ */
+@JsonPropertyOrder({"id", "carId", "employeeId", "startDate", "endDate", "description", "status", "cost", "createdAt", "updatedAt"})
+public record ServiceOfCarExportRow(Long id,
+                                    Long carId,
+                                    Long employeeId,
+                                    LocalDateTime startDate,
+                                    LocalDateTime endDate,
+                                    String description,
+                                    ServiceOfCarStatus status,
+                                    BigDecimal cost,
+                                    Date createdAt,
+                                    Date updatedAt) {
+}
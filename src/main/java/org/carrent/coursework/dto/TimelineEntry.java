@@ -0,0 +1,21 @@
+package org.carrent.coursework.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One order or service in a timeline; {@code type} is "order" or "service", {@code customerId} is
+ * {@code null} for services and {@code description} for orders
+ */
+public record TimelineEntry(String type,
+                            Long id,
+                            LocalDateTime startDate,
+                            LocalDateTime endDate,
+                            String status,
+                            BigDecimal cost,
+                            Long carId,
+                            Long customerId,
+                            Long employeeId,
+                            String description) implements Serializable {
+}
@@ -12,6 +12,7 @@ public record UserDto(Long id,
                       boolean deleted,
                       Date createdAt,
                       Date updatedAt,
+                      Long version,
                       String username,
                       String password,
                       Role role) implements Serializable {
@@ -0,0 +1,18 @@
+package org.carrent.coursework.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Share of the available car time between {@code from} and {@code to} (both inclusive) spent rented
+ * and in service; {@code carId} is {@code null} for the whole fleet
+ */
+public record UtilizationReport(LocalDate from,
+                                LocalDate to,
+                                Long carId,
+                                long cars,
+                                long rentedSeconds,
+                                long serviceSeconds,
+                                double rentedShare,
+                                double serviceShare) implements Serializable {
+}
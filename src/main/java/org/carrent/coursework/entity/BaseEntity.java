@@ -11,8 +11,10 @@ import java.util.Date;
 @Getter
 @Setter
 public class BaseEntity {
+    // One sequence per entity (car_seq, order_seq, ...) with the default allocation size of 50,
+    // handed out by the pooled-lo optimizer so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @Column(name = "deleted")
@@ -25,4 +27,8 @@ public class BaseEntity {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private Date updatedAt;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
@@ -5,6 +5,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.carrent.coursework.enums.EmployeePosition;
 
 
@@ -12,6 +14,8 @@ import java.util.List;
 
 @Table(name = "employees")
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employees")
 @Getter
 @Setter
 
@@ -0,0 +1,80 @@
+package org.carrent.coursework.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.carrent.coursework.enums.OrderStatus;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Row of the denormalized {@code order_view} read model. Written only by
+ * {@link org.carrent.coursework.service.OrderViewProjector}, so it is immutable for JPA.
+ */
+@Table(name = "order_view")
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor
+public class OrderView {
+
+    @Id
+    @Column(name = "order_id")
+    private Long id;
+
+    @Column(name = "deleted")
+    private boolean deleted;
+
+    @Column(name = "created_at")
+    private Date createdAt;
+
+    @Column(name = "updated_at")
+    private Date updatedAt;
+
+    @Column(name = "version")
+    private Long version;
+
+    @Column(name = "car_id")
+    private Long carId;
+
+    @Column(name = "car_brand")
+    private String carBrand;
+
+    @Column(name = "car_model")
+    private String carModel;
+
+    @Column(name = "car_license_plate")
+    private String carLicensePlate;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "customer_name", length = 767)
+    private String customerName;
+
+    @Column(name = "employee_id")
+    private Long employeeId;
+
+    @Column(name = "employee_name", length = 767)
+    private String employeeName;
+
+    @Column(name = "start_date")
+    private LocalDateTime startDate;
+
+    @Column(name = "end_date")
+    private LocalDateTime endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private OrderStatus status;
+
+    @Column(name = "cost")
+    private BigDecimal cost;
+
+    // Bumped on every projection, also when only the car, customer or employee columns change
+    @Column(name = "revision")
+    private long revision;
+}
@@ -19,11 +19,11 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class ServiceOfCar extends BaseEntity{
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "car_id")
     private Car car;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "employee_id")  // Співробітник, що виконує обслуговування
     private Employee employee;
 
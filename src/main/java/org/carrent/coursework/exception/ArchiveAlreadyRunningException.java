@@ -0,0 +1,8 @@
+package org.carrent.coursework.exception;
+
+public class ArchiveAlreadyRunningException extends RuntimeException {
+
+    public ArchiveAlreadyRunningException(String message) {
+        super(message);
+    }
+}
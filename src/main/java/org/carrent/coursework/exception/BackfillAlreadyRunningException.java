@@ -0,0 +1,8 @@
+package org.carrent.coursework.exception;
+
+public class BackfillAlreadyRunningException extends RuntimeException {
+
+    public BackfillAlreadyRunningException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package org.carrent.coursework.exception;
+
+public class ImportFormatException extends RuntimeException {
+
+    public ImportFormatException(String message) {
+        super(message);
+    }
+}
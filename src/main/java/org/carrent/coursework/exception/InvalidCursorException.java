@@ -0,0 +1,8 @@
+package org.carrent.coursework.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package org.carrent.coursework.exception;
+
+public class InvalidFilterException extends RuntimeException {
+
+    public InvalidFilterException(String message) {
+        super(message);
+    }
+}
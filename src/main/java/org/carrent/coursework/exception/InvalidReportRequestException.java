@@ -0,0 +1,8 @@
+package org.carrent.coursework.exception;
+
+public class InvalidReportRequestException extends RuntimeException {
+
+    public InvalidReportRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package org.carrent.coursework.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package org.carrent.coursework.exception;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
@@ -46,4 +47,54 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
 
         return handleExceptionInternal(ex, body, new HttpHeaders(), HttpStatus.NOT_FOUND, request);
     }
+
+    @ExceptionHandler(value = {InvalidCursorException.class, ImportFormatException.class, InvalidSearchQueryException.class,
+            InvalidReportRequestException.class, InvalidFilterException.class})
+    protected ResponseEntity<Object> handleBadRequestException(RuntimeException ex, WebRequest request) {
+        Map<String, Object> body = new HashMap<>();
+
+        String timestamp = ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        body.put("timestamp", timestamp);
+
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        body.put("error", "Bad Request");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return handleExceptionInternal(ex, body, new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+    }
+
+    // A stale version in the body, or a concurrent commit caught by the version-checked UPDATE
+    @ExceptionHandler(value = {VersionConflictException.class, ObjectOptimisticLockingFailureException.class,
+            BackfillAlreadyRunningException.class, ArchiveAlreadyRunningException.class})
+    protected ResponseEntity<Object> handleConflictException(RuntimeException ex, WebRequest request) {
+        Map<String, Object> body = new HashMap<>();
+
+        String timestamp = ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        body.put("timestamp", timestamp);
+
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Conflict");
+        body.put("message", ex instanceof ObjectOptimisticLockingFailureException
+                ? "The record was modified concurrently, reload it and retry"
+                : ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return handleExceptionInternal(ex, body, new HttpHeaders(), HttpStatus.CONFLICT, request);
+    }
+
+    @ExceptionHandler(value = PreconditionFailedException.class)
+    protected ResponseEntity<Object> handlePreconditionFailedException(RuntimeException ex, WebRequest request) {
+        Map<String, Object> body = new HashMap<>();
+
+        String timestamp = ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        body.put("timestamp", timestamp);
+
+        body.put("status", HttpStatus.PRECONDITION_FAILED.value());
+        body.put("error", "Precondition Failed");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return handleExceptionInternal(ex, body, new HttpHeaders(), HttpStatus.PRECONDITION_FAILED, request);
+    }
 }
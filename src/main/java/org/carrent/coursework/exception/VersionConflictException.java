@@ -0,0 +1,8 @@
+package org.carrent.coursework.exception;
+
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
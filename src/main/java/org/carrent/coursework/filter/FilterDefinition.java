@@ -0,0 +1,173 @@
+package org.carrent.coursework.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * The filterable fields of one entity, declared once as a constant of the service that uses it.
+ * Every field renders a JPQL condition with positional parameters; the {@link FilterEngine} joins the
+ * conditions of the fields present in a call and caches the result per shape.
+ */
+public final class FilterDefinition<E> {
+
+    /**
+     * Renders the condition of a field. {@code value} is only there to pick a variant, values are
+     * always bound through {@code parameters}.
+     */
+    @FunctionalInterface
+    public interface Condition {
+        String render(String alias, Object value, FilterParameters parameters);
+    }
+
+    enum Kind {
+        EQUAL, LOWER_BOUND, UPPER_BOUND, MATCH
+    }
+
+    // path is the attribute an EQUAL or bound field compares, null for MATCH
+    record Field(String name, Kind kind, String path, Condition condition, Function<Object, String> variant) {
+    }
+
+    private static final int MAX_FIELDS = Long.SIZE;
+
+    private final Class<E> type;
+    private final String alias;
+    private final String baseCondition;
+    private final List<Field> fields;
+    private final List<List<String>> indexes;
+
+    private FilterDefinition(Class<E> type, String alias, String baseCondition, List<Field> fields,
+                             List<List<String>> indexes) {
+        this.type = type;
+        this.alias = alias;
+        this.baseCondition = baseCondition;
+        this.fields = List.copyOf(fields);
+        this.indexes = List.copyOf(indexes);
+    }
+
+    public static <E> Builder<E> builder(Class<E> type, String alias) {
+        return new Builder<>(type, alias);
+    }
+
+    public Class<E> getType() {
+        return type;
+    }
+
+    String getAlias() {
+        return alias;
+    }
+
+    String getBaseCondition() {
+        return baseCondition;
+    }
+
+    List<Field> getFields() {
+        return fields;
+    }
+
+    List<List<String>> getIndexes() {
+        return indexes;
+    }
+
+    // Bit i is set when field i is present
+    long presentFields(Filters filters) {
+        long present = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            if (filters.has(fields.get(i).name())) {
+                present |= 1L << i;
+            }
+        }
+        return present;
+    }
+
+    // Only fields whose condition depends on the value (e.g. on an enum constant) contribute
+    List<String> variants(Filters filters) {
+        List<String> variants = List.of();
+        for (Field field : fields) {
+            if (field.variant() != null && filters.has(field.name())) {
+                if (variants.isEmpty()) {
+                    variants = new ArrayList<>();
+                }
+                variants.add(field.name() + "=" + field.variant().apply(filters.get(field.name())));
+            }
+        }
+        return variants;
+    }
+
+    public static final class Builder<E> {
+        private final Class<E> type;
+        private final String alias;
+        private final List<Field> fields = new ArrayList<>();
+        private final List<List<String>> indexes = new ArrayList<>();
+        private String baseCondition = "1 = 1";
+
+        private Builder(Class<E> type, String alias) {
+            this.type = type;
+            this.alias = alias;
+        }
+
+        // Applied to every query, e.g. the soft delete condition
+        public Builder<E> where(String condition) {
+            this.baseCondition = condition;
+            return this;
+        }
+
+        public Builder<E> equal(String name, String path) {
+            return field(name, Kind.EQUAL, path, null, (alias, value, parameters) ->
+                    alias + "." + path + " = " + parameters.value(name));
+        }
+
+        // Case-insensitive substring match, like the previous Specification filters
+        public Builder<E> contains(String name, String path) {
+            return field(name, Kind.MATCH, null, null, (alias, value, parameters) ->
+                    "lower(" + alias + "." + path + ") LIKE " + parameters.bind(filters ->
+                            "%" + filters.get(name).toString().toLowerCase(Locale.ROOT) + "%"));
+        }
+
+        public Builder<E> atLeast(String name, String path) {
+            return field(name, Kind.LOWER_BOUND, path, null, (alias, value, parameters) ->
+                    alias + "." + path + " >= " + parameters.value(name));
+        }
+
+        public Builder<E> atMost(String name, String path) {
+            return field(name, Kind.UPPER_BOUND, path, null, (alias, value, parameters) ->
+                    alias + "." + path + " <= " + parameters.value(name));
+        }
+
+        // A condition whose JPQL does not depend on the value
+        public Builder<E> condition(String name, Condition condition) {
+            return field(name, Kind.MATCH, null, null, condition);
+        }
+
+        // A condition whose JPQL differs per variant of the value; each variant is a separate shape
+        public Builder<E> condition(String name, Function<Object, String> variant, Condition condition) {
+            return field(name, Kind.MATCH, null, variant, condition);
+        }
+
+        /**
+         * Declares a B-tree index of the table by the attribute paths of its columns; it has to exist
+         * in the migrations. Once a definition declares indexes, only sorts and bounds they can serve
+         * are accepted, see {@link FilterEngine}.
+         */
+        public Builder<E> index(String... paths) {
+            indexes.add(List.of(paths));
+            return this;
+        }
+
+        public FilterDefinition<E> build() {
+            return new FilterDefinition<>(type, alias, baseCondition, fields, indexes);
+        }
+
+        private Builder<E> field(String name, Kind kind, String path, Function<Object, String> variant, Condition condition) {
+            if (fields.size() == MAX_FIELDS) {
+                throw new IllegalStateException("A filter definition supports at most " + MAX_FIELDS + " fields");
+            }
+            if (fields.stream().anyMatch(field -> field.name().equals(name))) {
+                throw new IllegalStateException("Filter field " + name + " is declared twice");
+            }
+            fields.add(new Field(name, kind, path, condition, variant));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package org.carrent.coursework.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.carrent.coursework.exception.InvalidFilterException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs {@link FilterDefinition} queries. The fields present in a call, the variants of
+ * value-dependent conditions and the sort make up the shape of the query; the JPQL of a shape is
+ * built once and cached, and every call with that shape only binds its values positionally.
+ * <p>
+ * Unlike a Specification, which builds a new criteria tree that Hibernate has to interpret on every
+ * call, a stable JPQL string is also served from Hibernate's own query plan cache, so neither this
+ * class nor Hibernate parses anything for a known shape.
+ * <p>
+ * For definitions that declare their indexes, a shape is rejected with 400 unless a single index
+ * serves the columns fixed by equality filters followed by the sort, or, for an unsorted shape, by one
+ * of its ranges. Other ranges are checked on the rows that index scan returns. Sorts have to use one
+ * direction throughout, which a B-tree can scan either way.
+ */
+@Component
+public class FilterEngine {
+    private static final Logger logger = LoggerFactory.getLogger(FilterEngine.class);
+
+    private static final String ID = "id";
+
+    private record Shape(FilterDefinition<?> definition, long presentFields, List<String> variants, Sort sort) {
+    }
+
+    private record CompiledFilter(String select, String count, List<Function<Filters, Object>> parameters) {
+    }
+
+    private final EntityManager entityManager;
+    private final MeterRegistry meterRegistry;
+    private final Cache<Shape, CompiledFilter> plans;
+
+    public FilterEngine(EntityManager entityManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${filter.plan-cache.maximum-size}") long maximumPlans) {
+        this.entityManager = entityManager;
+        this.meterRegistry = meterRegistry;
+        this.plans = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder().maximumSize(maximumPlans).recordStats().build(), "filterPlans");
+    }
+
+    public <E> Page<E> find(FilterDefinition<E> definition, Filters filters, Pageable pageable) {
+        long started = System.nanoTime();
+        checkBounds(definition, filters);
+        Sort sort = pageable.getSort();
+        Shape shape = new Shape(definition, definition.presentFields(filters), definition.variants(filters), sort);
+        boolean[] compiled = {false};
+        CompiledFilter plan = plans.get(shape, key -> {
+            compiled[0] = true;
+            return compile(definition, filters, sort);
+        });
+
+        TypedQuery<E> query = entityManager.createQuery(plan.select(), definition.getType());
+        bind(query, plan, filters);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<E> content = query.getResultList();
+        // The count is skipped when the slice itself tells the total, as Spring Data does
+        Page<E> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            TypedQuery<Long> count = entityManager.createQuery(plan.count(), Long.class);
+            bind(count, plan, filters);
+            return count.getSingleResult();
+        });
+
+        Timer.builder("filter.query")
+                .description("Time to run a filter query, including its count")
+                .tag("entity", definition.getType().getSimpleName())
+                .tag("plan", compiled[0] ? "compiled" : "cached")
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return page;
+    }
+
+    private <E> CompiledFilter compile(FilterDefinition<E> definition, Filters filters, Sort sort) {
+        checkIndexed(definition, filters, sort);
+        String alias = definition.getAlias();
+        String entityName = entityManager.getMetamodel().entity(definition.getType()).getName();
+        FilterParameters parameters = new FilterParameters();
+
+        StringBuilder where = new StringBuilder(definition.getBaseCondition());
+        for (FilterDefinition.Field field : definition.getFields()) {
+            if (filters.has(field.name())) {
+                where.append(" AND (")
+                        .append(field.condition().render(alias, filters.get(field.name()), parameters))
+                        .append(')');
+            }
+        }
+        String from = " FROM " + entityName + " " + alias + " WHERE " + where;
+        String select = "SELECT " + alias + from + orderBy(definition, sort);
+        String count = "SELECT count(" + alias + ")" + from;
+        logger.debug("Compiled filter shape of {}: {}", entityName, select);
+        return new CompiledFilter(select, count, parameters.extractors());
+    }
+
+    // Sort properties are checked against the metamodel before they reach the JPQL; id breaks ties
+    private String orderBy(FilterDefinition<?> definition, Sort sort) {
+        StringBuilder orderBy = new StringBuilder();
+        boolean sortedById = false;
+        boolean ascending = true;
+        for (Sort.Order order : sort) {
+            checkProperty(definition.getType(), order.getProperty());
+            orderBy.append(orderBy.isEmpty() ? " ORDER BY " : ", ")
+                    .append(definition.getAlias()).append('.').append(order.getProperty())
+                    .append(order.isAscending() ? " ASC" : " DESC");
+            sortedById |= ID.equals(order.getProperty());
+            ascending = order.isAscending();
+        }
+        // The tie-breaker follows the last direction so an index ending in id is scanned in one pass
+        if (!sortedById) {
+            orderBy.append(orderBy.isEmpty() ? " ORDER BY " : ", ").append(definition.getAlias()).append('.').append(ID)
+                    .append(ascending ? " ASC" : " DESC");
+        }
+        return orderBy.toString();
+    }
+
+    private void checkProperty(Class<?> type, String property) {
+        ManagedType<?> managedType = entityManager.getMetamodel().managedType(type);
+        String[] segments = property.split("\\.", -1);
+        for (int i = 0; i < segments.length; i++) {
+            Attribute<?, ?> attribute;
+            try {
+                attribute = managedType.getAttribute(segments[i]);
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidFilterException("Unknown sort property: " + property);
+            }
+            if (i < segments.length - 1) {
+                if (!(attribute instanceof SingularAttribute<?, ?> singular)
+                        || !(singular.getType() instanceof ManagedType<?> next)) {
+                    throw new InvalidFilterException("Unknown sort property: " + property);
+                }
+                managedType = next;
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void checkBounds(FilterDefinition<?> definition, Filters filters) {
+        for (FilterDefinition.Field lower : definition.getFields()) {
+            if (lower.kind() != FilterDefinition.Kind.LOWER_BOUND || !filters.has(lower.name())) {
+                continue;
+            }
+            for (FilterDefinition.Field upper : definition.getFields()) {
+                if (upper.kind() == FilterDefinition.Kind.UPPER_BOUND && upper.path().equals(lower.path())
+                        && filters.has(upper.name())
+                        && filters.get(lower.name()) instanceof Comparable min
+                        && min.compareTo(filters.get(upper.name())) > 0) {
+                    throw new InvalidFilterException(lower.name() + " must not be greater than " + upper.name());
+                }
+            }
+        }
+    }
+
+    static void checkIndexed(FilterDefinition<?> definition, Filters filters, Sort sort) {
+        if (definition.getIndexes().isEmpty()) {
+            return;
+        }
+        String entity = definition.getType().getSimpleName();
+        Set<String> fixed = new HashSet<>();
+        for (FilterDefinition.Field field : definition.getFields()) {
+            if (field.kind() == FilterDefinition.Kind.EQUAL && filters.has(field.name())) {
+                fixed.add(field.path());
+            }
+        }
+        Set<String> ranged = new LinkedHashSet<>();
+        for (FilterDefinition.Field field : definition.getFields()) {
+            boolean bound = field.kind() == FilterDefinition.Kind.LOWER_BOUND || field.kind() == FilterDefinition.Kind.UPPER_BOUND;
+            if (bound && filters.has(field.name()) && !fixed.contains(field.path())) {
+                ranged.add(field.path());
+            }
+        }
+
+        List<String> sorted = new ArrayList<>();
+        Sort.Direction direction = null;
+        for (Sort.Order order : sort) {
+            if (direction != null && order.getDirection() != direction) {
+                throw new InvalidFilterException("Sorting " + entity + " in mixed directions is not backed by an index");
+            }
+            direction = order.getDirection();
+            if (!fixed.contains(order.getProperty())) {
+                sorted.add(order.getProperty());
+            }
+        }
+        // A trailing id is the tie-breaker every index ends with implicitly
+        if (!sorted.isEmpty() && ID.equals(sorted.get(sorted.size() - 1))) {
+            sorted.remove(sorted.size() - 1);
+        }
+        // The fixed columns and the sort have to fit one index, which is scanned in sort order; ranges
+        // on other columns than the one the sort starts with filter the rows that scan returns
+        if (!sorted.isEmpty()) {
+            if (!servedByIndex(definition, fixed, sorted)) {
+                throw new InvalidFilterException("Sorting " + entity + " by " + sorted
+                        + " is not backed by an index, indexed prefixes are " + definition.getIndexes());
+            }
+            return;
+        }
+        // Unsorted, one of the ranges has to bound the scan of an index after the fixed columns
+        if (!ranged.isEmpty() && ranged.stream().noneMatch(range -> servedByIndex(definition, fixed, List.of(range)))) {
+            throw new InvalidFilterException("Filtering " + entity + " by ranges of " + ranged
+                    + " is not backed by an index, indexed prefixes are " + definition.getIndexes());
+        }
+    }
+
+    // Whether an index starts with the columns, once its leading columns fixed by equality filters are skipped
+    private static boolean servedByIndex(FilterDefinition<?> definition, Set<String> fixed, List<String> columns) {
+        for (List<String> index : definition.getIndexes()) {
+            int start = 0;
+            while (start < index.size() && fixed.contains(index.get(start))) {
+                start++;
+            }
+            if (index.size() - start >= columns.size() && index.subList(start, start + columns.size()).equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void bind(Query query, CompiledFilter plan, Filters filters) {
+        for (int i = 0; i < plan.parameters().size(); i++) {
+            query.setParameter(i + 1, plan.parameters().get(i).apply(filters));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.carrent.coursework.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Collects the positional parameters of a query while it is compiled. Every call returns the
+ * placeholder ({@code ?1}, {@code ?2}, ...) to put into the JPQL and remembers how to read the value
+ * from the {@link Filters} of each later execution.
+ */
+public final class FilterParameters {
+    private final List<Function<Filters, Object>> extractors = new ArrayList<>();
+
+    FilterParameters() {
+    }
+
+    public String value(String name) {
+        return bind(filters -> filters.get(name));
+    }
+
+    public String constant(Object value) {
+        return bind(filters -> value);
+    }
+
+    public String bind(Function<Filters, Object> extractor) {
+        extractors.add(extractor);
+        return "?" + extractors.size();
+    }
+
+    List<Function<Filters, Object>> extractors() {
+        return List.copyOf(extractors);
+    }
+}
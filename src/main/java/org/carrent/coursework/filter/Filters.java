@@ -0,0 +1,40 @@
+package org.carrent.coursework.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Values of one filter call by name. Null values and empty strings are dropped, so a field counts as
+ * present exactly when it takes part in the query. Names that are not fields of the definition, such
+ * as the {@code now} of a time-dependent condition, are only read by the conditions that use them.
+ */
+public final class Filters {
+    private final Map<String, Object> values = new HashMap<>();
+
+    private Filters() {
+    }
+
+    public static Filters create() {
+        return new Filters();
+    }
+
+    public Filters with(String name, Object value) {
+        if (value != null && !(value instanceof String text && text.isEmpty())) {
+            values.put(name, value);
+        }
+        return this;
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    public Object get(String name) {
+        return values.get(name);
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
@@ -12,6 +12,7 @@ public interface CarMapper {
     CarDto toDto(Car car);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
     Car partialUpdate(CarDto carDto, @MappingTarget Car car);
 
     Car toEntity(CarCreationDto carCreationDto);
@@ -14,6 +14,7 @@ public interface CustomerMapper {
     CustomerDto toDto(Customer customer);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
     Customer partialUpdate(CustomerDto customerDto, @MappingTarget Customer customer);
 
     Customer toEntity(CustomerCreationDto customerCreationDto);
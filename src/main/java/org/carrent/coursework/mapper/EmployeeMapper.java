@@ -12,6 +12,7 @@ public interface EmployeeMapper {
     EmployeeDto toDto(Employee employee);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
     Employee partialUpdate(EmployeeDto employeeDto, @MappingTarget Employee employee);
 
     Employee toEntity(EmployeeCreationDto employeeCreationDto);
@@ -17,6 +17,7 @@ public interface OrderMapper {
 
     @InheritConfiguration(name = "toEntity")
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
     Order partialUpdate(OrderDto orderDto, @MappingTarget Order order);
 
     Order toEntity(OrderCreationDto orderCreationDto);
@@ -16,6 +16,7 @@ public interface ServiceOfCarMapper {
 
     @InheritConfiguration(name = "toEntity")
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
     ServiceOfCar partialUpdate(ServiceOfCarDto serviceDto, @MappingTarget ServiceOfCar service);
 
     ServiceOfCar toEntity(ServiceOfCarCreationDto serviceCreationDto);
@@ -16,6 +16,7 @@ public interface UserMapper {
     UserCreationDto toCrDto(User user);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
     User partialUpdate(UserDto userDto, @MappingTarget User user);
 
     User toEntity(UserCreationDto userCreationDto);
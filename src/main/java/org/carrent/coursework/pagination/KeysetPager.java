@@ -0,0 +1,226 @@
+package org.carrent.coursework.pagination;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.carrent.coursework.dto.CursorPage;
+import org.carrent.coursework.exception.InvalidCursorException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Cursor-based pagination over any {@link JpaSpecificationExecutor}. Rows are ordered by the
+ * requested property plus {@code id} as a tie-breaker and each slice is fetched with
+ * {@code WHERE key > ? OR (key = ? AND id > ?)}, so deep slices cost the same as the first one and
+ * no {@code COUNT(*)} is issued.
+ * <p>
+ * Sort keys may be null. The ORDER BY leaves the null placement to PostgreSQL, which sorts nulls
+ * last ascending and first descending, and the seek predicate follows the same rule so rows with a
+ * null key are neither skipped nor repeated.
+ * <p>
+ * Only the properties a caller lists as sortable are accepted, both in the first request and in a
+ * cursor: the basic attributes that lead an index of the table, so every slice is an index seek and
+ * no other column, such as a password hash or an association, ends up in a cursor.
+ * <p>
+ * The cursor is an opaque Base64 token holding the sort property, the direction and the key
+ * values of the last row; the value types are restored from the JPA metamodel. Timestamps are
+ * written as ISO date-times with their full fractional seconds.
+ */
+@Component
+public class KeysetPager {
+    private static final String ID = "id";
+    private static final String SEPARATOR = "\n";
+    private static final String NULL_VALUE = "\0";
+
+    private final EntityManager entityManager;
+    private final int maxPageSize;
+
+    public KeysetPager(EntityManager entityManager,
+                       @Value("${pagination.max-page-size}") int maxPageSize) {
+        this.entityManager = entityManager;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public <E, D> CursorPage<D> scroll(JpaSpecificationExecutor<E> repository,
+                                       Class<E> entityType,
+                                       Set<String> sortableProperties,
+                                       Specification<E> specification,
+                                       String cursor,
+                                       int size,
+                                       String sortBy,
+                                       String order,
+                                       Function<E, D> mapper) {
+        if (size < 1) {
+            throw new InvalidCursorException("Page size must be positive");
+        }
+        if (size > maxPageSize) {
+            throw new InvalidCursorException("Page size must not exceed " + maxPageSize);
+        }
+        Position position = cursor == null || cursor.isBlank()
+                ? new Position(sortBy, direction(order), null, null)
+                : decode(cursor, entityType, sortableProperties);
+        checkSortable(entityType, sortableProperties, position.sortBy());
+
+        Sort sort = ID.equals(position.sortBy())
+                ? Sort.by(position.direction(), ID)
+                : Sort.by(position.direction(), position.sortBy(), ID);
+        // One extra row tells whether there is a next slice
+        List<E> rows = repository.<E, List<E>>findBy(Specification.where(specification).and(after(position)),
+                query -> query.sortBy(sort).limit(size + 1).all());
+
+        boolean hasNext = rows.size() > size;
+        List<E> slice = hasNext ? rows.subList(0, size) : rows;
+        List<D> content = slice.stream().map(mapper).toList();
+        String nextCursor = hasNext ? encode(position, slice.get(slice.size() - 1)) : null;
+        return new CursorPage<>(content, content.size(), nextCursor);
+    }
+
+    // lastId is null on the first slice
+    private record Position(String sortBy, Sort.Direction direction, Object lastKey, Long lastId) {
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E> Specification<E> after(Position position) {
+        return (root, query, builder) -> {
+            if (position.lastId() == null) {
+                return null;
+            }
+            boolean ascending = position.direction().isAscending();
+            Path<Long> id = root.get(ID);
+            Predicate nextId = ascending ? builder.greaterThan(id, position.lastId()) : builder.lessThan(id, position.lastId());
+            if (ID.equals(position.sortBy())) {
+                return nextId;
+            }
+            Path<Comparable> key = root.get(position.sortBy());
+            Comparable lastKey = (Comparable) position.lastKey();
+            if (lastKey == null) {
+                // Ascending, the nulls come last and only nulls remain; descending, they come first
+                Predicate nextNull = builder.and(builder.isNull(key), nextId);
+                return ascending ? nextNull : builder.or(nextNull, builder.isNotNull(key));
+            }
+            Predicate beyond = ascending ? builder.greaterThan(key, lastKey) : builder.lessThan(key, lastKey);
+            Predicate tie = builder.and(builder.equal(key, lastKey), nextId);
+            return ascending ? builder.or(beyond, tie, builder.isNull(key)) : builder.or(beyond, tie);
+        };
+    }
+
+    private static Sort.Direction direction(String order) {
+        return "desc".equalsIgnoreCase(order) ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    private static String encode(Position position, Object last) {
+        Object lastId = PropertyAccessorFactory.forBeanPropertyAccess(last).getPropertyValue(ID);
+        Object lastKey = PropertyAccessorFactory.forBeanPropertyAccess(last).getPropertyValue(position.sortBy());
+        String raw = String.join(SEPARATOR,
+                position.sortBy(),
+                position.direction().name(),
+                format(lastKey),
+                format(lastId));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Position decode(String cursor, Class<?> entityType, Set<String> sortableProperties) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        if (parts.length != 4) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        String sortBy = parts[0];
+        checkSortable(entityType, sortableProperties, sortBy);
+        Sort.Direction direction;
+        try {
+            direction = Sort.Direction.valueOf(parts[1]);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+
+        Object lastId = parse(Long.class, parts[3]);
+        if (lastId == null) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        return new Position(sortBy, direction, parse(attributeType(entityType, sortBy), parts[2]), (Long) lastId);
+    }
+
+    private static void checkSortable(Class<?> entityType, Set<String> sortableProperties, String sortBy) {
+        if (sortBy == null || !ID.equals(sortBy) && !sortableProperties.contains(sortBy)) {
+            throw new InvalidCursorException("Scrolling " + entityType.getSimpleName() + " by " + sortBy
+                    + " is not backed by an index, sortable properties are " + new TreeSet<>(sortableProperties));
+        }
+    }
+
+    private Class<?> attributeType(Class<?> entityType, String attribute) {
+        try {
+            return entityManager.getMetamodel().entity(entityType).getAttribute(attribute).getJavaType();
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Unknown sort property: " + attribute);
+        }
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof Date date) {
+            return new Timestamp(date.getTime()).toLocalDateTime().toString();
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        return value.toString();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object parse(Class<?> type, String raw) {
+        if (NULL_VALUE.equals(raw)) {
+            return null;
+        }
+        try {
+            if (type == Long.class || type == long.class) {
+                return Long.valueOf(raw);
+            }
+            if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(raw);
+            }
+            if (type == Boolean.class || type == boolean.class) {
+                return Boolean.valueOf(raw);
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(raw);
+            }
+            if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(raw);
+            }
+            if (Date.class.isAssignableFrom(type)) {
+                return Timestamp.valueOf(LocalDateTime.parse(raw));
+            }
+            if (type.isEnum()) {
+                return Enum.valueOf((Class) type, raw);
+            }
+            return raw;
+        } catch (RuntimeException ex) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.carrent.coursework.pagination;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Lazy k-way merge of iterators that are each already sorted by the same comparator. Only the
+ * current head of every source is held, so a source backed by a database cursor is read one row
+ * ahead of what has been consumed.
+ */
+public final class MergingIterator<T> implements Iterator<T> {
+
+    private record Head<T>(T value, Iterator<T> source) {
+    }
+
+    private final PriorityQueue<Head<T>> heads;
+
+    public MergingIterator(List<? extends Iterator<T>> sources, Comparator<? super T> comparator) {
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (left, right) -> comparator.compare(left.value(), right.value()));
+        for (Iterator<T> source : sources) {
+            advance(source);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        Head<T> head = heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        advance(head.source());
+        return head.value();
+    }
+
+    private void advance(Iterator<T> source) {
+        if (source.hasNext()) {
+            heads.add(new Head<>(source.next(), source));
+        }
+    }
+}
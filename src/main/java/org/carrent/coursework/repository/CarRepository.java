@@ -1,12 +1,49 @@
 package org.carrent.coursework.repository;
 
+import jakarta.persistence.QueryHint;
+import org.carrent.coursework.dto.CarDto;
 import org.carrent.coursework.entity.Car;
+import org.carrent.coursework.enums.CarStatus;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByLicensePlateAndDeletedIsFalse(String licensePlate);
 
     boolean existsById(Long carId);
+
+    List<Car> findAllByDeletedFalse();
+
+    List<Car> findAllByDeletedFalseAndStatusIn(List<CarStatus> statuses);
+
+    @Query("SELECT c.licensePlate FROM Car c WHERE c.deleted = false")
+    List<String> findLicensePlatesOfLiveCars();
+
+    @Query(value = "SELECT new org.carrent.coursework.dto.CarDto(" +
+            "c.id, c.deleted, c.createdAt, c.updatedAt, c.version, c.brand, c.model, c.year, c.licensePlate, c.status, c.mileage, c.price) " +
+            "FROM Car c",
+            countQuery = "SELECT COUNT(c) FROM Car c")
+    Page<CarDto> findAllDtos(Pageable pageable);
+
+    @Query(value = "SELECT new org.carrent.coursework.dto.CarDto(" +
+            "c.id, c.deleted, c.createdAt, c.updatedAt, c.version, c.brand, c.model, c.year, c.licensePlate, c.status, c.mileage, c.price) " +
+            "FROM Car c WHERE c.deleted = false",
+            countQuery = "SELECT COUNT(c) FROM Car c WHERE c.deleted = false")
+    Page<CarDto> findAvailableDtos(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new org.carrent.coursework.dto.CarDto(" +
+            "c.id, c.deleted, c.createdAt, c.updatedAt, c.version, c.brand, c.model, c.year, c.licensePlate, c.status, c.mileage, c.price) " +
+            "FROM Car c WHERE c.deleted = false")
+    Stream<CarDto> streamAvailableDtos();
 }
@@ -1,11 +1,42 @@
 package org.carrent.coursework.repository;
 
+import jakarta.persistence.QueryHint;
+import org.carrent.coursework.dto.CustomerDto;
 import org.carrent.coursework.entity.Customer;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByLicenseNumber(String licensePlate);
 
-}
\ No newline at end of file
+    @Query("SELECT c.licenseNumber FROM Customer c")
+    List<String> findAllLicenseNumbers();
+
+    @Query(value = "SELECT new org.carrent.coursework.dto.CustomerDto(" +
+            "c.id, c.deleted, c.createdAt, c.updatedAt, c.version, c.lastName, c.firstName, c.middleName, c.dateOfBirth, c.email, c.phoneNumber, c.address, c.licenseNumber) " +
+            "FROM Customer c",
+            countQuery = "SELECT COUNT(c) FROM Customer c")
+    Page<CustomerDto> findAllDtos(Pageable pageable);
+
+    @Query(value = "SELECT new org.carrent.coursework.dto.CustomerDto(" +
+            "c.id, c.deleted, c.createdAt, c.updatedAt, c.version, c.lastName, c.firstName, c.middleName, c.dateOfBirth, c.email, c.phoneNumber, c.address, c.licenseNumber) " +
+            "FROM Customer c WHERE c.deleted = false",
+            countQuery = "SELECT COUNT(c) FROM Customer c WHERE c.deleted = false")
+    Page<CustomerDto> findAvailableDtos(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new org.carrent.coursework.dto.CustomerDto(" +
+            "c.id, c.deleted, c.createdAt, c.updatedAt, c.version, c.lastName, c.firstName, c.middleName, c.dateOfBirth, c.email, c.phoneNumber, c.address, c.licenseNumber) " +
+            "FROM Customer c WHERE c.deleted = false")
+    Stream<CustomerDto> streamAvailableDtos();
+}
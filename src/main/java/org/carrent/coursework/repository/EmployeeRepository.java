@@ -1,11 +1,46 @@
 package org.carrent.coursework.repository;
 
+import jakarta.persistence.QueryHint;
+import org.carrent.coursework.dto.EmployeeDto;
 import org.carrent.coursework.entity.Customer;
 import org.carrent.coursework.entity.Employee;
 import org.carrent.coursework.enums.EmployeePosition;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByPositionAndEmailOrPositionAndPhoneNumber(EmployeePosition position1, String email, EmployeePosition position2, String phoneNumber);
-}
\ No newline at end of file
+
+    List<Employee> findAllByDeletedFalse();
+
+    @Query("SELECT e.position AS position, e.email AS email, e.phoneNumber AS phoneNumber FROM Employee e")
+    List<EmployeeContact> findAllContacts();
+
+    interface EmployeeContact {
+        EmployeePosition getPosition();
+
+        String getEmail();
+
+        String getPhoneNumber();
+    }
+
+    @Query(value = "SELECT new org.carrent.coursework.dto.EmployeeDto(" +
+            "e.id, e.deleted, e.createdAt, e.updatedAt, e.version, e.lastName, e.firstName, e.middleName, e.dateOfBirth, e.email, e.phoneNumber, e.address, e.position) " +
+            "FROM Employee e",
+            countQuery = "SELECT COUNT(e) FROM Employee e")
+    Page<EmployeeDto> findAllDtos(Pageable pageable);
+
+    @Query(value = "SELECT new org.carrent.coursework.dto.EmployeeDto(" +
+            "e.id, e.deleted, e.createdAt, e.updatedAt, e.version, e.lastName, e.firstName, e.middleName, e.dateOfBirth, e.email, e.phoneNumber, e.address, e.position) " +
+            "FROM Employee e WHERE e.deleted = false",
+            countQuery = "SELECT COUNT(e) FROM Employee e WHERE e.deleted = false")
+    Page<EmployeeDto> findAvailableDtos(Pageable pageable);
+}
@@ -1,16 +1,22 @@
 package org.carrent.coursework.repository;
 
+import jakarta.persistence.QueryHint;
+import org.carrent.coursework.dto.OrderExportRow;
+import org.carrent.coursework.dto.OrderDto;
 import org.carrent.coursework.entity.Employee;
 import org.carrent.coursework.entity.Order;
 import org.carrent.coursework.enums.OrderStatus;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
@@ -18,6 +24,15 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
     boolean existsByCar_IdAndStartDateAndEndDate(Long carId, LocalDateTime startDate, LocalDateTime endDate);
     Optional<Order> findFirstByCar_IdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(Long carId, LocalDateTime startDate, LocalDateTime endDate);
 
+    // Bulk form of the active-order lookup above, for the status sweep
+    @Query("SELECT DISTINCT o.car.id FROM Order o " +
+            "WHERE o.car.id IN :carIds " +
+            "AND o.startDate <= :at " +
+            "AND o.endDate >= :at")
+    List<Long> findCarIdsWithOrderActiveAt(
+            @Param("carIds") List<Long> carIds,
+            @Param("at") LocalDateTime at);
+
     List<Order> findByCar_IdAndStartDateGreaterThanOrderByStartDateAsc(Long carId, LocalDateTime today);
 
 //    Optional<Order> findFirstByCar_IdAndEndDateGreaterThanOrStartDateLessThanAndStatusIsNotLike(Long carId, LocalDateTime startDate, LocalDateTime endDate, OrderStatus orderStatus);
@@ -39,6 +54,38 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
             @Param("endDate") LocalDateTime endDate,
             @Param("statuses") List<OrderStatus> statuses);
 
-
     Optional<Order> findFirstByCar_IdAndStartDateEquals(Long carId, LocalDateTime date);
+
+    @Query("SELECT o.id FROM Order o " +
+            "WHERE o.deleted = false " +
+            "AND o.startDate <= :to " +
+            "AND o.endDate >= :from")
+    List<Long> findIdsOfOrdersOverlapping(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    List<Order> findAllByDeletedFalse();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new org.carrent.coursework.dto.OrderExportRow(" +
+            "o.id, o.car.id, o.customer.id, o.employee.id, o.startDate, o.endDate, o.status, o.cost, o.createdAt, o.updatedAt) " +
+            "FROM Order o " +
+            "WHERE o.deleted = false " +
+            "AND (:from IS NULL OR o.endDate >= :from) " +
+            "AND (:to IS NULL OR o.startDate <= :to) " +
+            "AND (:status IS NULL OR o.status = :status) " +
+            "ORDER BY o.id")
+    Stream<OrderExportRow> streamForExport(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("status") OrderStatus status);
+
+    @Query("SELECT new org.carrent.coursework.dto.OrderDto(" +
+            "o.id, o.deleted, o.createdAt, o.updatedAt, o.version, o.car.id, o.customer.id, o.employee.id, o.startDate, o.endDate, o.status, o.cost) " +
+            "FROM Order o WHERE o.id = :id")
+    Optional<OrderDto> findDtoById(@Param("id") Long id);
 }
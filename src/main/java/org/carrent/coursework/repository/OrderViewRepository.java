@@ -0,0 +1,8 @@
+package org.carrent.coursework.repository;
+
+import org.carrent.coursework.entity.OrderView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+public interface OrderViewRepository extends JpaRepository<OrderView, Long>, JpaSpecificationExecutor<OrderView> {
+}
@@ -0,0 +1,58 @@
+package org.carrent.coursework.repository;
+
+import org.carrent.coursework.entity.OrderView;
+import org.carrent.coursework.enums.OrderStatus;
+import org.carrent.coursework.filter.FilterParameters;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The effective status of an order, both as a predicate for {@code order_view} and evaluated on a row.
+ * A canceled or completed order keeps its status; otherwise the dates decide, so the answer does not
+ * depend on when the status sweep last ran. The two methods must stay in step.
+ */
+public final class OrderViewSpecifications {
+    private static final List<OrderStatus> FINAL_STATUSES = List.of(OrderStatus.CANCELED, OrderStatus.COMPLETED);
+
+    // Name of the filter value holding the time the statuses are evaluated at
+    public static final String NOW = "now";
+
+    private OrderViewSpecifications() {
+    }
+
+    // Matches the "WHERE NOT deleted" predicate of the order_view indexes
+    public static Specification<OrderView> notDeleted() {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.isFalse(root.get("deleted"));
+    }
+
+    // JPQL for the filter engine, written as ranges on the dates so the filter can use the order_view indexes
+    public static String hasEffectiveStatus(String alias, OrderStatus status, FilterParameters parameters) {
+        String stored = alias + ".status";
+        String startDate = alias + ".startDate";
+        String endDate = alias + ".endDate";
+        return switch (status) {
+            case CANCELED -> stored + " = " + parameters.constant(OrderStatus.CANCELED);
+            case COMPLETED -> stored + " <> " + parameters.constant(OrderStatus.CANCELED)
+                    + " AND (" + stored + " = " + parameters.constant(OrderStatus.COMPLETED)
+                    + " OR " + endDate + " < " + parameters.value(NOW) + ")";
+            case RESERVED -> stored + " NOT IN " + parameters.constant(FINAL_STATUSES)
+                    + " AND " + endDate + " >= " + parameters.value(NOW)
+                    + " AND " + startDate + " > " + parameters.value(NOW);
+            case ACTIVE -> stored + " NOT IN " + parameters.constant(FINAL_STATUSES)
+                    + " AND " + endDate + " >= " + parameters.value(NOW)
+                    + " AND " + startDate + " <= " + parameters.value(NOW);
+        };
+    }
+
+    public static OrderStatus effectiveStatus(OrderView view, LocalDateTime now) {
+        if (FINAL_STATUSES.contains(view.getStatus())) {
+            return view.getStatus();
+        }
+        if (view.getEndDate().isBefore(now)) {
+            return OrderStatus.COMPLETED;
+        }
+        return view.getStartDate().isAfter(now) ? OrderStatus.RESERVED : OrderStatus.ACTIVE;
+    }
+}
@@ -1,20 +1,28 @@
 package org.carrent.coursework.repository;
 
+import jakarta.persistence.QueryHint;
+import org.carrent.coursework.dto.ServiceOfCarExportRow;
+import org.carrent.coursework.dto.ServiceOfCarDto;
 import org.carrent.coursework.entity.Customer;
 import org.carrent.coursework.entity.Order;
 import org.carrent.coursework.entity.ServiceOfCar;
 import org.carrent.coursework.enums.EmployeePosition;
 import org.carrent.coursework.enums.OrderStatus;
 import org.carrent.coursework.enums.ServiceOfCarStatus;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ServiceOfCarRepository extends JpaRepository<ServiceOfCar, Long>, JpaSpecificationExecutor<ServiceOfCar> {
 
@@ -23,6 +31,14 @@ public interface ServiceOfCarRepository extends JpaRepository<ServiceOfCar, Long
     List<Order> findByCar_IdAndStartDateGreaterThan(Long carId, LocalDateTime today);
     Optional <ServiceOfCar> findFirstByCar_IdAndEndDateGreaterThanEqual(Long carId, LocalDateTime today);
 
+    // Bulk form of the lookup above, for the status sweep
+    @Query("SELECT DISTINCT s.car.id FROM ServiceOfCar s " +
+            "WHERE s.car.id IN :carIds " +
+            "AND s.endDate >= :at")
+    List<Long> findCarIdsWithServiceEndingAtOrAfter(
+            @Param("carIds") List<Long> carIds,
+            @Param("at") LocalDateTime at);
+
 //    Optional<ServiceOfCar> findFirstByCar_IdAndEndDateGreaterThanOrStartDateLessThan(Long carId, LocalDateTime endDate, LocalDateTime startDate);
 
     @Query("SELECT s FROM ServiceOfCar s " +
@@ -39,6 +55,40 @@ public interface ServiceOfCarRepository extends JpaRepository<ServiceOfCar, Long
             @Param("endDate") LocalDateTime endDate,
             @Param("statuses") List<ServiceOfCarStatus> statuses);
 
+    List<ServiceOfCar> findAllByDeletedFalse();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new org.carrent.coursework.dto.ServiceOfCarExportRow(" +
+            "s.id, s.car.id, s.employee.id, s.startDate, s.endDate, s.description, s.status, s.cost, s.createdAt, s.updatedAt) " +
+            "FROM ServiceOfCar s " +
+            "WHERE s.deleted = false " +
+            "AND (:from IS NULL OR s.endDate >= :from) " +
+            "AND (:to IS NULL OR s.startDate <= :to) " +
+            "AND (:status IS NULL OR s.status = :status) " +
+            "ORDER BY s.id")
+    Stream<ServiceOfCarExportRow> streamForExport(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("status") ServiceOfCarStatus status);
+
+    @Query(value = "SELECT new org.carrent.coursework.dto.ServiceOfCarDto(" +
+            "s.id, s.deleted, s.createdAt, s.updatedAt, s.version, s.car.id, s.employee.id, s.startDate, s.endDate, s.description, s.cost, s.status) " +
+            "FROM ServiceOfCar s",
+            countQuery = "SELECT COUNT(s) FROM ServiceOfCar s")
+    Page<ServiceOfCarDto> findAllDtos(Pageable pageable);
 
+    @Query(value = "SELECT new org.carrent.coursework.dto.ServiceOfCarDto(" +
+            "s.id, s.deleted, s.createdAt, s.updatedAt, s.version, s.car.id, s.employee.id, s.startDate, s.endDate, s.description, s.cost, s.status) " +
+            "FROM ServiceOfCar s WHERE s.deleted = false",
+            countQuery = "SELECT COUNT(s) FROM ServiceOfCar s WHERE s.deleted = false")
+    Page<ServiceOfCarDto> findAvailableDtos(Pageable pageable);
 
-}
\ No newline at end of file
+    @Query("SELECT new org.carrent.coursework.dto.ServiceOfCarDto(" +
+            "s.id, s.deleted, s.createdAt, s.updatedAt, s.version, s.car.id, s.employee.id, s.startDate, s.endDate, s.description, s.cost, s.status) " +
+            "FROM ServiceOfCar s WHERE s.id = :id")
+    Optional<ServiceOfCarDto> findDtoById(@Param("id") Long id);
+}
@@ -0,0 +1,15 @@
+package org.carrent.coursework.repository;
+
+import org.carrent.coursework.entity.BaseEntity;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class SoftDeleteSpecifications {
+
+    private SoftDeleteSpecifications() {
+    }
+
+    // Matches the "WHERE deleted = false" predicate of the partial indexes in the migrations
+    public static <T extends BaseEntity> Specification<T> notDeleted() {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.isFalse(root.get("deleted"));
+    }
+}
@@ -1,6 +1,9 @@
 package org.carrent.coursework.repository;
 
+import org.carrent.coursework.dto.UserDto;
 import org.carrent.coursework.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -13,4 +16,16 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     boolean existsByUsername(String username);
 
     Optional<User> findByUsername(String username);
+
+    @Query(value = "SELECT new org.carrent.coursework.dto.UserDto(" +
+            "u.id, u.deleted, u.createdAt, u.updatedAt, u.version, u.username, u.password, u.role) " +
+            "FROM User u",
+            countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserDto> findAllDtos(Pageable pageable);
+
+    @Query(value = "SELECT new org.carrent.coursework.dto.UserDto(" +
+            "u.id, u.deleted, u.createdAt, u.updatedAt, u.version, u.username, u.password, u.role) " +
+            "FROM User u WHERE u.deleted = false",
+            countQuery = "SELECT COUNT(u) FROM User u WHERE u.deleted = false")
+    Page<UserDto> findAvailableDtos(Pageable pageable);
 }
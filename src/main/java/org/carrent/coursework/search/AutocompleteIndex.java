@@ -0,0 +1,385 @@
+package org.carrent.coursework.search;
+
+import org.carrent.coursework.dto.AutocompleteHit;
+import org.carrent.coursework.dto.CarDto;
+import org.carrent.coursework.dto.CustomerDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process n-gram inverted index behind the autocomplete endpoint. Every field is indexed by its
+ * character trigrams plus one- and two-character word prefixes; postings are sorted {@code int[]}
+ * arrays of document numbers, so a lookup is an intersection of a few primitive arrays followed by
+ * a check of the candidates, without touching the database.
+ * <p>
+ * Changes are applied after the surrounding transaction commits. Updates and deletes only
+ * tombstone the old document; the postings are compacted once tombstones outnumber live documents.
+ * While {@link AutocompleteIndexLoader} fills the index, the documents changed by commits are
+ * remembered and the loader's copies of them are dropped, since its snapshot may predate the change.
+ */
+@Component
+public class AutocompleteIndex {
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteIndex.class);
+
+    public static final String CUSTOMERS = "customers";
+    public static final String CARS = "cars";
+
+    private static final char WORD_START = '\u0001';
+    private static final int MIN_COMPACTION_TOMBSTONES = 1024;
+
+    private record Document(String type, long id, String label, String[] fields) {}
+
+    // Carries the tie-breakers so ranking does not go back to the documents
+    private record Candidate(int doc, int score, String matchedField, int labelLength, long id) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, Postings> postings = new HashMap<>();
+    private List<Document> documents = new ArrayList<>();
+    private BitSet live = new BitSet();
+    private final Map<String, Map<Long, Integer>> documentsById = new HashMap<>();
+    private int tombstones;
+    // type:id of the documents changed by commits since the running load began; null when no load runs
+    private Set<String> changedDuringLoad;
+
+    public void indexCustomer(CustomerDto customer) {
+        afterCommit(() -> putCustomer(customer, false));
+    }
+
+    public void indexCar(CarDto car) {
+        afterCommit(() -> putCar(car, false));
+    }
+
+    public void remove(String type, Long id) {
+        afterCommit(() -> removeNow(type, id, false));
+    }
+
+    void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void endLoad() {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Applies immediately unless a commit changed the row after the load began
+    void loadCustomer(CustomerDto customer) {
+        putCustomer(customer, true);
+    }
+
+    void loadCar(CarDto car) {
+        putCar(car, true);
+    }
+
+    private void putCustomer(CustomerDto customer, boolean loaded) {
+        if (customer.deleted()) {
+            removeNow(CUSTOMERS, customer.id(), loaded);
+            return;
+        }
+        String name = join(customer.lastName(), customer.firstName(), customer.middleName());
+        put(new Document(CUSTOMERS, customer.id(), name, normalizeAll(name, customer.phoneNumber(), customer.email())), loaded);
+    }
+
+    private void putCar(CarDto car, boolean loaded) {
+        if (car.deleted()) {
+            removeNow(CARS, car.id(), loaded);
+            return;
+        }
+        String label = join(car.brand(), car.model(), car.licensePlate());
+        put(new Document(CARS, car.id(), label, normalizeAll(car.licensePlate(), join(car.brand(), car.model()))), loaded);
+    }
+
+    // Called with the write lock held; false when a loaded row is older than a change already applied
+    private boolean track(String type, long id, boolean loaded) {
+        if (changedDuringLoad == null) {
+            return true;
+        }
+        String key = type + ":" + id;
+        if (loaded) {
+            return !changedDuringLoad.contains(key);
+        }
+        changedDuringLoad.add(key);
+        return true;
+    }
+
+    private void removeNow(String type, Long id, boolean loaded) {
+        lock.writeLock().lock();
+        try {
+            if (!track(type, id, loaded)) {
+                return;
+            }
+            Integer doc = documentsById.computeIfAbsent(type, key -> new HashMap<>()).remove(id);
+            if (doc != null) {
+                kill(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings = new HashMap<>();
+            documents = new ArrayList<>();
+            live = new BitSet();
+            documentsById.clear();
+            tombstones = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size() - tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<AutocompleteHit> search(String query, Set<String> types, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        long[] grams = queryGrams(normalized);
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return List.of();
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt((Postings list) -> list.size));
+
+            Comparator<Candidate> worstFirst = Comparator.comparingInt(Candidate::score)
+                    .thenComparingInt(candidate -> -candidate.labelLength())
+                    .thenComparingLong(candidate -> -candidate.id());
+            String wordQuery = " " + normalized;
+            PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1, worstFirst);
+
+            Postings smallest = lists[0];
+            for (int i = 0; i < smallest.size; i++) {
+                int doc = smallest.docs[i];
+                if (!live.get(doc) || !containsInAll(lists, doc)) {
+                    continue;
+                }
+                Document document = documents.get(doc);
+                if (types != null && !types.isEmpty() && !types.contains(document.type())) {
+                    continue;
+                }
+                Candidate candidate = score(doc, document, normalized, wordQuery);
+                if (candidate == null || top.size() == limit && worstFirst.compare(candidate, top.peek()) <= 0) {
+                    continue;
+                }
+                top.offer(candidate);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<AutocompleteHit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Candidate candidate = top.poll();
+                Document document = documents.get(candidate.doc());
+                hits.add(new AutocompleteHit(document.type(), document.id(), document.label(), candidate.matchedField()));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Document document, boolean loaded) {
+        lock.writeLock().lock();
+        try {
+            if (!track(document.type(), document.id(), loaded)) {
+                return;
+            }
+            Integer previous = documentsById.computeIfAbsent(document.type(), key -> new HashMap<>()).remove(document.id());
+            if (previous != null) {
+                kill(previous);
+            }
+            // kill() may have compacted and renumbered everything, so look the map up again
+            documentsById.computeIfAbsent(document.type(), key -> new HashMap<>()).put(document.id(), append(document));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int append(Document document) {
+        int doc = documents.size();
+        documents.add(document);
+        live.set(doc);
+        for (String field : document.fields()) {
+            for (long gram : fieldGrams(field)) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(doc);
+            }
+        }
+        return doc;
+    }
+
+    private void kill(int doc) {
+        live.clear(doc);
+        tombstones++;
+        if (tombstones >= MIN_COMPACTION_TOMBSTONES && tombstones > documents.size() - tombstones) {
+            compact();
+        }
+    }
+
+    // Rebuilds the postings from the live documents only; called with the write lock held
+    private void compact() {
+        List<Document> survivors = new ArrayList<>(documents.size() - tombstones);
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            survivors.add(documents.get(doc));
+        }
+        logger.info("Compacting autocomplete index: {} live documents, {} tombstones", survivors.size(), tombstones);
+        postings = new HashMap<>();
+        documents = new ArrayList<>(survivors.size());
+        live = new BitSet(survivors.size());
+        documentsById.clear();
+        tombstones = 0;
+        for (Document document : survivors) {
+            documentsById.computeIfAbsent(document.type(), key -> new HashMap<>()).put(document.id(), append(document));
+        }
+    }
+
+    private static boolean containsInAll(Postings[] lists, int doc) {
+        for (int i = 1; i < lists.length; i++) {
+            if (Arrays.binarySearch(lists[i].docs, 0, lists[i].size, doc) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 3 - a field starts with the query, 2 - a word does, 1 - plain substring; null - trigram false positive
+    private static Candidate score(int doc, Document document, String query, String wordQuery) {
+        int best = 0;
+        String matched = null;
+        for (String field : document.fields()) {
+            int score = field.startsWith(query) ? 3
+                    : field.contains(wordQuery) ? 2
+                    : field.contains(query) ? 1
+                    : 0;
+            if (score > best) {
+                best = score;
+                matched = field;
+            }
+        }
+        return best == 0 || (query.length() < 3 && best < 2) ? null
+                : new Candidate(doc, best, matched, document.label().length(), document.id());
+    }
+
+    private static long[] queryGrams(String query) {
+        if (query.length() < 3) {
+            return new long[]{query.length() == 1 ? pack(WORD_START, query.charAt(0)) : pack(WORD_START, query.charAt(0), query.charAt(1))};
+        }
+        long[] grams = new long[query.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = pack(query.charAt(i), query.charAt(i + 1), query.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static long[] fieldGrams(String field) {
+        List<Long> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= field.length(); i++) {
+            grams.add(pack(field.charAt(i), field.charAt(i + 1), field.charAt(i + 2)));
+        }
+        for (int i = 0; i < field.length(); i++) {
+            if (i == 0 || field.charAt(i - 1) == ' ') {
+                grams.add(pack(WORD_START, field.charAt(i)));
+                if (i + 1 < field.length() && field.charAt(i + 1) != ' ') {
+                    grams.add(pack(WORD_START, field.charAt(i), field.charAt(i + 1)));
+                }
+            }
+        }
+        return grams.stream().mapToLong(Long::longValue).distinct().toArray();
+    }
+
+    private static long pack(char first, char second) {
+        return ((long) first << 32) | ((long) second << 16);
+    }
+
+    private static long pack(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static String[] normalizeAll(String... values) {
+        return Arrays.stream(values)
+                .map(AutocompleteIndex::normalize)
+                .filter(value -> !value.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static String join(String... parts) {
+        return String.join(" ", Arrays.stream(parts).filter(part -> part != null && !part.isBlank()).toList());
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    // Growable sorted int array; documents are appended in increasing order
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.carrent.coursework.search;
+
+import org.carrent.coursework.repository.CarRepository;
+import org.carrent.coursework.repository.CustomerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills the {@link AutocompleteIndex} from the live customers and cars once the application is up.
+ * Rows are streamed through DTO projections on a background thread, so startup is not delayed.
+ * Rows changed by a commit while the load runs keep the committed version; see {@link AutocompleteIndex}.
+ */
+@Component
+public class AutocompleteIndexLoader {
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteIndexLoader.class);
+
+    private final AutocompleteIndex autocompleteIndex;
+    private final CustomerRepository customerRepository;
+    private final CarRepository carRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public AutocompleteIndexLoader(AutocompleteIndex autocompleteIndex,
+                                   CustomerRepository customerRepository,
+                                   CarRepository carRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.autocompleteIndex = autocompleteIndex;
+        this.customerRepository = customerRepository;
+        this.carRepository = carRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread.ofPlatform().name("autocomplete-index-loader").daemon().start(this::load);
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        autocompleteIndex.beginLoad();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (var customers = customerRepository.streamAvailableDtos()) {
+                    customers.forEach(autocompleteIndex::loadCustomer);
+                }
+                try (var cars = carRepository.streamAvailableDtos()) {
+                    cars.forEach(autocompleteIndex::loadCar);
+                }
+            });
+            logger.info("Autocomplete index loaded with {} documents in {} ms",
+                    autocompleteIndex.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException ex) {
+            logger.error("Failed to load the autocomplete index", ex);
+        } finally {
+            autocompleteIndex.endLoad();
+        }
+    }
+}
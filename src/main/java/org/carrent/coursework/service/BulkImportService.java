@@ -0,0 +1,354 @@
+package org.carrent.coursework.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.carrent.coursework.cache.NegativeLookupCache;
+import org.carrent.coursework.dto.CarCreationDto;
+import org.carrent.coursework.dto.CustomerCreationDto;
+import org.carrent.coursework.dto.EmployeeCreationDto;
+import org.carrent.coursework.dto.ImportReport;
+import org.carrent.coursework.entity.BaseEntity;
+import org.carrent.coursework.entity.Car;
+import org.carrent.coursework.entity.Customer;
+import org.carrent.coursework.entity.Employee;
+import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.exception.ImportFormatException;
+import org.carrent.coursework.mapper.CarMapper;
+import org.carrent.coursework.mapper.CustomerMapper;
+import org.carrent.coursework.mapper.EmployeeMapper;
+import org.carrent.coursework.repository.CarRepository;
+import org.carrent.coursework.repository.CustomerRepository;
+import org.carrent.coursework.repository.EmployeeRepository;
+import org.carrent.coursework.search.AutocompleteIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streams CSV (header row first) or NDJSON uploads into the database. Rows are read one at a time,
+ * validated with the constraints of the creation DTOs, checked for duplicates against key sets
+ * preloaded once per import and written in chunks of {@code import.batch-size}, each chunk in its
+ * own transaction with the persistence context cleared afterwards, so memory does not grow with
+ * the file.
+ */
+@Service
+public class BulkImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() {};
+
+    private final CarRepository carRepository;
+    private final CustomerRepository customerRepository;
+    private final EmployeeRepository employeeRepository;
+    private final CarMapper carMapper;
+    private final CustomerMapper customerMapper;
+    private final EmployeeMapper employeeMapper;
+    private final NegativeLookupCache negativeLookupCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final AutocompleteIndex autocompleteIndex;
+    private final DashboardService dashboardService;
+
+    @Value("${import.batch-size}")
+    private int batchSize;
+
+    @Value("${import.max-reported-errors}")
+    private int maxReportedErrors;
+
+    public BulkImportService(CarRepository carRepository,
+                             CustomerRepository customerRepository,
+                             EmployeeRepository employeeRepository,
+                             CarMapper carMapper,
+                             CustomerMapper customerMapper,
+                             EmployeeMapper employeeMapper,
+                             NegativeLookupCache negativeLookupCache,
+                             CacheInvalidator cacheInvalidator,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             TransactionTemplate transactionTemplate,
+                             EntityManager entityManager,
+                             AutocompleteIndex autocompleteIndex,
+                             DashboardService dashboardService) {
+        this.carRepository = carRepository;
+        this.customerRepository = customerRepository;
+        this.employeeRepository = employeeRepository;
+        this.carMapper = carMapper;
+        this.customerMapper = customerMapper;
+        this.employeeMapper = employeeMapper;
+        this.negativeLookupCache = negativeLookupCache;
+        this.cacheInvalidator = cacheInvalidator;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.autocompleteIndex = autocompleteIndex;
+        this.dashboardService = dashboardService;
+    }
+
+    public ImportReport importCars(InputStream input, String contentType) {
+        Set<String> licensePlates = new HashSet<>(carRepository.findLicensePlatesOfLiveCars());
+        logger.info("Importing cars, {} live license plates preloaded", licensePlates.size());
+        ImportReport report = importRows("cars", input, contentType, CarCreationDto.class, carRepository, Car.class,
+                dto -> List.of(dto.licensePlate()),
+                "Car with this license plate already exists and is not deleted",
+                licensePlates,
+                dto -> {
+                    Car car = carMapper.toEntity(dto);
+                    car.setStatus(CarStatus.AVAILABLE);
+                    return car;
+                },
+                car -> autocompleteIndex.indexCar(carMapper.toDto(car)));
+        // The imported cars change the car status counts of the dashboard
+        dashboardService.requestRefresh();
+        return report;
+    }
+
+    public ImportReport importCustomers(InputStream input, String contentType) {
+        Set<String> licenseNumbers = new HashSet<>(customerRepository.findAllLicenseNumbers());
+        logger.info("Importing customers, {} license numbers preloaded", licenseNumbers.size());
+        return importRows("customers", input, contentType, CustomerCreationDto.class, customerRepository, Customer.class,
+                dto -> List.of(dto.licenseNumber()),
+                "Customer with this license number already exists",
+                licenseNumbers,
+                customerMapper::toEntity,
+                customer -> autocompleteIndex.indexCustomer(customerMapper.toDto(customer)));
+    }
+
+    public ImportReport importEmployees(InputStream input, String contentType) {
+        Set<String> contacts = new HashSet<>();
+        for (EmployeeRepository.EmployeeContact contact : employeeRepository.findAllContacts()) {
+            contacts.add(contact.getPosition() + "|" + contact.getEmail());
+            contacts.add(contact.getPosition() + "|" + contact.getPhoneNumber());
+        }
+        logger.info("Importing employees, {} contact keys preloaded", contacts.size());
+        return importRows("employees", input, contentType, EmployeeCreationDto.class, employeeRepository, Employee.class,
+                dto -> List.of(dto.position() + "|" + dto.email(), dto.position() + "|" + dto.phoneNumber()),
+                "Employee with this email or phone number already exists on this position",
+                contacts,
+                employeeMapper::toEntity,
+                employee -> { });
+    }
+
+    private <D, E extends BaseEntity> ImportReport importRows(String resource,
+                                                              InputStream input,
+                                                              String contentType,
+                                                              Class<D> rowType,
+                                                              JpaRepository<E, Long> repository,
+                                                              Class<E> entityType,
+                                                              Function<D, List<String>> uniqueKeys,
+                                                              String duplicateMessage,
+                                                              Set<String> existingKeys,
+                                                              Function<D, E> toEntity,
+                                                              Consumer<E> onImported) {
+        ImportProgress progress = new ImportProgress(maxReportedErrors);
+        List<E> chunk = new ArrayList<>(batchSize);
+        List<Long> chunkRows = new ArrayList<>(batchSize);
+        // Keys claimed by the pending chunk; released again if the chunk fails to commit
+        List<String> chunkKeys = new ArrayList<>();
+
+        try (RowReader reader = openReader(input, contentType)) {
+            long row = 0;
+            while (true) {
+                Map<String, Object> values;
+                row++;
+                try {
+                    values = reader.next();
+                } catch (JsonProcessingException ex) {
+                    progress.read();
+                    progress.reject(row, "Unreadable row: " + ex.getOriginalMessage());
+                    continue;
+                }
+                if (values == null) {
+                    break;
+                }
+                progress.read();
+
+                D dto;
+                try {
+                    dto = objectMapper.convertValue(values, rowType);
+                } catch (IllegalArgumentException ex) {
+                    progress.reject(row, "Invalid value: " + ex.getMessage());
+                    continue;
+                }
+
+                Set<ConstraintViolation<D>> violations = validator.validate(dto);
+                if (!violations.isEmpty()) {
+                    progress.reject(row, violations.stream()
+                            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining(", ")));
+                    continue;
+                }
+
+                List<String> keys = uniqueKeys.apply(dto);
+                if (keys.stream().anyMatch(existingKeys::contains)) {
+                    progress.reject(row, duplicateMessage);
+                    continue;
+                }
+                existingKeys.addAll(keys);
+                chunkKeys.addAll(keys);
+
+                chunk.add(toEntity.apply(dto));
+                chunkRows.add(row);
+                if (chunk.size() >= batchSize) {
+                    writeChunk(resource, repository, entityType, chunk, chunkRows, chunkKeys, existingKeys, progress, onImported);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(resource, repository, entityType, chunk, chunkRows, chunkKeys, existingKeys, progress, onImported);
+            }
+        } catch (IOException ex) {
+            logger.error("Import of {} aborted after {} rows", resource, progress.rowsRead, ex);
+            throw new ImportFormatException("Could not read the uploaded " + resource + ": " + ex.getMessage());
+        }
+
+        logger.info("Import of {} finished: {} rows read, {} imported, {} rejected",
+                resource, progress.rowsRead, progress.imported, progress.rejected);
+        return progress.toReport(resource);
+    }
+
+    private <E extends BaseEntity> void writeChunk(String resource,
+                                                   JpaRepository<E, Long> repository,
+                                                   Class<E> entityType,
+                                                   List<E> chunk,
+                                                   List<Long> chunkRows,
+                                                   List<String> chunkKeys,
+                                                   Set<String> existingKeys,
+                                                   ImportProgress progress,
+                                                   Consumer<E> onImported) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            chunk.forEach(entity -> {
+                negativeLookupCache.forget(entityType, entity.getId());
+                onImported.accept(entity);
+            });
+            cacheInvalidator.invalidate(resource);
+            progress.imported += chunk.size();
+            logger.debug("Imported chunk of {} rows ending at row {}", chunk.size(), chunkRows.get(chunkRows.size() - 1));
+        } catch (RuntimeException ex) {
+            logger.error("Failed to write chunk of {} rows starting at row {}", chunk.size(), chunkRows.get(0), ex);
+            chunkRows.forEach(row -> progress.reject(row, "Batch write failed: " + ex.getMessage()));
+            // Nothing of the chunk was written, so later rows with these keys are not duplicates
+            chunkKeys.forEach(existingKeys::remove);
+        }
+        chunk.clear();
+        chunkRows.clear();
+        chunkKeys.clear();
+    }
+
+    private RowReader openReader(InputStream input, String contentType) throws IOException {
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (RuntimeException ex) {
+            throw new ImportFormatException("Unsupported content type: " + contentType);
+        }
+
+        if (mediaType.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+            MappingIterator<Map<String, Object>> rows = csvMapper
+                    .readerFor(ROW_TYPE)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(input);
+            return new RowReader() {
+                @Override
+                public Map<String, Object> next() throws IOException {
+                    return rows.hasNextValue() ? rows.nextValue() : null;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    rows.close();
+                }
+            };
+        }
+
+        if (mediaType.isCompatibleWith(NDJSON)) {
+            BufferedReader lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            return new RowReader() {
+                @Override
+                public Map<String, Object> next() throws IOException {
+                    String line = lines.readLine();
+                    while (line != null && line.isBlank()) {
+                        line = lines.readLine();
+                    }
+                    return line == null ? null : objectMapper.readValue(line, ROW_TYPE);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    lines.close();
+                }
+            };
+        }
+
+        throw new ImportFormatException("Unsupported content type: " + contentType + ", expected text/csv or application/x-ndjson");
+    }
+
+    private interface RowReader extends Closeable {
+        // Returns null at the end of the input
+        Map<String, Object> next() throws IOException;
+    }
+
+    private static class ImportProgress {
+        private final int maxReportedErrors;
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+
+        ImportProgress(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void read() {
+            rowsRead++;
+        }
+
+        void reject(long row, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportReport.RowError(row, message));
+            }
+        }
+
+        ImportReport toReport(String resource) {
+            return new ImportReport(resource, rowsRead, imported, rejected, List.copyOf(errors), rejected > errors.size());
+        }
+    }
+}
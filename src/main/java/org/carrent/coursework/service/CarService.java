@@ -3,18 +3,25 @@ package org.carrent.coursework.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.carrent.coursework.cache.NegativeLookupCache;
+import org.carrent.coursework.dto.CursorPage;
 import org.carrent.coursework.dto.CarCreationDto;
 import org.carrent.coursework.dto.CarDto;
 import org.carrent.coursework.entity.Car;
-import org.carrent.coursework.entity.Order;
-import org.carrent.coursework.entity.ServiceOfCar;
 import org.carrent.coursework.enums.CarStatus;
 import org.carrent.coursework.exception.CarAlreadyExistsException;
 import org.carrent.coursework.exception.CarNotFoundException;
+import org.carrent.coursework.filter.FilterDefinition;
+import org.carrent.coursework.filter.FilterEngine;
+import org.carrent.coursework.filter.Filters;
 import org.carrent.coursework.repository.CarRepository;
 import org.carrent.coursework.repository.OrderRepository;
+import org.carrent.coursework.pagination.KeysetPager;
+import org.carrent.coursework.search.AutocompleteIndex;
 import org.carrent.coursework.mapper.CarMapper;
 import org.carrent.coursework.repository.ServiceOfCarRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -22,9 +29,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
@@ -32,49 +39,90 @@ import java.util.stream.Collectors;
 public class CarService {
 
     private static final Logger logger = LoggerFactory.getLogger(CarService.class);
+
+    private static final FilterDefinition<Car> FILTERS = FilterDefinition.builder(Car.class, "c")
+            .where("c.deleted = false")
+            .contains("brand", "brand")
+            .contains("model", "model")
+            .contains("licensePlate", "licensePlate")
+            .equal("year", "year")
+            .equal("mileage", "mileage")
+            .equal("price", "price")
+            .equal("status", "status")
+            .atLeast("minPrice", "price")
+            .atMost("maxPrice", "price")
+            .atLeast("minMileage", "mileage")
+            .atMost("maxMileage", "mileage")
+            .atLeast("minYear", "year")
+            .atMost("maxYear", "year")
+            .index("price", "id")
+            .index("year", "id")
+            .index("mileage", "id")
+            .index("status", "price", "id")
+            .index("status", "year", "id")
+            .index("licensePlate")
+            .build();
+
+    // Basic attributes leading an index of cars (price, id), (year, id), (mileage, id) and (license_plate); id is always sortable
+    private static final Set<String> SCROLL_SORTS = Set.of("price", "year", "mileage", "licensePlate");
+
     private final CarRepository carRepository;
+    private final NegativeLookupCache negativeLookupCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final KeysetPager keysetPager;
+    private final FilterEngine filterEngine;
+    private final AutocompleteIndex autocompleteIndex;
+    private final OrderViewProjector orderViewProjector;
     private final OrderRepository orderRepository;
     private final CarMapper carMapper;
     private final ServiceOfCarRepository serviceOfCarRepository;
 
+    @Cacheable(value = "cars", key = "#id", sync = true)
     public CarDto getById(Long id) {
         logger.info("Fetching car by ID: {}", id);
+        if (negativeLookupCache.isKnownMissing(Car.class, id)) {
+            logger.debug("Car with ID: {} is known to be missing", id);
+            throw new CarNotFoundException("Car not found");
+        }
         Car car = carRepository.findById(id)
                 .orElseThrow(() -> {
                     logger.error("Car not found with ID: {}", id);
+                    negativeLookupCache.markMissing(Car.class, id);
                     return new CarNotFoundException("Car not found");
                 });
         logger.info("Car with ID: {} successfully fetched", id);
         return carMapper.toDto(car);
     }
 
+    @Cacheable(value = "cars", key = "{#root.methodName, #pageable}", sync = true)
     public Page<CarDto> getAll(Pageable pageable) {
         logger.info("Fetching all cars with pagination: {}", pageable);
-        return carRepository.findAll(pageable)
-                .map(carMapper::toDto);
+        return carRepository.findAllDtos(pageable);
     }
 
+    @Cacheable(value = "cars", key = "{#root.methodName, #pageable}", sync = true)
     public Page<CarDto> getAllAvailable(Pageable pageable) {
         logger.info("Fetching all available cars with pagination: {}", pageable);
-        Page<Car> cars = carRepository.findAll(pageable);
-        logger.info("Fetched {} cars for filtering available ones", cars.getTotalElements());
-        return cars.stream()
-                .filter(car -> !car.isDeleted())
-                .map(carMapper::toDto)
-                .collect(Collectors.collectingAndThen(Collectors.toList(),
-                        list -> new PageImpl<>(list, pageable, cars.getTotalElements())));
+        Page<CarDto> cars = carRepository.findAvailableDtos(pageable);
+        logger.info("Fetched {} available cars", cars.getTotalElements());
+        return cars;
     }
 
     @Transactional
-    public CarDto updateCar(Long id, CarDto carDto) {
+    public CarDto updateCar(Long id, CarDto carDto, Long ifMatchVersion) {
         logger.info("Updating car with ID: {}", id);
         Car car = carRepository.findById(id)
                 .orElseThrow(() -> new CarNotFoundException("Car with ID: " + id + " not found"));
         logger.info("Car found: {}", car);
+        OptimisticVersions.check("Car", id, car.getVersion(), ifMatchVersion, carDto.version());
         carMapper.partialUpdate(carDto, car);
-        Car updatedCar = carRepository.save(car);
+        Car updatedCar = carRepository.saveAndFlush(car);
+        orderViewProjector.projectCar(id);
+        cacheInvalidator.invalidate(CacheInvalidator.CARS);
         logger.info("Car with ID: {} successfully updated", id);
-        return carMapper.toDto(updatedCar);
+        CarDto updatedCarDto = carMapper.toDto(updatedCar);
+        autocompleteIndex.indexCar(updatedCarDto);
+        return updatedCarDto;
     }
 
     @Transactional
@@ -84,6 +132,8 @@ public class CarService {
                 .orElseThrow(() -> new CarNotFoundException("Car with ID: " + id + " not found"));
         car.setDeleted(true);
         carRepository.save(car);
+        autocompleteIndex.remove(AutocompleteIndex.CARS, id);
+        cacheInvalidator.invalidate(CacheInvalidator.CARS);
         logger.info("Car with ID: {} marked as deleted", id);
         return "Car with ID " + id + " has been deleted.";
     }
@@ -100,56 +150,48 @@ public class CarService {
         Car car = carMapper.toEntity(carCreationDto);
         car.setStatus(CarStatus.AVAILABLE);
         Car savedCar = carRepository.save(car);
+        negativeLookupCache.forget(Car.class, savedCar.getId());
+        cacheInvalidator.invalidate(CacheInvalidator.CARS);
         logger.info("Car with license plate: {} created successfully", carCreationDto.licensePlate());
-        return carMapper.toDto(savedCar);
+        CarDto savedCarDto = carMapper.toDto(savedCar);
+        autocompleteIndex.indexCar(savedCarDto);
+        return savedCarDto;
     }
 
     public Page<CarDto> getSortedCars(String sortBy, String order, Pageable pageable) {
         logger.info("Fetching sorted cars by {} in {} order", sortBy, order);
         Sort sort = order.equalsIgnoreCase("asc") ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
-        Page<Car> carsPage = carRepository.findAll(sortedPageable);
+        Page<CarDto> carsPage = carRepository.findAllDtos(sortedPageable);
         logger.info("Fetched {} cars", carsPage.getTotalElements());
-        return carsPage.map(carMapper::toDto);
+        return carsPage;
     }
 
     public Page<CarDto> getFilteredCars(String brand, String model, Integer year, String licensePlate,
-                                        CarStatus status, Long mileage, BigDecimal price, Pageable pageable) {
-        logger.info("Fetching filtered cars with parameters: brand={}, model={}, year={}, licensePlate={}, status={}, mileage={}, price={}",
-                brand, model, year, licensePlate, status, mileage, price);
-
-        Specification<Car> specification = Specification.where(null);
-
-        if (brand != null && !brand.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("brand")), "%" + brand.toLowerCase() + "%"));
-        }
-        if (model != null && !model.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("model")), "%" + model.toLowerCase() + "%"));
-        }
-        if (licensePlate != null && !licensePlate.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("licensePlate")), "%" + licensePlate.toLowerCase() + "%"));
-        }
-        if (year != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("year"), year));
-        }
-        if (mileage != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("mileage"), mileage));
-        }
-        if (price != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("price"), price));
-        }
-        if (status != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("status"), status));
-        }
-
-        Page<Car> cars = carRepository.findAll(specification, pageable);
+                                        CarStatus status, Long mileage, BigDecimal price,
+                                        BigDecimal minPrice, BigDecimal maxPrice, Long minMileage, Long maxMileage,
+                                        Integer minYear, Integer maxYear, Pageable pageable) {
+        logger.info("Fetching filtered cars with parameters: brand={}, model={}, year={}, licensePlate={}, status={}, mileage={}, price={}, "
+                        + "price range=[{}, {}], mileage range=[{}, {}], year range=[{}, {}], sort={}",
+                brand, model, year, licensePlate, status, mileage, price,
+                minPrice, maxPrice, minMileage, maxMileage, minYear, maxYear, pageable.getSort());
+
+        Filters filters = Filters.create()
+                .with("brand", brand)
+                .with("model", model)
+                .with("licensePlate", licensePlate)
+                .with("year", year)
+                .with("mileage", mileage)
+                .with("price", price)
+                .with("status", status)
+                .with("minPrice", minPrice)
+                .with("maxPrice", maxPrice)
+                .with("minMileage", minMileage)
+                .with("maxMileage", maxMileage)
+                .with("minYear", minYear)
+                .with("maxYear", maxYear);
+
+        Page<Car> cars = filterEngine.find(FILTERS, filters, pageable);
         logger.info("Fetched {} cars with applied filters", cars.getTotalElements());
 
         return cars.map(carMapper::toDto);
@@ -159,33 +201,48 @@ public class CarService {
     public void updateCarStatuses() {
         logger.info("Updating car statuses");
         LocalDateTime now = LocalDateTime.now();
-        List<Car> cars = carRepository.findAll();
+        // Only rented and serviced cars can change here; their orders and services are checked in bulk
+        List<Car> cars = carRepository.findAllByDeletedFalseAndStatusIn(List.of(CarStatus.RENTED, CarStatus.IN_SERVICE));
 
         if (cars.isEmpty()) {
-            logger.warn("No cars found to update statuses");
+            logger.debug("No rented or serviced cars to update");
             return;
         }
 
+        List<Long> rentedIds = cars.stream().filter(car -> car.getStatus() == CarStatus.RENTED).map(Car::getId).toList();
+        List<Long> servicedIds = cars.stream().filter(car -> car.getStatus() == CarStatus.IN_SERVICE).map(Car::getId).toList();
+        Set<Long> withActiveOrder = rentedIds.isEmpty() ? Set.of()
+                : new HashSet<>(orderRepository.findCarIdsWithOrderActiveAt(rentedIds, now));
+        Set<Long> withActiveService = servicedIds.isEmpty() ? Set.of()
+                : new HashSet<>(serviceOfCarRepository.findCarIdsWithServiceEndingAtOrAfter(servicedIds, now));
+
+        boolean changed = false;
         for (Car car : cars) {
-            logger.info("Processing car with ID: {}", car.getId());
+            logger.debug("Processing car with ID: {}", car.getId());
             if (car.getStatus() == CarStatus.RENTED) {
-                Optional<Order> activeOrder = orderRepository.findFirstByCar_IdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                        car.getId(), now, now);
-                if (activeOrder.isEmpty()) {
+                if (!withActiveOrder.contains(car.getId())) {
                     car.setStatus(CarStatus.AVAILABLE);
+                    changed = true;
                     logger.info("Car ID: {} status changed to AVAILABLE (no active orders)", car.getId());
                 }
             } else if (car.getStatus() == CarStatus.IN_SERVICE) {
-                Optional<ServiceOfCar> activeService = serviceOfCarRepository.findFirstByCar_IdAndEndDateGreaterThanEqual(
-                        car.getId(), now);
-                if (activeService.isEmpty()) {
+                if (!withActiveService.contains(car.getId())) {
                     car.setStatus(CarStatus.AVAILABLE);
+                    changed = true;
                     logger.info("Car ID: {} status changed to AVAILABLE (service completed)", car.getId());
                 }
             }
         }
 
         carRepository.saveAll(cars);
+        if (changed) {
+            cacheInvalidator.invalidate(CacheInvalidator.CARS);
+        }
         logger.info("Car statuses updated successfully");
     }
-}
\ No newline at end of file
+
+    public CursorPage<CarDto> scroll(String cursor, int size, String sortBy, String order) {
+        logger.info("Scrolling cars by {} {} from cursor: {}", sortBy, order, cursor);
+        return keysetPager.scroll(carRepository, Car.class, SCROLL_SORTS, Specification.where(null), cursor, size, sortBy, order, carMapper::toDto);
+    }
+}
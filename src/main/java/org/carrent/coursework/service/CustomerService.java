@@ -1,6 +1,9 @@
 package org.carrent.coursework.service;
 
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.carrent.coursework.cache.NegativeLookupCache;
+import org.carrent.coursework.dto.CursorPage;
 import org.carrent.coursework.dto.CarDto;
 import org.carrent.coursework.dto.CustomerCreationDto;
 import org.carrent.coursework.dto.CustomerDto;
@@ -9,17 +12,23 @@ import org.carrent.coursework.entity.Customer;
 import org.carrent.coursework.exception.CarAlreadyExistsException;
 import org.carrent.coursework.exception.CarNotFoundException;
 import org.carrent.coursework.exception.CustomerNotFoundException;
+import org.carrent.coursework.filter.FilterDefinition;
+import org.carrent.coursework.filter.FilterEngine;
+import org.carrent.coursework.filter.Filters;
+import org.carrent.coursework.pagination.KeysetPager;
+import org.carrent.coursework.search.AutocompleteIndex;
 import org.carrent.coursework.mapper.CustomerMapper;
 import org.carrent.coursework.repository.CustomerRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
@@ -28,38 +37,70 @@ public class CustomerService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomerService.class);
 
+    private static final FilterDefinition<Customer> FILTERS = FilterDefinition.builder(Customer.class, "c")
+            .where("c.deleted = false")
+            .contains("lastName", "lastName")
+            .contains("firstName", "firstName")
+            .contains("middleName", "middleName")
+            .equal("dateOfBirth", "dateOfBirth")
+            .contains("email", "email")
+            .contains("phoneNumber", "phoneNumber")
+            .contains("address", "address")
+            .contains("licenseNumber", "licenseNumber")
+            .build();
+
+    // Basic attributes leading an index of customers (license_number); id is always sortable
+    private static final Set<String> SCROLL_SORTS = Set.of("licenseNumber");
+
     private final CustomerRepository customerRepository;
+    private final NegativeLookupCache negativeLookupCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final KeysetPager keysetPager;
+    private final FilterEngine filterEngine;
+    private final AutocompleteIndex autocompleteIndex;
+    private final OrderViewProjector orderViewProjector;
     private final CustomerMapper customerMapper;
 
+    @Cacheable(value = "customers", key = "#id", sync = true)
     public CustomerDto getById(Long id) {
         logger.info("Fetching customer by ID: {}", id);
+        if (negativeLookupCache.isKnownMissing(Customer.class, id)) {
+            logger.debug("Customer with ID: {} is known to be missing", id);
+            throw new CustomerNotFoundException("Customer not found");
+        }
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> {
                     logger.error("Customer with ID: {} not found", id);
+                    negativeLookupCache.markMissing(Customer.class, id);
                     return new CustomerNotFoundException("Customer not found");
                 });
         logger.info("Successfully fetched customer with ID: {}", id);
         return customerMapper.toDto(customer);
     }
 
+    @Cacheable(value = "customers", key = "{#root.methodName, #pageable}", sync = true)
     public Page<CustomerDto> getAll(Pageable pageable) {
         logger.info("Fetching all customers with pagination: {}", pageable);
-        return customerRepository.findAll(pageable)
-                .map(customerMapper::toDto);
+        return customerRepository.findAllDtos(pageable);
     }
 
     @Transactional
-    public CustomerDto updateCustomer(Long id, CustomerDto customerDto) {
+    public CustomerDto updateCustomer(Long id, CustomerDto customerDto, Long ifMatchVersion) {
         logger.info("Updating customer with ID: {}", id);
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> {
                     logger.error("Customer with ID: {} not found", id);
                     return new CustomerNotFoundException("Customer with ID: " + id + " not found");
                 });
+        OptimisticVersions.check("Customer", id, customer.getVersion(), ifMatchVersion, customerDto.version());
         customerMapper.partialUpdate(customerDto, customer);
-        Customer updatedCustomer = customerRepository.save(customer);
+        Customer updatedCustomer = customerRepository.saveAndFlush(customer);
+        orderViewProjector.projectCustomer(id);
+        cacheInvalidator.invalidate(CacheInvalidator.CUSTOMERS);
         logger.info("Successfully updated customer with ID: {}", id);
-        return customerMapper.toDto(updatedCustomer);
+        CustomerDto updatedCustomerDto = customerMapper.toDto(updatedCustomer);
+        autocompleteIndex.indexCustomer(updatedCustomerDto);
+        return updatedCustomerDto;
     }
 
     @Transactional
@@ -71,8 +112,12 @@ public class CustomerService {
         }
         Customer customer = customerMapper.toEntity(customerCreationDto);
         Customer savedCustomer = customerRepository.save(customer);
+        negativeLookupCache.forget(Customer.class, savedCustomer.getId());
+        cacheInvalidator.invalidate(CacheInvalidator.CUSTOMERS);
         logger.info("Successfully created customer with ID: {}", savedCustomer.getId());
-        return customerMapper.toDto(savedCustomer);
+        CustomerDto savedCustomerDto = customerMapper.toDto(savedCustomer);
+        autocompleteIndex.indexCustomer(savedCustomerDto);
+        return savedCustomerDto;
     }
 
     @Transactional
@@ -85,20 +130,18 @@ public class CustomerService {
                 });
         customer.setDeleted(true);
         customerRepository.save(customer);
+        autocompleteIndex.remove(AutocompleteIndex.CUSTOMERS, id);
+        cacheInvalidator.invalidate(CacheInvalidator.CUSTOMERS);
         logger.info("Successfully marked customer with ID: {} as deleted", id);
         return "Customer with ID " + id + " has been deleted.";
     }
 
+    @Cacheable(value = "customers", key = "{#root.methodName, #pageable}", sync = true)
     public Page<CustomerDto> getAllAvailable(Pageable pageable) {
         logger.info("Fetching all available customers with pagination: {}", pageable);
-        Page<Customer> customers = customerRepository.findAll(pageable);
-        Page<CustomerDto> availableCustomers = customers.stream()
-                .filter(customer -> !customer.isDeleted())
-                .map(customerMapper::toDto)
-                .collect(Collectors.collectingAndThen(Collectors.toList(),
-                        list -> new PageImpl<>(list, pageable, customers.getTotalElements())));
-        logger.info("Successfully fetched {} available customers", availableCustomers.getTotalElements());
-        return availableCustomers;
+        Page<CustomerDto> customers = customerRepository.findAvailableDtos(pageable);
+        logger.info("Fetched {} available customers", customers.getTotalElements());
+        return customers;
     }
 
 
@@ -108,9 +151,9 @@ public class CustomerService {
         logger.info("Fetching sorted customers by {} in {} order", sortBy, order);
         Sort sort = order.equalsIgnoreCase("asc") ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
-        Page<Customer> customersPage = customerRepository.findAll(sortedPageable);
+        Page<CustomerDto> customersPage = customerRepository.findAllDtos(sortedPageable);
         logger.info("Successfully fetched sorted customers");
-        return customersPage.map(customerMapper::toDto);
+        return customersPage;
     }
 
 
@@ -119,43 +162,23 @@ public class CustomerService {
                                                   Pageable pageable) {
         logger.info("Filtering customers with criteria - LastName: {}, FirstName: {}, MiddleName: {}, DateOfBirth: {}, Email: {}, Phone: {}, Address: {}, LicenseNumber: {}",
                 lastName, firstName, middleName, dateOfBirth, email, phoneNumber, address, licenseNumber);
-        Specification<Customer> specification = Specification.where(null);
-
-        if (lastName != null && !lastName.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("lastName")), "%" + lastName.toLowerCase() + "%"));
-        }
-        if (firstName != null && !firstName.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("firstName")), "%" + firstName.toLowerCase() + "%"));
-        }
-        if (middleName != null && !middleName.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("middleName")), "%" + middleName.toLowerCase() + "%"));
-        }
-        if (dateOfBirth != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("dateOfBirth"), dateOfBirth));
-        }
-        if (email != null && !email.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("email")), "%" + email.toLowerCase() + "%"));
-        }
-        if (phoneNumber != null && !phoneNumber.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("phoneNumber")), "%" + phoneNumber.toLowerCase() + "%"));
-        }
-        if (address != null && !address.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("address")), "%" + address.toLowerCase() + "%"));
-        }
-        if (licenseNumber != null && !licenseNumber.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("licenseNumber")), "%" + licenseNumber.toLowerCase() + "%"));
-        }
-
-        Page<Customer> customers = customerRepository.findAll(specification, pageable);
+        Filters filters = Filters.create()
+                .with("lastName", lastName)
+                .with("firstName", firstName)
+                .with("middleName", middleName)
+                .with("dateOfBirth", dateOfBirth)
+                .with("email", email)
+                .with("phoneNumber", phoneNumber)
+                .with("address", address)
+                .with("licenseNumber", licenseNumber);
+
+        Page<Customer> customers = filterEngine.find(FILTERS, filters, pageable);
         logger.info("Successfully filtered customers");
         return customers.map(customerMapper::toDto);
     }
+
+    public CursorPage<CustomerDto> scroll(String cursor, int size, String sortBy, String order) {
+        logger.info("Scrolling customers by {} {} from cursor: {}", sortBy, order, cursor);
+        return keysetPager.scroll(customerRepository, Customer.class, SCROLL_SORTS, Specification.where(null), cursor, size, sortBy, order, customerMapper::toDto);
+    }
 }
@@ -0,0 +1,149 @@
+package org.carrent.coursework.service;
+
+import jakarta.annotation.PreDestroy;
+import org.carrent.coursework.aggregate.DailyAggregator;
+import org.carrent.coursework.dto.DashboardSnapshot;
+import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.enums.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves the fleet dashboard from one immutable snapshot. The snapshot is rebuilt on a schedule and
+ * after bulk changes: the dashboard materialized views from migration V6 are refreshed CONCURRENTLY,
+ * so readers of the views are never blocked, and read back together with today's fleet row of
+ * {@code daily_aggregates}. Requests only read the current snapshot and never touch the database.
+ */
+@Service
+public class DashboardService {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+
+    private static final int UPCOMING_DAYS = 7;
+    private static final List<String> VIEWS =
+            List.of("dashboard_car_status", "dashboard_order_status", "dashboard_upcoming_services");
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final AtomicReference<DashboardSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshRequested = new AtomicBoolean();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("dashboard-refresh").daemon().factory());
+    private final Object refreshLock = new Object();
+
+    public DashboardService(NamedParameterJdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public DashboardSnapshot getSnapshot() {
+        DashboardSnapshot current = snapshot.get();
+        return current != null ? current : refresh();
+    }
+
+    // Coalesces bursts: any number of requests made while a refresh is queued trigger one refresh
+    public void requestRefresh() {
+        if (refreshRequested.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                refreshRequested.set(false);
+                try {
+                    refresh();
+                } catch (RuntimeException ex) {
+                    logger.warn("Dashboard refresh after a bulk change failed, the scheduled refresh will retry", ex);
+                }
+            });
+        }
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${dashboard.refresh-interval-ms}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    public DashboardSnapshot refresh() {
+        synchronized (refreshLock) {
+            long started = System.nanoTime();
+            // Refresh and read in one transaction on the primary, a lagging replica could serve the old views
+            DashboardSnapshot fresh = transaction.execute(status -> {
+                VIEWS.forEach(view -> jdbc.getJdbcTemplate().execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + view));
+                return read();
+            });
+            snapshot.set(fresh);
+            logger.debug("Dashboard refreshed in {} ms", (System.nanoTime() - started) / 1_000_000);
+            return fresh;
+        }
+    }
+
+    private DashboardSnapshot read() {
+        Map<CarStatus, Long> cars = new EnumMap<>(CarStatus.class);
+        for (CarStatus status : CarStatus.values()) {
+            cars.put(status, 0L);
+        }
+        jdbc.getJdbcTemplate().query("SELECT status, cars FROM dashboard_car_status",
+                resultSet -> {
+                    cars.put(CarStatus.valueOf(resultSet.getString("status")), resultSet.getLong("cars"));
+                });
+
+        Map<OrderStatus, Long> orders = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            orders.put(status, 0L);
+        }
+        jdbc.getJdbcTemplate().query("SELECT status, orders FROM dashboard_order_status",
+                resultSet -> {
+                    orders.put(OrderStatus.valueOf(resultSet.getString("status")), resultSet.getLong("orders"));
+                });
+
+        // The view is cut at the day of its refresh, so only the days from today on are used
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, Long> services = new LinkedHashMap<>();
+        for (int day = 0; day < UPCOMING_DAYS; day++) {
+            services.put(today.plusDays(day), 0L);
+        }
+        jdbc.getJdbcTemplate().query("SELECT day, services FROM dashboard_upcoming_services",
+                resultSet -> {
+                    long count = resultSet.getLong("services");
+                    services.computeIfPresent(resultSet.getObject("day", LocalDate.class), (day, previous) -> previous + count);
+                });
+        long upcoming = services.values().stream().mapToLong(Long::longValue).sum();
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource("dimension", DailyAggregator.FLEET)
+                .addValue("keyId", DailyAggregator.FLEET_KEY)
+                .addValue("day", today);
+        Object[] revenue = jdbc.query("SELECT orders_count, revenue FROM daily_aggregates " +
+                        "WHERE dimension = :dimension AND key_id = :keyId AND day = :day", parameters,
+                resultSet -> resultSet.next()
+                        ? new Object[]{resultSet.getLong("orders_count"), resultSet.getBigDecimal("revenue")}
+                        : new Object[]{0L, BigDecimal.ZERO});
+
+        return new DashboardSnapshot(Instant.now(),
+                Collections.unmodifiableMap(cars),
+                Collections.unmodifiableMap(orders),
+                upcoming,
+                Collections.unmodifiableMap(services),
+                (Long) revenue[0],
+                (BigDecimal) revenue[1]);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
@@ -1,23 +1,31 @@
 package org.carrent.coursework.service;
 
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.carrent.coursework.cache.NegativeLookupCache;
+import org.carrent.coursework.dto.CursorPage;
 import org.carrent.coursework.dto.EmployeeCreationDto;
 import org.carrent.coursework.dto.EmployeeDto;
 import org.carrent.coursework.entity.Employee;
 import org.carrent.coursework.enums.EmployeePosition;
 import org.carrent.coursework.exception.CarAlreadyExistsException;
 import org.carrent.coursework.exception.EmployeeNotFoundException;
+import org.carrent.coursework.filter.FilterDefinition;
+import org.carrent.coursework.filter.FilterEngine;
+import org.carrent.coursework.filter.Filters;
+import org.carrent.coursework.pagination.KeysetPager;
 import org.carrent.coursework.mapper.EmployeeMapper;
 import org.carrent.coursework.repository.EmployeeRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
@@ -25,43 +33,72 @@ import java.util.stream.Collectors;
 public class EmployeeService {
     private static final Logger logger = LoggerFactory.getLogger(EmployeeService.class);
 
+    private static final FilterDefinition<Employee> FILTERS = FilterDefinition.builder(Employee.class, "e")
+            .where("e.deleted = false")
+            .contains("lastName", "lastName")
+            .contains("firstName", "firstName")
+            .contains("middleName", "middleName")
+            .equal("dateOfBirth", "dateOfBirth")
+            .contains("email", "email")
+            .contains("phoneNumber", "phoneNumber")
+            .contains("address", "address")
+            .equal("position", "position")
+            .build();
+
+    // Basic attributes leading an index of employees (position, email); id is always sortable
+    private static final Set<String> SCROLL_SORTS = Set.of("position");
+
     private final EmployeeRepository employeeRepository;
+    private final NegativeLookupCache negativeLookupCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final KeysetPager keysetPager;
+    private final FilterEngine filterEngine;
+    private final OrderViewProjector orderViewProjector;
     private final EmployeeMapper employeeMapper;
 
+    @Cacheable(value = "employees", key = "#id", sync = true)
     public EmployeeDto getById(Long id) {
         logger.info("Fetching employee with ID: {}", id);
+        if (negativeLookupCache.isKnownMissing(Employee.class, id)) {
+            logger.debug("Employee with ID: {} is known to be missing", id);
+            throw new EmployeeNotFoundException("Employee not found");
+        }
         Employee employee = employeeRepository.findById(id)
-                .orElseThrow(() -> new EmployeeNotFoundException("Employee not found"));
+                .orElseThrow(() -> {
+                    negativeLookupCache.markMissing(Employee.class, id);
+                    return new EmployeeNotFoundException("Employee not found");
+                });
         logger.debug("Fetched employee: {}", employee);
         return employeeMapper.toDto(employee);
     }
 
+    @Cacheable(value = "employees", key = "{#root.methodName, #pageable}", sync = true)
     public Page<EmployeeDto> getAll(Pageable pageable) {
         logger.info("Fetching all employees with pagination: {}", pageable);
-        Page<EmployeeDto> employees = employeeRepository.findAll(pageable)
-                .map(employeeMapper::toDto);
+        Page<EmployeeDto> employees = employeeRepository.findAllDtos(pageable);
         logger.debug("Fetched employees page: {}", employees);
         return employees;
     }
 
+    @Cacheable(value = "employees", key = "{#root.methodName, #pageable}", sync = true)
     public Page<EmployeeDto> getAllAvailable(Pageable pageable) {
         logger.info("Fetching all available employees with pagination: {}", pageable);
-        Page<Employee> employees = employeeRepository.findAll(pageable);
-        logger.debug("Filtered out deleted employees from the list");
-        return employees.stream()
-                .filter(employee -> !employee.isDeleted())
-                .map(employeeMapper::toDto)
-                .collect(Collectors.collectingAndThen(Collectors.toList(), list -> new PageImpl<>(list, pageable, employees.getTotalElements())));
+        Page<EmployeeDto> employees = employeeRepository.findAvailableDtos(pageable);
+        logger.info("Fetched {} available employees", employees.getTotalElements());
+        return employees;
     }
 
     @Transactional
-    public EmployeeDto updateEmployee(Long id, EmployeeDto employeeDto) {
+    public EmployeeDto updateEmployee(Long id, EmployeeDto employeeDto, Long ifMatchVersion) {
         logger.info("Updating employee with ID: {}", id);
         Employee employee = employeeRepository.findById(id)
                 .orElseThrow(() -> new EmployeeNotFoundException("Employee with ID: " + id + " not found"));
         logger.debug("Existing employee: {}", employee);
+        OptimisticVersions.check("Employee", id, employee.getVersion(), ifMatchVersion, employeeDto.version());
         employeeMapper.partialUpdate(employeeDto, employee);
-        Employee updatedEmployee = employeeRepository.save(employee);
+        Employee updatedEmployee = employeeRepository.saveAndFlush(employee);
+        orderViewProjector.projectEmployee(id);
+        cacheInvalidator.invalidate(CacheInvalidator.EMPLOYEES);
         logger.info("Employee with ID: {} successfully updated", id);
         return employeeMapper.toDto(updatedEmployee);
     }
@@ -81,6 +118,8 @@ public class EmployeeService {
 
         Employee employee = employeeMapper.toEntity(employeeCreationDto);
         Employee savedEmployee = employeeRepository.save(employee);
+        negativeLookupCache.forget(Employee.class, savedEmployee.getId());
+        cacheInvalidator.invalidate(CacheInvalidator.EMPLOYEES);
         logger.info("New employee created with ID: {}", savedEmployee.getId());
         return employeeMapper.toDto(savedEmployee);
     }
@@ -89,59 +128,27 @@ public class EmployeeService {
         logger.info("Fetching sorted employees by {} in {} order", sortBy, order);
         Sort sort = order.equalsIgnoreCase("asc") ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
-        Page<Employee> employeesPage = employeeRepository.findAll(sortedPageable);
+        Page<EmployeeDto> employeesPage = employeeRepository.findAllDtos(sortedPageable);
         logger.debug("Fetched sorted employees page: {}", employeesPage);
-        return employeesPage.map(employeeMapper::toDto);
+        return employeesPage;
     }
 
     public Page<EmployeeDto> getFilteredEmployees(String lastName, String firstName, String middleName, Date dateOfBirth,
                                                   String email, String phoneNumber, String address, EmployeePosition position,
                                                   Pageable pageable) {
         logger.info("Filtering employees with provided criteria");
-        Specification<Employee> specification = Specification.where(null);
-
-        if (lastName != null && !lastName.isEmpty()) {
-            logger.debug("Filtering by lastName: {}", lastName);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("lastName")), "%" + lastName.toLowerCase() + "%"));
-        }
-        if (firstName != null && !firstName.isEmpty()) {
-            logger.debug("Filtering by firstName: {}", firstName);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("firstName")), "%" + firstName.toLowerCase() + "%"));
-        }
-        if (middleName != null && !middleName.isEmpty()) {
-            logger.debug("Filtering by middleName: {}", middleName);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("middleName")), "%" + middleName.toLowerCase() + "%"));
-        }
-        if (dateOfBirth != null) {
-            logger.debug("Filtering by dateOfBirth: {}", dateOfBirth);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("dateOfBirth"), dateOfBirth));
-        }
-        if (email != null && !email.isEmpty()) {
-            logger.debug("Filtering by email: {}", email);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("email")), "%" + email.toLowerCase() + "%"));
-        }
-        if (phoneNumber != null && !phoneNumber.isEmpty()) {
-            logger.debug("Filtering by phoneNumber: {}", phoneNumber);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("phoneNumber")), "%" + phoneNumber.toLowerCase() + "%"));
-        }
-        if (address != null && !address.isEmpty()) {
-            logger.debug("Filtering by address: {}", address);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("address")), "%" + address.toLowerCase() + "%"));
-        }
-        if (position != null) {
-            logger.debug("Filtering by position: {}", position);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("position"), position));
-        }
-
-        Page<Employee> employees = employeeRepository.findAll(specification, pageable);
+        Filters filters = Filters.create()
+                .with("lastName", lastName)
+                .with("firstName", firstName)
+                .with("middleName", middleName)
+                .with("dateOfBirth", dateOfBirth)
+                .with("email", email)
+                .with("phoneNumber", phoneNumber)
+                .with("address", address)
+                .with("position", position);
+        logger.debug("Filtering employees by {}", filters);
+
+        Page<Employee> employees = filterEngine.find(FILTERS, filters, pageable);
         logger.info("Filtered employees fetched successfully");
         return employees.map(employeeMapper::toDto);
     }
@@ -153,7 +160,13 @@ public class EmployeeService {
                 .orElseThrow(() -> new EmployeeNotFoundException("Employee with ID: " + id + " not found"));
         employee.setDeleted(true);
         employeeRepository.save(employee);
+        cacheInvalidator.invalidate(CacheInvalidator.EMPLOYEES);
         logger.info("Employee with ID: {} has been deleted", id);
         return "Employee with ID " + id + " has been deleted.";
     }
-}
\ No newline at end of file
+
+    public CursorPage<EmployeeDto> scroll(String cursor, int size, String sortBy, String order) {
+        logger.info("Scrolling employees by {} {} from cursor: {}", sortBy, order, cursor);
+        return keysetPager.scroll(employeeRepository, Employee.class, SCROLL_SORTS, Specification.where(null), cursor, size, sortBy, order, employeeMapper::toDto);
+    }
+}
@@ -0,0 +1,146 @@
+package org.carrent.coursework.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import org.carrent.coursework.archive.ArchiveReader;
+import org.carrent.coursework.dto.OrderExportRow;
+import org.carrent.coursework.dto.ServiceOfCarExportRow;
+import org.carrent.coursework.enums.OrderStatus;
+import org.carrent.coursework.enums.ServiceOfCarStatus;
+import org.carrent.coursework.pagination.MergingIterator;
+import org.carrent.coursework.repository.OrderRepository;
+import org.carrent.coursework.repository.ServiceOfCarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Writes orders and services straight from a forward-only database cursor to the response.
+ * Rows are read with a JDBC fetch size through constructor-expression projections, so nothing is
+ * attached to the persistence context and memory stays constant whatever the number of rows.
+ * Archived rows are read through a second cursor and merged in, so the output stays in id order.
+ */
+@Service
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final ServiceOfCarRepository serviceOfCarRepository;
+    private final ArchiveReader archiveReader;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ExportService(OrderRepository orderRepository,
+                         ServiceOfCarRepository serviceOfCarRepository,
+                         ArchiveReader archiveReader,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.serviceOfCarRepository = serviceOfCarRepository;
+        this.archiveReader = archiveReader;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void exportOrders(OutputStream output, Format format,
+                             LocalDateTime from, LocalDateTime to, OrderStatus status) {
+        logger.info("Exporting orders as {} with filters: from={}, to={}, status={}", format, from, to, status);
+        long rows = export(output, format, OrderExportRow.class,
+                () -> mergeById(orderRepository.streamForExport(from, to, status),
+                        archiveReader.streamOrders(from, to, status), OrderExportRow::id));
+        logger.info("Exported {} orders", rows);
+    }
+
+    public void exportServices(OutputStream output, Format format,
+                               LocalDateTime from, LocalDateTime to, ServiceOfCarStatus status) {
+        logger.info("Exporting services as {} with filters: from={}, to={}, status={}", format, from, to, status);
+        long rows = export(output, format, ServiceOfCarExportRow.class,
+                () -> mergeById(serviceOfCarRepository.streamForExport(from, to, status),
+                        archiveReader.streamServices(from, to, status), ServiceOfCarExportRow::id));
+        logger.info("Exported {} services", rows);
+    }
+
+    // The cursor only stays open inside a transaction, Postgres ignores the fetch size in autocommit mode
+    private <T> long export(OutputStream output, Format format, Class<T> rowType, Supplier<Stream<T>> rows) {
+        Long written = readOnlyTransaction.execute(status -> {
+            try (Stream<T> stream = rows.get();
+                 SequenceWriter writer = writerFor(format, rowType).writeValues(output)) {
+                long count = 0;
+                Iterator<T> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    count++;
+                }
+                return count;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return written == null ? 0 : written;
+    }
+
+    // Both cursors are ordered by id, and ids are unique across a table and its archive
+    private static <T> Stream<T> mergeById(Stream<T> hot, Stream<T> archived, ToLongFunction<T> id) {
+        Iterator<T> merged = new MergingIterator<>(List.of(hot.iterator(), archived.iterator()), Comparator.comparingLong(id));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(hot::close)
+                .onClose(archived::close);
+    }
+
+    private ObjectWriter writerFor(Format format, Class<?> rowType) {
+        if (format == Format.CSV) {
+            return csvMapper.writer(csvMapper.schemaFor(rowType).withHeader());
+        }
+        return objectMapper.writerFor(rowType)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .withRootValueSeparator("\n");
+    }
+}
@@ -1,16 +1,25 @@
 package org.carrent.coursework.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.ModelAttribute;
 
 @Service
 public class GlobalStatusUpdater {
+    private static final Logger logger = LoggerFactory.getLogger(GlobalStatusUpdater.class);
+
     private final CarService carService;
     private final OrderService orderService;
     private final ServiceOfCarService serviceOfCarService;
 
+    @Value("${status-update.max-attempts}")
+    private int maxAttempts;
+
     @Autowired
     public GlobalStatusUpdater(CarService carService, OrderService orderService, ServiceOfCarService serviceOfCarService) {
         this.carService = carService;
@@ -19,8 +28,26 @@ public class GlobalStatusUpdater {
     }
 
     public void updateStatuses() {
-        carService.updateCarStatuses();
-        orderService.updateOrderStatuses();
-        serviceOfCarService.updateServiceOfCarStatuses();
+        withRetry("car", carService::updateCarStatuses);
+        withRetry("order", orderService::updateOrderStatuses);
+        withRetry("service", serviceOfCarService::updateServiceOfCarStatuses);
+    }
+
+    // A sweep that loses the version check to a concurrent edit is rerun on fresh rows instead of
+    // overwriting the edit. It runs on the request path, so a retry starts at once rather than after a
+    // pause; after the last attempt the sweep is left to the next request
+    private void withRetry(String sweep, Runnable update) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                update.run();
+                return;
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    logger.warn("Giving up the {} status sweep after {} attempts: {}", sweep, attempt, ex.getMessage());
+                    return;
+                }
+                logger.info("The {} status sweep hit a concurrent update, retrying (attempt {} of {})", sweep, attempt + 1, maxAttempts);
+            }
+        }
     }
 }
@@ -0,0 +1,27 @@
+package org.carrent.coursework.service;
+
+import org.carrent.coursework.exception.PreconditionFailedException;
+import org.carrent.coursework.exception.VersionConflictException;
+
+/**
+ * Compares the version a client based its edit on with the stored one before an update is applied.
+ * An {@code If-Match} that no longer matches fails the precondition (412); a stale {@code version}
+ * in the body is a conflict (409). Edits racing between this check and the flush are caught by the
+ * version-checked UPDATE of {@code @Version}.
+ */
+final class OptimisticVersions {
+
+    private OptimisticVersions() {
+    }
+
+    static void check(String type, Long id, Long currentVersion, Long ifMatchVersion, Long bodyVersion) {
+        if (ifMatchVersion != null && !ifMatchVersion.equals(currentVersion)) {
+            throw new PreconditionFailedException(type + " with ID: " + id + " is at version " + currentVersion
+                    + ", If-Match expected version " + ifMatchVersion);
+        }
+        if (bodyVersion != null && !bodyVersion.equals(currentVersion)) {
+            throw new VersionConflictException(type + " with ID: " + id + " was modified concurrently: version "
+                    + bodyVersion + " was edited, current version is " + currentVersion);
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package org.carrent.coursework.service;
 
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.aggregate.DailyAggregator;
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.carrent.coursework.cache.NegativeLookupCache;
+import org.carrent.coursework.dto.CursorPage;
 import org.carrent.coursework.dto.OrderCreationDto;
 import org.carrent.coursework.dto.OrderDto;
+import org.carrent.coursework.dto.OrderSummaryDto;
 import org.carrent.coursework.entity.*;
 import org.carrent.coursework.enums.CarStatus;
 import org.carrent.coursework.enums.EmployeePosition;
@@ -11,8 +16,13 @@ import org.carrent.coursework.enums.ServiceOfCarStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.carrent.coursework.exception.*;
+import org.carrent.coursework.filter.FilterDefinition;
+import org.carrent.coursework.filter.FilterEngine;
+import org.carrent.coursework.filter.Filters;
+import org.carrent.coursework.pagination.KeysetPager;
 import org.carrent.coursework.mapper.OrderMapper;
 import org.carrent.coursework.repository.*;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -20,14 +30,22 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
 @AllArgsConstructor
 public class OrderService {
     private final OrderRepository orderRepository;
+    private final NegativeLookupCache negativeLookupCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final KeysetPager keysetPager;
+    private final FilterEngine filterEngine;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderViewProjector orderViewProjector;
+    private final DailyAggregator dailyAggregator;
     private CarRepository carRepository;
     private EmployeeRepository employeeRepository;
     private CustomerRepository customerRepository;
@@ -36,41 +54,66 @@ public class OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+    private static final FilterDefinition<OrderView> FILTERS = FilterDefinition.builder(OrderView.class, "o")
+            .where("o.deleted = false")
+            .equal("carId", "carId")
+            .equal("customerId", "customerId")
+            .equal("employeeId", "employeeId")
+            .atLeast("startDate", "startDate")
+            .atMost("endDate", "endDate")
+            .equal("cost", "cost")
+            .atLeast("minCost", "cost")
+            .atMost("maxCost", "cost")
+            .condition("status", status -> ((OrderStatus) status).name(), (alias, status, parameters) ->
+                    OrderViewSpecifications.hasEffectiveStatus(alias, (OrderStatus) status, parameters))
+            .index("startDate", "id")
+            .index("endDate", "id")
+            .index("carId", "startDate")
+            .index("customerId", "startDate")
+            .index("employeeId", "startDate")
+            .index("cost", "id")
+            .build();
+
+    // Basic attributes leading an index of orders (start_date, end_date); id is always sortable
+    private static final Set<String> SCROLL_SORTS = Set.of("startDate");
+
+    @Cacheable(value = "orders", key = "#id", sync = true)
     public OrderDto getById(Long id) {
         logger.info("Fetching order with ID: {}", id);
-        Order order = orderRepository.findById(id)
+        if (negativeLookupCache.isKnownMissing(Order.class, id)) {
+            logger.debug("Order with ID: {} is known to be missing", id);
+            throw new OrderNotFoundException("Order not found");
+        }
+        OrderDto order = orderRepository.findDtoById(id)
                 .orElseThrow(() -> {
                     logger.error("Order not found with ID: {}", id);
+                    negativeLookupCache.markMissing(Order.class, id);
                     return new OrderNotFoundException("Order not found");
                 });
         logger.debug("Order found: {}", order);
-        return orderMapper.toDto(order);
+        return order;
     }
 
-    public Page<OrderDto> getAll(Pageable pageable) {
+    @Cacheable(value = "orders", key = "{#root.methodName, #pageable}", sync = true)
+    public Page<OrderSummaryDto> getAll(Pageable pageable) {
         logger.info("Fetching all orders with pageable: {}", pageable);
-        Page<OrderDto> result = orderRepository.findAll(pageable)
-                .map(orderMapper::toDto);
+        Page<OrderSummaryDto> result = findSummaries(Specification.where(null), pageable);
         logger.debug("Total orders fetched: {}", result.getTotalElements());
         return result;
     }
 
 
-    public Page<OrderDto> getAllAvailable(Pageable pageable) {
+    @Cacheable(value = "orders", key = "{#root.methodName, #pageable}", sync = true)
+    public Page<OrderSummaryDto> getAllAvailable(Pageable pageable) {
         logger.info("Fetching all available orders with pageable: {}", pageable);
-        Page<Order> orders = orderRepository.findAll(pageable);
-        Page<OrderDto> availableOrders = orders.stream()
-                .filter(order -> !order.isDeleted())
-                .map(orderMapper::toDto)
-                .collect(Collectors.collectingAndThen(Collectors.toList(), list ->
-                        new PageImpl<>(list, pageable, orders.getTotalElements())));
-        logger.debug("Total available orders fetched: {}", availableOrders.getTotalElements());
-        return availableOrders;
+        Page<OrderSummaryDto> orders = findSummaries(OrderViewSpecifications.notDeleted(), pageable);
+        logger.info("Fetched {} available orders", orders.getTotalElements());
+        return orders;
     }
 
 
     @Transactional
-    public OrderDto updateOrder(Long id, OrderDto orderDto) {
+    public OrderDto updateOrder(Long id, OrderDto orderDto, Long ifMatchVersion) {
         Logger logger = LoggerFactory.getLogger(getClass());
 
         logger.info("Called updateOrder with id: {}, orderDto: {}", id, orderDto);
@@ -84,12 +127,17 @@ public class OrderService {
 
         logger.debug("Fetched existing order: {}", order);
 
+        OptimisticVersions.check("Order", id, order.getVersion(), ifMatchVersion, orderDto.version());
+
         // Update the order
         orderMapper.partialUpdate(orderDto, order);
         logger.debug("Order after applying updates: {}", order);
 
         // Save the updated order
-        Order updatedOrder = orderRepository.save(order);
+        Order updatedOrder = orderRepository.saveAndFlush(order);
+        orderViewProjector.projectOrder(id);
+        dailyAggregator.refreshOrder(id);
+        cacheInvalidator.invalidate(CacheInvalidator.ORDERS);
         logger.info("Order with ID: {} successfully updated", updatedOrder.getId());
 
         // Map the updated order to DTO
@@ -158,6 +206,7 @@ public class OrderService {
 
         logger.debug("Saving order to the database");
         Order savedOrder = orderRepository.save(order);
+        negativeLookupCache.forget(Order.class, savedOrder.getId());
 
 
         LocalDateTime today = LocalDateTime.now();
@@ -170,6 +219,9 @@ public class OrderService {
         }
 
         order.setStatus(OrderStatus.RESERVED);
+        orderViewProjector.projectOrder(savedOrder.getId());
+        dailyAggregator.refreshOrder(savedOrder.getId());
+        cacheInvalidator.invalidate(CacheInvalidator.ORDERS);
         logger.info("Order created successfully with ID: {}", savedOrder.getId());
         return orderMapper.toDto(savedOrder);
     }
@@ -179,10 +231,12 @@ public class OrderService {
     public void updateOrderStatuses() {
         logger.info("Updating order statuses");
         LocalDateTime now = LocalDateTime.now();
-        List<Order> orders = orderRepository.findAll();
+        List<Order> orders = orderRepository.findAllByDeletedFalse();
+        List<Long> changed = new ArrayList<>();
 
         for (Order order : orders) {
             logger.debug("Processing order ID: {}", order.getId());
+            OrderStatus previous = order.getStatus();
             if ((order.getStatus() != OrderStatus.CANCELED) || (order.getStatus() != OrderStatus.COMPLETED)) {
                 if (order.getStartDate().isAfter(now)) {
                     order.setStatus(OrderStatus.RESERVED);
@@ -193,13 +247,21 @@ public class OrderService {
                 }
                 logger.debug("Updated status for order ID: {}", order.getId());
             }
+            if (order.getStatus() != previous) {
+                changed.add(order.getId());
+            }
         }
         orderRepository.saveAll(orders);
+        orderViewProjector.projectOrderStatuses(changed);
+        dailyAggregator.refreshOrders(changed);
+        if (!changed.isEmpty()) {
+            cacheInvalidator.invalidate(CacheInvalidator.ORDERS);
+        }
         logger.info("Order statuses updated successfully");
     }
 
 
-    public Page<OrderDto> getSortedOrders(String sortBy, String order, Pageable pageable) {
+    public Page<OrderSummaryDto> getSortedOrders(String sortBy, String order, Pageable pageable) {
         Logger logger = LoggerFactory.getLogger(getClass());
 
         logger.info("Called getSortedOrders with sortBy: {}, order: {}, pageable: {}", sortBy, order, pageable);
@@ -209,84 +271,47 @@ public class OrderService {
 
         logger.debug("Constructed sorted Pageable: {}", sortedPageable);
 
-        Page<Order> ordersPage = orderRepository.findAll(sortedPageable);
+        Page<OrderSummaryDto> ordersPage = findSummaries(Specification.where(null), sortedPageable);
 
         logger.info("Found {} orders", ordersPage.getTotalElements());
 
-        return ordersPage.map(orderMapper::toDto);
+        return ordersPage;
     }
 
-    public Page<OrderDto> getFilteredOrders(Long carId,
-                                            Long customerId,
-                                            Long employeeId,
-                                            LocalDateTime startDate,
-                                            LocalDateTime endDate,
-                                            OrderStatus status,
-                                            BigDecimal cost,
-                                            Pageable pageable) {
+    public Page<OrderSummaryDto> getFilteredOrders(Long carId,
+                                                   Long customerId,
+                                                   Long employeeId,
+                                                   LocalDateTime startDate,
+                                                   LocalDateTime endDate,
+                                                   OrderStatus status,
+                                                   BigDecimal cost,
+                                                   BigDecimal minCost,
+                                                   BigDecimal maxCost,
+                                                   Pageable pageable) {
         Logger logger = LoggerFactory.getLogger(getClass());
 
-        logger.info("Called getFilteredOrders with carId: {}, customerId: {}, employeeId: {}, startDate: {}, endDate: {}, status: {}, cost: {}, pageable: {}",
-                carId, customerId, employeeId, startDate, endDate, status, cost, pageable);
-
-        Specification<Order> specification = Specification.where(null);
+        logger.info("Called getFilteredOrders with carId: {}, customerId: {}, employeeId: {}, startDate: {}, endDate: {}, status: {}, cost: {}, "
+                        + "cost range: [{}, {}], pageable: {}",
+                carId, customerId, employeeId, startDate, endDate, status, cost, minCost, maxCost, pageable);
 
-        if (carId != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("car").get("id"), carId));
-            logger.debug("Added filter by carId: {}", carId);
-        }
-        if (customerId != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("customer").get("id"), customerId));
-            logger.debug("Added filter by customerId: {}", customerId);
-        }
-        if (employeeId != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("employee").get("id"), employeeId));
-            logger.debug("Added filter by employeeId: {}", employeeId);
-        }
-        if (startDate != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.greaterThanOrEqualTo(root.get("startDate"), startDate));
-            logger.debug("Added filter by startDate: {}", startDate);
-        }
-        if (endDate != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.lessThanOrEqualTo(root.get("endDate"), endDate));
-            logger.debug("Added filter by endDate: {}", endDate);
-        }
-        if (cost != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("cost"), cost));
-            logger.debug("Added filter by cost: {}", cost);
-        }
-        if (status != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("status"), status));
-            logger.debug("Added filter by status: {}", status);
-        }
-
-        Page<Order> orders = orderRepository.findAll(specification, pageable);
+        LocalDateTime now = LocalDateTime.now();
+        Filters filters = Filters.create()
+                .with("carId", carId)
+                .with("customerId", customerId)
+                .with("employeeId", employeeId)
+                .with("startDate", startDate)
+                .with("endDate", endDate)
+                .with("cost", cost)
+                .with("minCost", minCost)
+                .with("maxCost", maxCost)
+                .with("status", status)
+                .with(OrderViewSpecifications.NOW, now);
+
+        Page<OrderSummaryDto> orders = filterEngine.find(FILTERS, filters, pageable).map(view -> toSummary(view, now));
 
         logger.info("Found {} orders matching filters", orders.getTotalElements());
 
-        return orders.map(order -> {
-            logger.debug("Mapping Order to OrderDto: {}", order);
-            return new OrderDto(
-                    order.getId(),
-                    order.isDeleted(),
-                    order.getCreatedAt(),
-                    order.getUpdatedAt(),
-                    order.getCar().getId(),
-                    order.getCustomer().getId(),
-                    order.getEmployee().getId(),
-                    order.getStartDate(),
-                    order.getEndDate(),
-                    order.getStatus(),
-                    order.getCost()
-            );
-        });
+        return orders;
     }
 
     @Transactional
@@ -296,8 +321,44 @@ public class OrderService {
                 .orElseThrow(() -> new OrderNotFoundException("Order with ID: " + id + " not found"));
         order.setDeleted(true);
         orderRepository.save(order);
+        orderViewProjector.projectOrder(id);
+        dailyAggregator.refreshOrder(id);
+        cacheInvalidator.invalidate(CacheInvalidator.ORDERS);
         logger.info("Order with ID: {} marked as deleted.", id);
         return "Order with ID " + id + " has been deleted.";
     }
 
-}
\ No newline at end of file
+    public CursorPage<OrderDto> scroll(String cursor, int size, String sortBy, String order) {
+        logger.info("Scrolling orders by {} {} from cursor: {}", sortBy, order, cursor);
+        return keysetPager.scroll(orderRepository, Order.class, SCROLL_SORTS, Specification.where(null), cursor, size, sortBy, order, orderMapper::toDto);
+    }
+
+    // List and filter queries read the denormalized order_view instead of joining orders with cars, customers and employees
+    private Page<OrderSummaryDto> findSummaries(Specification<OrderView> specification, Pageable pageable) {
+        LocalDateTime now = LocalDateTime.now();
+        return orderViewRepository.findAll(specification, pageable).map(view -> toSummary(view, now));
+    }
+
+    private static OrderSummaryDto toSummary(OrderView view, LocalDateTime now) {
+        return new OrderSummaryDto(
+                view.getId(),
+                view.isDeleted(),
+                view.getCreatedAt(),
+                view.getUpdatedAt(),
+                view.getVersion(),
+                view.getRevision(),
+                view.getCarId(),
+                view.getCarBrand(),
+                view.getCarModel(),
+                view.getCarLicensePlate(),
+                view.getCustomerId(),
+                view.getCustomerName(),
+                view.getEmployeeId(),
+                view.getEmployeeName(),
+                view.getStartDate(),
+                view.getEndDate(),
+                OrderViewSpecifications.effectiveStatus(view, now),
+                view.getStatus(),
+                view.getCost());
+    }
+}
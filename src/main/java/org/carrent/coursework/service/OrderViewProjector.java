@@ -0,0 +1,135 @@
+package org.carrent.coursework.service;
+
+import jakarta.persistence.EntityManager;
+import org.carrent.coursework.entity.OrderView;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Keeps {@code order_view} in step with orders, cars, customers and employees. Every method runs in
+ * the transaction of the write it follows, flushes that write first and then copies the changed rows
+ * with a single statement, so the read model commits or rolls back together with the source rows.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class OrderViewProjector {
+    private static final Logger logger = LoggerFactory.getLogger(OrderViewProjector.class);
+
+    private static final String PROJECT_ORDER = """
+            INSERT INTO order_view (order_id, deleted, created_at, updated_at, version,
+                                    car_id, car_brand, car_model, car_license_plate,
+                                    customer_id, customer_name, employee_id, employee_name,
+                                    start_date, end_date, status, cost)
+            SELECT o.id, o.deleted, o.created_at, o.updated_at, o.version,
+                   c.id, c.brand, c.model, c.license_plate,
+                   cu.id, concat_ws(' ', cu.last_name, cu.first_name, cu.middle_name),
+                   e.id, concat_ws(' ', e.last_name, e.first_name, e.middle_name),
+                   o.start_date, o.end_date, o.status, o.cost
+            FROM orders o
+                     LEFT JOIN cars c ON c.id = o.car_id
+                     LEFT JOIN customers cu ON cu.id = o.customer_id
+                     LEFT JOIN employees e ON e.id = o.employee_id
+            WHERE o.id = :id
+            ON CONFLICT (order_id) DO UPDATE SET
+                deleted = EXCLUDED.deleted, created_at = EXCLUDED.created_at, updated_at = EXCLUDED.updated_at,
+                version = EXCLUDED.version, car_id = EXCLUDED.car_id, car_brand = EXCLUDED.car_brand,
+                car_model = EXCLUDED.car_model, car_license_plate = EXCLUDED.car_license_plate,
+                customer_id = EXCLUDED.customer_id, customer_name = EXCLUDED.customer_name,
+                employee_id = EXCLUDED.employee_id, employee_name = EXCLUDED.employee_name,
+                start_date = EXCLUDED.start_date, end_date = EXCLUDED.end_date, status = EXCLUDED.status,
+                cost = EXCLUDED.cost, revision = order_view.revision + 1
+            """;
+
+    private static final String PROJECT_CAR = """
+            UPDATE order_view v
+            SET car_brand = c.brand, car_model = c.model, car_license_plate = c.license_plate, revision = v.revision + 1
+            FROM cars c
+            WHERE c.id = :id AND v.car_id = c.id
+              AND (v.car_brand, v.car_model, v.car_license_plate) IS DISTINCT FROM (c.brand, c.model, c.license_plate)
+            """;
+
+    private static final String PROJECT_CUSTOMER = """
+            UPDATE order_view v
+            SET customer_name = concat_ws(' ', cu.last_name, cu.first_name, cu.middle_name), revision = v.revision + 1
+            FROM customers cu
+            WHERE cu.id = :id AND v.customer_id = cu.id
+              AND v.customer_name IS DISTINCT FROM concat_ws(' ', cu.last_name, cu.first_name, cu.middle_name)
+            """;
+
+    private static final String PROJECT_EMPLOYEE = """
+            UPDATE order_view v
+            SET employee_name = concat_ws(' ', e.last_name, e.first_name, e.middle_name), revision = v.revision + 1
+            FROM employees e
+            WHERE e.id = :id AND v.employee_id = e.id
+              AND v.employee_name IS DISTINCT FROM concat_ws(' ', e.last_name, e.first_name, e.middle_name)
+            """;
+
+    // After the status sweep: copy the orders it changed in one pass instead of one upsert per order
+    private static final String PROJECT_ORDER_STATUSES = """
+            UPDATE order_view v
+            SET status = o.status, version = o.version, updated_at = o.updated_at, revision = v.revision + 1
+            FROM orders o
+            WHERE o.id IN (:ids) AND v.order_id = o.id AND v.version IS DISTINCT FROM o.version
+            """;
+
+    // Keeps the bind parameters of one statement well below the driver limit
+    private static final int MAX_IDS_PER_STATEMENT = 1000;
+
+    private final EntityManager entityManager;
+
+    public OrderViewProjector(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public void projectOrder(Long orderId) {
+        execute(PROJECT_ORDER, orderId);
+    }
+
+    public void projectCar(Long carId) {
+        int rows = execute(PROJECT_CAR, carId);
+        logger.debug("Projected car {} into {} order_view rows", carId, rows);
+    }
+
+    public void projectCustomer(Long customerId) {
+        int rows = execute(PROJECT_CUSTOMER, customerId);
+        logger.debug("Projected customer {} into {} order_view rows", customerId, rows);
+    }
+
+    public void projectEmployee(Long employeeId) {
+        int rows = execute(PROJECT_EMPLOYEE, employeeId);
+        logger.debug("Projected employee {} into {} order_view rows", employeeId, rows);
+    }
+
+    public void projectOrderStatuses(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        int rows = 0;
+        for (int from = 0; from < orderIds.size(); from += MAX_IDS_PER_STATEMENT) {
+            List<Long> ids = orderIds.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, orderIds.size()));
+            rows += execute(PROJECT_ORDER_STATUSES, "ids", ids);
+        }
+        logger.debug("Projected {} order status changes into order_view", rows);
+    }
+
+    private int execute(String sql, Long id) {
+        return execute(sql, "id", id);
+    }
+
+    private int execute(String sql, String name, Object value) {
+        // The source rows have to be in the database before the statement copies them
+        entityManager.flush();
+        NativeQuery<?> query = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                // Without a declared query space Hibernate would drop the whole second-level cache
+                .addSynchronizedEntityClass(OrderView.class);
+        query.setParameter(name, value);
+        return query.executeUpdate();
+    }
+}
@@ -0,0 +1,156 @@
+package org.carrent.coursework.service;
+
+import org.carrent.coursework.aggregate.DailyAggregator;
+import org.carrent.coursework.dto.MonthlyRevenueRow;
+import org.carrent.coursework.dto.RevenueReportRow;
+import org.carrent.coursework.dto.UtilizationReport;
+import org.carrent.coursework.exception.CarNotFoundException;
+import org.carrent.coursework.exception.InvalidReportRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Revenue and utilization reports read from the {@code daily_aggregates} roll-ups, so their cost grows
+ * with the number of days and keys in the range rather than with the number of orders.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ReportService {
+    private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
+
+    private static final int MAX_DAYS = 3660;
+    private static final int MAX_LIMIT = 1000;
+
+    private record Dimension(String name, String table, String label) {}
+
+    private static final Map<String, Dimension> DIMENSIONS = Map.of(
+            "car", new Dimension(DailyAggregator.CAR, "cars",
+                    "concat_ws(' ', t.brand, t.model, t.license_plate)"),
+            "customer", new Dimension(DailyAggregator.CUSTOMER, "customers",
+                    "concat_ws(' ', t.last_name, t.first_name, t.middle_name)"),
+            "employee", new Dimension(DailyAggregator.EMPLOYEE, "employees",
+                    "concat_ws(' ', t.last_name, t.first_name, t.middle_name)"));
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public ReportService(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public List<RevenueReportRow> revenueBy(String dimensionName, LocalDate from, LocalDate to, Long keyId, int limit) {
+        Dimension dimension = DIMENSIONS.get(dimensionName);
+        if (dimension == null) {
+            throw new InvalidReportRequestException("Unknown dimension: " + dimensionName + ", expected one of car, customer, employee");
+        }
+        checkRange(from, to);
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidReportRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        logger.info("Revenue by {} from {} to {}, key={}", dimensionName, from, to, keyId);
+
+        // t.id is the primary key, so grouping by it lets the label use the other columns of t
+        String sql = "SELECT a.key_id, " + dimension.label() + " AS label, " +
+                "SUM(a.orders_count) AS orders, SUM(a.revenue) AS revenue " +
+                "FROM daily_aggregates a LEFT JOIN " + dimension.table() + " t ON t.id = a.key_id " +
+                "WHERE a.dimension = :dimension AND a.day BETWEEN :from AND :to " +
+                (keyId != null ? "AND a.key_id = :keyId " : "") +
+                "GROUP BY a.key_id, t.id " +
+                "HAVING SUM(a.orders_count) > 0 " +
+                "ORDER BY revenue DESC, a.key_id " +
+                "LIMIT :limit";
+        MapSqlParameterSource parameters = new MapSqlParameterSource("dimension", dimension.name())
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("keyId", keyId)
+                .addValue("limit", limit);
+        return jdbc.query(sql, parameters, (resultSet, rowNum) -> new RevenueReportRow(
+                resultSet.getLong("key_id"),
+                resultSet.getString("label"),
+                resultSet.getLong("orders"),
+                resultSet.getBigDecimal("revenue")));
+    }
+
+    public List<MonthlyRevenueRow> monthlyRevenue(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        logger.info("Monthly revenue from {} to {}", from, to);
+        String sql = """
+                SELECT CAST(date_trunc('month', a.day) AS DATE) AS month,
+                       SUM(a.orders_count) AS orders, SUM(a.revenue) AS revenue,
+                       SUM(a.service_count) AS services, SUM(a.service_cost) AS service_cost
+                FROM daily_aggregates a
+                WHERE a.dimension = :dimension AND a.key_id = :keyId AND a.day BETWEEN :from AND :to
+                GROUP BY 1
+                ORDER BY 1
+                """;
+        MapSqlParameterSource parameters = new MapSqlParameterSource("dimension", DailyAggregator.FLEET)
+                .addValue("keyId", DailyAggregator.FLEET_KEY)
+                .addValue("from", from)
+                .addValue("to", to);
+        return jdbc.query(sql, parameters, (resultSet, rowNum) -> new MonthlyRevenueRow(
+                resultSet.getObject("month", LocalDate.class),
+                resultSet.getLong("orders"),
+                resultSet.getBigDecimal("revenue"),
+                resultSet.getLong("services"),
+                resultSet.getBigDecimal("service_cost")));
+    }
+
+    public UtilizationReport utilization(LocalDate from, LocalDate to, Long carId) {
+        checkRange(from, to);
+        logger.info("Utilization from {} to {}, car={}", from, to, carId);
+        long cars;
+        if (carId != null) {
+            Boolean exists = jdbc.queryForObject("SELECT EXISTS (SELECT 1 FROM cars WHERE id = :id AND NOT deleted)",
+                    new MapSqlParameterSource("id", carId), Boolean.class);
+            if (!Boolean.TRUE.equals(exists)) {
+                throw new CarNotFoundException("Car with ID: " + carId + " not found");
+            }
+            cars = 1;
+        } else {
+            Long live = jdbc.getJdbcTemplate().queryForObject("SELECT count(*) FROM cars WHERE NOT deleted", Long.class);
+            cars = live == null ? 0 : live;
+        }
+
+        String sql = """
+                SELECT COALESCE(SUM(a.rented_seconds), 0) AS rented, COALESCE(SUM(a.service_seconds), 0) AS service
+                FROM daily_aggregates a
+                WHERE a.dimension = :dimension AND a.key_id = :keyId AND a.day BETWEEN :from AND :to
+                """;
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("dimension", carId != null ? DailyAggregator.CAR : DailyAggregator.FLEET)
+                .addValue("keyId", carId != null ? carId : DailyAggregator.FLEET_KEY)
+                .addValue("from", from)
+                .addValue("to", to);
+        long[] seconds = jdbc.queryForObject(sql, parameters,
+                (resultSet, rowNum) -> new long[]{resultSet.getLong("rented"), resultSet.getLong("service")});
+
+        // The fleet size is taken as of now; cars added or removed during the range skew the shares slightly
+        long available = cars * (ChronoUnit.DAYS.between(from, to) + 1) * 86_400;
+        return new UtilizationReport(from, to, carId, cars, seconds[0], seconds[1],
+                share(seconds[0], available), share(seconds[1], available));
+    }
+
+    private static double share(long seconds, long available) {
+        return available == 0 ? 0 : Math.round(seconds * 10_000.0 / available) / 10_000.0;
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new InvalidReportRequestException("Both from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new InvalidReportRequestException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new InvalidReportRequestException("A report covers at most " + MAX_DAYS + " days");
+        }
+    }
+}
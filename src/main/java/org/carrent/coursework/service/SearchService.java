@@ -0,0 +1,135 @@
+package org.carrent.coursework.service;
+
+import jakarta.persistence.EntityManager;
+import org.carrent.coursework.dto.AutocompleteHit;
+import org.carrent.coursework.dto.SearchHit;
+import org.carrent.coursework.exception.InvalidSearchQueryException;
+import org.carrent.coursework.search.AutocompleteIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked substring and fuzzy search over customers, employees and cars. Every predicate is written
+ * against {@code lower(column)} so it is answered by the pg_trgm GIN indexes from migration V3
+ * instead of a sequential scan.
+ */
+@Service
+public class SearchService {
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    private static final int MIN_QUERY_LENGTH = 2;
+    private static final int MAX_LIMIT = 100;
+
+    private record SearchTarget(String table, String label, List<String> columns) {}
+
+    private static final Map<String, SearchTarget> TARGETS = new LinkedHashMap<>();
+
+    static {
+        TARGETS.put("customers", new SearchTarget("customers",
+                "concat_ws(' ', t.last_name, t.first_name, t.middle_name)",
+                List.of("last_name", "first_name", "middle_name", "email", "phone_number", "license_number")));
+        TARGETS.put("employees", new SearchTarget("employees",
+                "concat_ws(' ', t.last_name, t.first_name, t.middle_name)",
+                List.of("last_name", "first_name", "middle_name", "email", "phone_number")));
+        TARGETS.put("cars", new SearchTarget("cars",
+                "concat_ws(' ', t.brand, t.model, t.license_plate)",
+                List.of("brand", "model", "license_plate")));
+    }
+
+    private final EntityManager entityManager;
+    private final AutocompleteIndex autocompleteIndex;
+
+    public SearchService(EntityManager entityManager, AutocompleteIndex autocompleteIndex) {
+        this.entityManager = entityManager;
+        this.autocompleteIndex = autocompleteIndex;
+    }
+
+    public List<AutocompleteHit> autocomplete(String query, Set<String> types, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidSearchQueryException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (types != null) {
+            for (String type : types) {
+                if (!AutocompleteIndex.CUSTOMERS.equals(type) && !AutocompleteIndex.CARS.equals(type)) {
+                    throw new InvalidSearchQueryException("Unknown autocomplete type: " + type + ", expected customers or cars");
+                }
+            }
+        }
+        return autocompleteIndex.search(query, types, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SearchHit> search(String query, Set<String> types, int limit) {
+        String normalized = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.length() < MIN_QUERY_LENGTH) {
+            throw new InvalidSearchQueryException("Search query must have at least " + MIN_QUERY_LENGTH + " characters");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidSearchQueryException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        Set<String> requestedTypes = types == null || types.isEmpty() ? TARGETS.keySet() : types;
+        for (String type : requestedTypes) {
+            if (!TARGETS.containsKey(type)) {
+                throw new InvalidSearchQueryException("Unknown search type: " + type + ", expected one of " + TARGETS.keySet());
+            }
+        }
+
+        logger.info("Searching {} for '{}' with limit {}", requestedTypes, normalized, limit);
+        List<SearchHit> hits = new ArrayList<>();
+        for (String type : requestedTypes) {
+            hits.addAll(searchTarget(type, TARGETS.get(type), normalized, limit));
+        }
+        List<SearchHit> ranked = hits.stream()
+                .sorted(Comparator.comparingDouble(SearchHit::score).reversed()
+                        .thenComparing(SearchHit::type)
+                        .thenComparing(SearchHit::id))
+                .limit(limit)
+                .collect(Collectors.toList());
+        logger.info("Search for '{}' returned {} hits", normalized, ranked.size());
+        return ranked;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SearchHit> searchTarget(String type, SearchTarget target, String query, int limit) {
+        // word_similarity scores a query that matches a whole word of the value as 1.0,
+        // "<%" is its indexable operator, LIKE catches fragments such as part of a phone number
+        String score = target.columns().stream()
+                .map(column -> "word_similarity(:q, lower(t." + column + "))")
+                .collect(Collectors.joining(", ", "GREATEST(", ")"));
+        String predicate = target.columns().stream()
+                .map(column -> "lower(t." + column + ") LIKE :pattern OR :q <% lower(t." + column + ")")
+                .collect(Collectors.joining(" OR ", "(", ")"));
+        String sql = "SELECT t.id, " + target.label() + " AS label, " + score + " AS score " +
+                "FROM " + target.table() + " t " +
+                "WHERE t.deleted = false AND " + predicate + " " +
+                "ORDER BY score DESC, t.id " +
+                "LIMIT :limit";
+
+        List<Object[]> rows = entityManager.createNativeQuery(sql)
+                .setParameter("q", query)
+                .setParameter("pattern", "%" + escapeLike(query) + "%")
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new SearchHit(type,
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        ((Number) row[2]).doubleValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
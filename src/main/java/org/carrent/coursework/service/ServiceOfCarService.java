@@ -1,6 +1,10 @@
 package org.carrent.coursework.service;
 
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.aggregate.DailyAggregator;
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.carrent.coursework.cache.NegativeLookupCache;
+import org.carrent.coursework.dto.CursorPage;
 import org.carrent.coursework.dto.ServiceOfCarCreationDto;
 import org.carrent.coursework.dto.ServiceOfCarDto;
 import org.carrent.coursework.entity.Car;
@@ -10,13 +14,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.carrent.coursework.enums.ServiceOfCarStatus;
 import org.carrent.coursework.exception.*;
+import org.carrent.coursework.filter.FilterDefinition;
+import org.carrent.coursework.filter.FilterEngine;
+import org.carrent.coursework.filter.Filters;
 import org.carrent.coursework.repository.CarRepository;
 import org.carrent.coursework.repository.EmployeeRepository;
 import org.carrent.coursework.entity.Employee;
 import org.carrent.coursework.entity.ServiceOfCar;
+import org.carrent.coursework.pagination.KeysetPager;
 import org.carrent.coursework.mapper.ServiceOfCarMapper;
 import org.carrent.coursework.repository.OrderRepository;
 import org.carrent.coursework.repository.ServiceOfCarRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,7 +34,7 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
@@ -34,33 +43,66 @@ public class ServiceOfCarService {
 
     private static final Logger logger = LoggerFactory.getLogger(ServiceOfCarService.class);
 
+    private static final FilterDefinition<ServiceOfCar> FILTERS = FilterDefinition.builder(ServiceOfCar.class, "s")
+            .where("s.deleted = false")
+            .equal("carId", "car.id")
+            .equal("employeeId", "employee.id")
+            .atLeast("startDate", "startDate")
+            .atMost("endDate", "endDate")
+            .contains("description", "description")
+            .equal("cost", "cost")
+            .atLeast("minCost", "cost")
+            .atMost("maxCost", "cost")
+            .equal("status", "status")
+            .index("startDate", "id")
+            .index("endDate", "id")
+            .index("cost", "id")
+            .index("car.id", "endDate")
+            .index("car.id", "status", "startDate", "endDate")
+            .index("employee.id", "startDate")
+            .build();
+
+    // Basic attributes leading an index of services (start_date, id), (end_date, id) and (cost, id); id is always sortable
+    private static final Set<String> SCROLL_SORTS = Set.of("startDate", "endDate", "cost");
+
     private final ServiceOfCarRepository serviceOfCarRepository;
+    private final NegativeLookupCache negativeLookupCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final KeysetPager keysetPager;
+    private final FilterEngine filterEngine;
     private final CarRepository carRepository;
     private final EmployeeRepository employeeRepository;
     private final OrderRepository orderRepository;
     private final ServiceOfCarMapper serviceOfCarMapper;
+    private final DailyAggregator dailyAggregator;
 
+    @Cacheable(value = "services", key = "#id", sync = true)
     public ServiceOfCarDto getById(Long id) {
         logger.info("Fetching service by ID: {}", id);
-        ServiceOfCar serviceOfCar = serviceOfCarRepository.findById(id)
+        if (negativeLookupCache.isKnownMissing(ServiceOfCar.class, id)) {
+            logger.debug("ServiceOfCar with ID: {} is known to be missing", id);
+            throw new ServiceOfCarNotFoundException("Service not found");
+        }
+        ServiceOfCarDto serviceOfCar = serviceOfCarRepository.findDtoById(id)
                 .orElseThrow(() -> {
                     logger.error("Service with ID: {} not found", id);
+                    negativeLookupCache.markMissing(ServiceOfCar.class, id);
                     return new ServiceOfCarNotFoundException("Service not found");
                 });
         logger.debug("Fetched service: {}", serviceOfCar);
-        return serviceOfCarMapper.toDto(serviceOfCar);
+        return serviceOfCar;
     }
 
+    @Cacheable(value = "services", key = "{#root.methodName, #pageable}", sync = true)
     public Page<ServiceOfCarDto> getAll(Pageable pageable) {
         logger.info("Fetching all services with pageable: {}", pageable);
-        Page<ServiceOfCarDto> services = serviceOfCarRepository.findAll(pageable)
-                .map(serviceOfCarMapper::toDto);
+        Page<ServiceOfCarDto> services = serviceOfCarRepository.findAllDtos(pageable);
         logger.debug("Fetched {} services", services.getTotalElements());
         return services;
     }
 
     @Transactional
-    public ServiceOfCarDto updateServiceOfCar(Long id, ServiceOfCarDto serviceOfCarDto) {
+    public ServiceOfCarDto updateServiceOfCar(Long id, ServiceOfCarDto serviceOfCarDto, Long ifMatchVersion) {
         logger.info("Updating service with ID: {}", id);
         ServiceOfCar serviceOfCar = serviceOfCarRepository.findById(id)
                 .orElseThrow(() -> {
@@ -68,9 +110,12 @@ public class ServiceOfCarService {
                     return new ServiceOfCarNotFoundException("Service of car with ID: " + id + " not found");
                 });
         logger.debug("Existing service: {}", serviceOfCar);
+        OptimisticVersions.check("Service of car", id, serviceOfCar.getVersion(), ifMatchVersion, serviceOfCarDto.version());
         serviceOfCarMapper.partialUpdate(serviceOfCarDto, serviceOfCar);
         logger.debug("Updated service: {}", serviceOfCar);
-        ServiceOfCar updatedServiceOfCar = serviceOfCarRepository.save(serviceOfCar);
+        ServiceOfCar updatedServiceOfCar = serviceOfCarRepository.saveAndFlush(serviceOfCar);
+        dailyAggregator.refreshService(id);
+        cacheInvalidator.invalidate(CacheInvalidator.SERVICES);
         logger.info("Successfully updated service with ID: {}", updatedServiceOfCar.getId());
         return serviceOfCarMapper.toDto(updatedServiceOfCar);
     }
@@ -121,6 +166,9 @@ public class ServiceOfCarService {
         logger.debug("Mapped service entity: {}", serviceOfCar);
 
         ServiceOfCar savedServiceOfCar = serviceOfCarRepository.save(serviceOfCar);
+        negativeLookupCache.forget(ServiceOfCar.class, savedServiceOfCar.getId());
+        dailyAggregator.refreshService(savedServiceOfCar.getId());
+        cacheInvalidator.invalidate(CacheInvalidator.SERVICES);
         logger.info("Service successfully created with ID: {}", savedServiceOfCar.getId());
 
         return serviceOfCarMapper.toDto(savedServiceOfCar);
@@ -130,11 +178,13 @@ public class ServiceOfCarService {
     public void updateServiceOfCarStatuses() {
         logger.info("Updating statuses for all services...");
         LocalDateTime now = LocalDateTime.now();
-        List<ServiceOfCar> services = serviceOfCarRepository.findAll();
+        List<ServiceOfCar> services = serviceOfCarRepository.findAllByDeletedFalse();
         logger.debug("Total services to process: {}", services.size());
 
+        boolean changed = false;
         for (ServiceOfCar service : services) {
             logger.debug("Processing service with ID: {}", service.getId());
+            ServiceOfCarStatus previous = service.getStatus();
             if (service.getStatus() != ServiceOfCarStatus.COMPLETED && service.getStatus() != ServiceOfCarStatus.CANCELED) {
                 if (service.getEndDate().isBefore(now)) {
                     service.setStatus(ServiceOfCarStatus.COMPLETED);
@@ -144,66 +194,43 @@ public class ServiceOfCarService {
                     service.setStatus(ServiceOfCarStatus.ACTIVE);
                 }
             }
+            changed |= service.getStatus() != previous;
             logger.debug("Updated service status to: {}", service.getStatus());
         }
 
+        // The sweep never cancels or reopens a service, so the daily aggregates are not affected
         serviceOfCarRepository.saveAll(services);
+        if (changed) {
+            cacheInvalidator.invalidate(CacheInvalidator.SERVICES);
+        }
         logger.info("Service statuses updated successfully.");
     }
 
     public Page<ServiceOfCarDto> getSortedServices(String sortBy, String order, Pageable pageable) {
         logger.info("Fetching sorted services by '{}' in '{}' order", sortBy, order);
-        Page<ServiceOfCarDto> services = serviceOfCarRepository.findAll(pageable)
-                .map(serviceOfCarMapper::toDto);
+        Page<ServiceOfCarDto> services = serviceOfCarRepository.findAllDtos(pageable);
         logger.debug("Fetched {} sorted services", services.getTotalElements());
         return services;
     }
 
     public Page<ServiceOfCarDto> getFilteredServices(Long carId, Long employeeId, LocalDateTime startDate, LocalDateTime endDate,
-                                                     String description, BigDecimal cost, ServiceOfCarStatus status, Pageable pageable) {
-        logger.info("Filtering services with parameters - carId: {}, employeeId: {}, startDate: {}, endDate: {}, description: {}, cost: {}, status: {}, pageable: {}",
-                carId, employeeId, startDate, endDate, description, cost, status, pageable);
-
-        Specification<ServiceOfCar> specification = Specification.where(null);
+                                                     String description, BigDecimal cost, BigDecimal minCost, BigDecimal maxCost,
+                                                     ServiceOfCarStatus status, Pageable pageable) {
+        logger.info("Filtering services with parameters - carId: {}, employeeId: {}, startDate: {}, endDate: {}, description: {}, cost: {}, cost range: [{}, {}], status: {}, pageable: {}",
+                carId, employeeId, startDate, endDate, description, cost, minCost, maxCost, status, pageable);
 
-        // Add filter specifications with logging
-        if (carId != null) {
-            logger.debug("Adding filter for carId: {}", carId);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("car").get("id"), carId));
-        }
-        if (employeeId != null) {
-            logger.debug("Adding filter for employeeId: {}", employeeId);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("employee").get("id"), employeeId));
-        }
-        if (startDate != null) {
-            logger.debug("Adding filter for startDate: {}", startDate);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.greaterThanOrEqualTo(root.get("startDate"), startDate));
-        }
-        if (endDate != null) {
-            logger.debug("Adding filter for endDate: {}", endDate);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.lessThanOrEqualTo(root.get("endDate"), endDate));
-        }
-        if (description != null && !description.isEmpty()) {
-            logger.debug("Adding filter for description containing: {}", description);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), "%" + description.toLowerCase() + "%"));
-        }
-        if (cost != null) {
-            logger.debug("Adding filter for cost: {}", cost);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("cost"), cost));
-        }
-        if (status != null) {
-            logger.debug("Adding filter for status: {}", status);
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.equal(root.get("status"), status));
-        }
+        Filters filters = Filters.create()
+                .with("carId", carId)
+                .with("employeeId", employeeId)
+                .with("startDate", startDate)
+                .with("endDate", endDate)
+                .with("description", description)
+                .with("cost", cost)
+                .with("minCost", minCost)
+                .with("maxCost", maxCost)
+                .with("status", status);
 
-        Page<ServiceOfCar> services = serviceOfCarRepository.findAll(specification, pageable);
+        Page<ServiceOfCar> services = filterEngine.find(FILTERS, filters, pageable);
         logger.info("Found {} services matching the filters.", services.getTotalElements());
 
         Page<ServiceOfCarDto> result = services.map(service -> new ServiceOfCarDto(
@@ -211,6 +238,7 @@ public class ServiceOfCarService {
                 service.isDeleted(),
                 service.getCreatedAt(),
                 service.getUpdatedAt(),
+                service.getVersion(),
                 service.getCar().getId(),
                 service.getEmployee().getId(),
                 service.getStartDate(),
@@ -234,19 +262,22 @@ public class ServiceOfCarService {
                 });
         service.setDeleted(true);
         serviceOfCarRepository.save(service);
+        dailyAggregator.refreshService(id);
+        cacheInvalidator.invalidate(CacheInvalidator.SERVICES);
         logger.info("Service with ID: {} marked as deleted.", id);
         return "Order with ID " + id + " has been deleted.";
     }
 
+    @Cacheable(value = "services", key = "{#root.methodName, #pageable}", sync = true)
     public Page<ServiceOfCarDto> getAllAvailable(Pageable pageable) {
         logger.info("Fetching all available services...");
-        Page<ServiceOfCar> services = serviceOfCarRepository.findAll(pageable);
-        logger.debug("Total services fetched: {}", services.getTotalElements());
-        Page<ServiceOfCarDto> availableServices = services.stream()
-                .filter(service -> !service.isDeleted())
-                .map(serviceOfCarMapper::toDto)
-                .collect(Collectors.collectingAndThen(Collectors.toList(), list -> new PageImpl<>(list, pageable, services.getTotalElements())));
-        logger.info("Filtered {} available services.", availableServices.getTotalElements());
-        return availableServices;
+        Page<ServiceOfCarDto> services = serviceOfCarRepository.findAvailableDtos(pageable);
+        logger.info("Fetched {} available services", services.getTotalElements());
+        return services;
+    }
+
+    public CursorPage<ServiceOfCarDto> scroll(String cursor, int size, String sortBy, String order) {
+        logger.info("Scrolling services by {} {} from cursor: {}", sortBy, order, cursor);
+        return keysetPager.scroll(serviceOfCarRepository, ServiceOfCar.class, SCROLL_SORTS, Specification.where(null), cursor, size, sortBy, order, serviceOfCarMapper::toDto);
     }
-}
\ No newline at end of file
+}
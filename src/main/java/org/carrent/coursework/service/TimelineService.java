@@ -0,0 +1,201 @@
+package org.carrent.coursework.service;
+
+import org.carrent.coursework.dto.CursorPage;
+import org.carrent.coursework.dto.TimelineEntry;
+import org.carrent.coursework.exception.CarNotFoundException;
+import org.carrent.coursework.exception.CustomerNotFoundException;
+import org.carrent.coursework.exception.InvalidCursorException;
+import org.carrent.coursework.pagination.MergingIterator;
+import org.carrent.coursework.repository.CarRepository;
+import org.carrent.coursework.repository.CustomerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Activity of a car (orders and services interleaved) and order history of a customer, newest first
+ * by default. Every source is read through its own index-ordered cursor and the cursors are merged
+ * lazily, so a slice reads at most {@code size + 1} rows per source whatever the length of the history.
+ * Archived orders and services are read from their archive tables as further sources.
+ * <p>
+ * Entries are ordered by start date, then orders before services, then id. The continuation cursor
+ * holds that key of the last entry and every source resumes strictly after it, so slices neither
+ * skip nor repeat entries that share a start date.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TimelineService {
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+
+    private static final int MAX_SIZE = 500;
+    private static final String SEPARATOR = "\n";
+
+    // rank orders the sources among entries with the same start date; an archive shares the rank of its
+    // hot table, ids are unique across the two so (start_date, id) still orders their entries
+    private record Source(String type, int rank, String table, String owner, String columns) {
+    }
+
+    private static final String ORDER_COLUMNS = "id, start_date, end_date, status, cost, car_id, customer_id, employee_id, NULL AS description";
+    private static final String SERVICE_COLUMNS = "id, start_date, end_date, status, cost, car_id, NULL AS customer_id, employee_id, description";
+
+    private static final Source ORDERS_OF_CAR = new Source("order", 0, "orders", "car_id", ORDER_COLUMNS);
+    private static final Source SERVICES_OF_CAR = new Source("service", 1, "services", "car_id", SERVICE_COLUMNS);
+    private static final Source ORDERS_OF_CUSTOMER = new Source("order", 0, "orders", "customer_id", ORDER_COLUMNS);
+    private static final Source ARCHIVED_ORDERS_OF_CAR = new Source("order", 0, "orders_archive", "car_id", ORDER_COLUMNS);
+    private static final Source ARCHIVED_SERVICES_OF_CAR = new Source("service", 1, "services_archive", "car_id", SERVICE_COLUMNS);
+    private static final Source ARCHIVED_ORDERS_OF_CUSTOMER = new Source("order", 0, "orders_archive", "customer_id", ORDER_COLUMNS);
+
+    private record Position(boolean ascending, LocalDateTime startDate, int rank, long id) {
+    }
+
+    private record Row(TimelineEntry entry, int rank) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final CarRepository carRepository;
+    private final CustomerRepository customerRepository;
+
+    public TimelineService(NamedParameterJdbcTemplate jdbc, CarRepository carRepository, CustomerRepository customerRepository) {
+        this.jdbc = jdbc;
+        this.carRepository = carRepository;
+        this.customerRepository = customerRepository;
+    }
+
+    public CursorPage<TimelineEntry> carTimeline(Long carId, String cursor, int size, String order) {
+        logger.info("Reading the timeline of car {} from cursor: {}", carId, cursor);
+        if (!carRepository.existsById(carId)) {
+            throw new CarNotFoundException("Car with ID: " + carId + " not found");
+        }
+        return read(List.of(ORDERS_OF_CAR, SERVICES_OF_CAR, ARCHIVED_ORDERS_OF_CAR, ARCHIVED_SERVICES_OF_CAR), carId, cursor, size, order);
+    }
+
+    public CursorPage<TimelineEntry> customerOrders(Long customerId, String cursor, int size, String order) {
+        logger.info("Reading the order history of customer {} from cursor: {}", customerId, cursor);
+        if (!customerRepository.existsById(customerId)) {
+            throw new CustomerNotFoundException("Customer with ID: " + customerId + " not found");
+        }
+        return read(List.of(ORDERS_OF_CUSTOMER, ARCHIVED_ORDERS_OF_CUSTOMER), customerId, cursor, size, order);
+    }
+
+    private CursorPage<TimelineEntry> read(List<Source> sources, Long owner, String cursor, int size, String order) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new InvalidCursorException("Page size must be between 1 and " + MAX_SIZE);
+        }
+        Position after = cursor == null || cursor.isBlank() ? null : decode(cursor);
+        boolean ascending = after != null ? after.ascending() : "asc".equalsIgnoreCase(order);
+
+        Comparator<Row> comparator = Comparator.comparing((Row row) -> row.entry().startDate())
+                .thenComparingInt(Row::rank)
+                .thenComparingLong(row -> row.entry().id());
+        if (!ascending) {
+            comparator = comparator.reversed();
+        }
+
+        List<Stream<Row>> streams = new ArrayList<>(sources.size());
+        try {
+            List<Iterator<Row>> cursors = new ArrayList<>(sources.size());
+            for (Source source : sources) {
+                Stream<Row> stream = jdbc.queryForStream(sql(source, ascending, after),
+                        parameters(owner, after, size + 1), mapper(source));
+                streams.add(stream);
+                cursors.add(stream.iterator());
+            }
+            MergingIterator<Row> merged = new MergingIterator<>(cursors, comparator);
+
+            List<TimelineEntry> content = new ArrayList<>(size);
+            Row last = null;
+            while (content.size() < size && merged.hasNext()) {
+                last = merged.next();
+                content.add(last.entry());
+            }
+            String nextCursor = merged.hasNext() ? encode(ascending, last) : null;
+            return new CursorPage<>(content, content.size(), nextCursor);
+        } finally {
+            streams.forEach(Stream::close);
+        }
+    }
+
+    // The keyset condition of one source depends on whether its entries sort before or after the
+    // cursor's source on the same start date
+    private static String sql(Source source, boolean ascending, Position after) {
+        String direction = ascending ? "ASC" : "DESC";
+        String strict = ascending ? ">" : "<";
+        StringBuilder sql = new StringBuilder("SELECT ").append(source.columns())
+                .append(" FROM ").append(source.table())
+                .append(" WHERE ").append(source.owner()).append(" = :owner AND deleted = FALSE AND start_date IS NOT NULL");
+        if (after != null) {
+            int relation = Integer.compare(source.rank(), after.rank());
+            if (relation == 0) {
+                sql.append(" AND (start_date, id) ").append(strict).append(" (:afterStart, :afterId)");
+            } else if (ascending == relation > 0) {
+                sql.append(" AND start_date ").append(strict).append("= :afterStart");
+            } else {
+                sql.append(" AND start_date ").append(strict).append(" :afterStart");
+            }
+        }
+        return sql.append(" ORDER BY start_date ").append(direction).append(", id ").append(direction)
+                .append(" LIMIT :limit").toString();
+    }
+
+    private static MapSqlParameterSource parameters(Long owner, Position after, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("owner", owner).addValue("limit", limit);
+        if (after != null) {
+            parameters.addValue("afterStart", after.startDate()).addValue("afterId", after.id());
+        }
+        return parameters;
+    }
+
+    private static RowMapper<Row> mapper(Source source) {
+        return (resultSet, rowNum) -> new Row(new TimelineEntry(
+                source.type(),
+                resultSet.getLong("id"),
+                resultSet.getObject("start_date", LocalDateTime.class),
+                resultSet.getObject("end_date", LocalDateTime.class),
+                resultSet.getString("status"),
+                resultSet.getBigDecimal("cost"),
+                resultSet.getObject("car_id", Long.class),
+                resultSet.getObject("customer_id", Long.class),
+                resultSet.getObject("employee_id", Long.class),
+                resultSet.getString("description")), source.rank());
+    }
+
+    private static String encode(boolean ascending, Row last) {
+        String raw = String.join(SEPARATOR,
+                ascending ? "asc" : "desc",
+                last.entry().startDate().toString(),
+                Integer.toString(last.rank()),
+                Long.toString(last.entry().id()));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        if (parts.length != 4 || !(parts[0].equals("asc") || parts[0].equals("desc"))) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        try {
+            return new Position(parts[0].equals("asc"), LocalDateTime.parse(parts[1]),
+                    Integer.parseInt(parts[2]), Long.parseLong(parts[3]));
+        } catch (RuntimeException ex) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package org.carrent.coursework.service;
 
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.carrent.coursework.cache.NegativeLookupCache;
+import org.carrent.coursework.dto.CursorPage;
 import org.carrent.coursework.dto.CarCreationDto;
 import org.carrent.coursework.dto.CarDto;
 import org.carrent.coursework.dto.UserCreationDto;
@@ -14,11 +16,14 @@ import org.carrent.coursework.exception.CarNotFoundException;
 import org.carrent.coursework.exception.UserAlreadyExistsException;
 import org.carrent.coursework.exception.UserNotFoundException;
 import org.carrent.coursework.enums.Role;
+import org.carrent.coursework.filter.FilterDefinition;
+import org.carrent.coursework.filter.FilterEngine;
+import org.carrent.coursework.filter.Filters;
+import org.carrent.coursework.pagination.KeysetPager;
 import org.carrent.coursework.mapper.UserMapper;
 import org.carrent.coursework.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
@@ -26,49 +31,71 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Set;
 
 @AllArgsConstructor
 @Service
-@Transactional
-@CacheConfig(cacheResolver = "multiLevelCacheResolver")
+@Transactional(readOnly = true)
 public class UserService {
     private UserRepository userRepository;
+    private NegativeLookupCache negativeLookupCache;
+    private CacheInvalidator cacheInvalidator;
+    private KeysetPager keysetPager;
+    private FilterEngine filterEngine;
     private UserMapper userMapper;
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
+    // id and role are matched as text, as substrings like the other fields
+    private static final FilterDefinition<User> FILTERS = FilterDefinition.builder(User.class, "u")
+            .where("u.deleted = false")
+            .condition("id", (alias, value, parameters) ->
+                    "cast(" + alias + ".id as String) LIKE " + parameters.bind(filters -> "%" + filters.get("id") + "%"))
+            .condition("role", (alias, value, parameters) ->
+                    "lower(cast(" + alias + ".role as String)) LIKE " + parameters.bind(filters ->
+                            "%" + filters.get("role").toString().toLowerCase(Locale.ROOT) + "%"))
+            .contains("username", "username")
+            .build();
 
+    // Basic attributes leading an index of users (username); id is always sortable
+    private static final Set<String> SCROLL_SORTS = Set.of("username");
 
+
+
+    @Cacheable(value = "users", key = "#id", sync = true)
     public UserDto getById(Long id) {
         logger.info("Fetching user by ID: {}", id);
+        if (negativeLookupCache.isKnownMissing(User.class, id)) {
+            logger.debug("User with ID: {} is known to be missing", id);
+            throw new UserNotFoundException("User not found");
+        }
         User user = userRepository.findById(id)
                 .orElseThrow(() -> {
                     logger.error("User not found with ID: {}", id);
-                    return new UserNotFoundException("Car not found");
+                    negativeLookupCache.markMissing(User.class, id);
+                    return new UserNotFoundException("User not found");
                 });
         logger.info("User with ID: {} successfully fetched", id);
         return userMapper.toDto(user);
     }
 
+    @Cacheable(value = "users", key = "{#root.methodName, #pageable}", sync = true)
     public Page<UserDto> getAll(Pageable pageable) {
         logger.info("Fetching all users with pagination: {}", pageable);
-        return userRepository.findAll(pageable)
-                .map(userMapper::toDto);
+        return userRepository.findAllDtos(pageable);
     }
 
 
+    @Cacheable(value = "users", key = "{#root.methodName, #pageable}", sync = true)
     public Page<UserDto> getAllAvailable(Pageable pageable) {
         logger.info("Fetching all available users with pagination: {}", pageable);
-        Page<User> users = userRepository.findAll(pageable);
-        logger.info("Fetched {} users for filtering available ones", users.getTotalElements());
-        return users.stream()
-                .filter(user -> !user.isDeleted())
-                .map(userMapper::toDto)
-                .collect(Collectors.collectingAndThen(Collectors.toList(),
-                        list -> new PageImpl<>(list, pageable, users.getTotalElements())));
+        Page<UserDto> users = userRepository.findAvailableDtos(pageable);
+        logger.info("Fetched {} available users", users.getTotalElements());
+        return users;
     }
 
 
@@ -83,6 +110,8 @@ public class UserService {
             throw new UserAlreadyExistsException("User with username " + userCreationDto.username() + " already exists");
         }
         User savedUser = userRepository.save(user);
+        negativeLookupCache.forget(User.class, savedUser.getId());
+        cacheInvalidator.invalidate(CacheInvalidator.USERS);
 
         logger.info("User with username: {} created successfully", userCreationDto.username());
         return userMapper.toDto(savedUser);
@@ -96,6 +125,7 @@ public class UserService {
         logger.info("User found: {}", user);
         userMapper.partialUpdate(userDto, user);
         User updatedUser = userRepository.save(user);
+        cacheInvalidator.invalidate(CacheInvalidator.USERS);
         logger.info("User with ID: {} successfully updated", id);
         return userMapper.toDto(updatedUser);
     }
@@ -112,10 +142,12 @@ public class UserService {
     }
 
     @Deprecated
+    @Transactional
     public void getAdmin() {
         var user = getCurrentUser();
         user.setRole(Role.ROLE_ADMIN);
         userRepository.save(user);
+        cacheInvalidator.invalidate(CacheInvalidator.USERS);
     }
 
 
@@ -127,26 +159,18 @@ public class UserService {
         logger.info("Fetching sorted users by {} in {} order", sortBy, order);
         Sort sort = order.equalsIgnoreCase("asc") ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
-        Page<User> usersPage = userRepository.findAll(sortedPageable);
+        Page<UserDto> usersPage = userRepository.findAllDtos(sortedPageable);
         logger.info("Fetched {} users", usersPage.getTotalElements());
-        return usersPage.map(userMapper::toDto);
+        return usersPage;
     }
 
 
-    @Transactional
     public Page<UserDto> getFilteredUsers(Long id, String role, Pageable pageable) {
-        Specification<User> specification = Specification.where(null);
-
-        if (id != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(root.get("id"), "%" + id + "%"));
-        }
-        if(role != null) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("role")), "%" + role.toLowerCase() + "%"));
-        }
+        Filters filters = Filters.create()
+                .with("id", id)
+                .with("role", role);
 
-        Page<User> users = userRepository.findAll(specification, pageable);
+        Page<User> users = filterEngine.find(FILTERS, filters, pageable);
         return users.map(userMapper::toDto);
     }
 
@@ -157,6 +181,7 @@ public class UserService {
                 .orElseThrow(() -> new UserNotFoundException("User with ID: " + id + " not found"));
         user.setDeleted(true);
         userRepository.save(user);
+        cacheInvalidator.invalidate(CacheInvalidator.USERS);
         logger.info("User with ID: {} marked as deleted", id);
         return "User with ID " + id + " has been deleted.";
     }
@@ -164,15 +189,14 @@ public class UserService {
     public Page<UserDto> getFilteredUsers(String username, Pageable pageable) {
         logger.info("Fetching filtered users with parameters: username={}", username);
 
-        Specification<User> specification = Specification.where(null);
-
-        if (username != null && !username.isEmpty()) {
-            specification = specification.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("username")), "%" + username.toLowerCase() + "%"));
-        }
-        Page<User> users = userRepository.findAll(specification, pageable);
+        Page<User> users = filterEngine.find(FILTERS, Filters.create().with("username", username), pageable);
         logger.info("Fetched {} users with applied filters", users.getTotalElements());
 
         return users.map(userMapper::toDto);
     }
+
+    public CursorPage<UserDto> scroll(String cursor, int size, String sortBy, String order) {
+        logger.info("Scrolling users by {} {} from cursor: {}", sortBy, order, cursor);
+        return keysetPager.scroll(userRepository, User.class, SCROLL_SORTS, Specification.where(null), cursor, size, sortBy, order, userMapper::toDto);
+    }
 }
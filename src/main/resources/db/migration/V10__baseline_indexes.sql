@@ -0,0 +1,36 @@
+-- Databases whose schema was generated by Hibernate (ddl-auto=create) before Flyway took over are
+-- baselined at version 1 (spring.flyway.baseline-on-migrate), so V1 never runs on them: V1_1
+-- gives their tables the version column they lack, and the V1 indexes they lack are created here;
+-- on a database built by V1 every statement is a no-op. Duplicate usernames have to be resolved before the unique
+-- index can be built.
+
+-- cars: duplicate check on create (existsByLicensePlateAndDeletedIsFalse) and the available listing
+CREATE INDEX IF NOT EXISTS idx_cars_license_plate_live ON cars (license_plate) WHERE deleted = FALSE;
+CREATE INDEX IF NOT EXISTS idx_cars_live_id ON cars (id) WHERE deleted = FALSE;
+
+-- customers: duplicate check on create (existsByLicenseNumber)
+CREATE INDEX IF NOT EXISTS idx_customers_license_number ON customers (license_number);
+CREATE INDEX IF NOT EXISTS idx_customers_live_id ON customers (id) WHERE deleted = FALSE;
+
+-- employees: duplicate check on create (existsByPositionAndEmailOrPositionAndPhoneNumber)
+CREATE INDEX IF NOT EXISTS idx_employees_position_email ON employees (position, email);
+CREATE INDEX IF NOT EXISTS idx_employees_position_phone_number ON employees (position, phone_number);
+CREATE INDEX IF NOT EXISTS idx_employees_live_id ON employees (id) WHERE deleted = FALSE;
+
+-- orders: overlap check by car and status, active-order lookup by car and the date sweeps
+CREATE INDEX IF NOT EXISTS idx_orders_car_status_dates ON orders (car_id, status, start_date, end_date);
+CREATE INDEX IF NOT EXISTS idx_orders_car_start_date ON orders (car_id, start_date);
+CREATE INDEX IF NOT EXISTS idx_orders_live_dates ON orders (start_date, end_date) WHERE deleted = FALSE;
+CREATE INDEX IF NOT EXISTS idx_orders_customer_id ON orders (customer_id);
+CREATE INDEX IF NOT EXISTS idx_orders_employee_id ON orders (employee_id);
+CREATE INDEX IF NOT EXISTS idx_orders_live_id ON orders (id) WHERE deleted = FALSE;
+
+-- services: active-service lookup by car (findFirstByCar_IdAndEndDateGreaterThanEqual) and the overlap check
+CREATE INDEX IF NOT EXISTS idx_services_car_end_date ON services (car_id, end_date);
+CREATE INDEX IF NOT EXISTS idx_services_car_status_dates ON services (car_id, status, start_date, end_date);
+CREATE INDEX IF NOT EXISTS idx_services_employee_id ON services (employee_id);
+CREATE INDEX IF NOT EXISTS idx_services_live_id ON services (id) WHERE deleted = FALSE;
+
+-- users: login lookup (findByUsername) and registration check
+CREATE UNIQUE INDEX IF NOT EXISTS uq_users_username ON users (username);
+CREATE INDEX IF NOT EXISTS idx_users_live_id ON users (id) WHERE deleted = FALSE;
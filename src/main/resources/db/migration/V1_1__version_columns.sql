@@ -0,0 +1,11 @@
+-- Databases whose schema was generated by Hibernate (ddl-auto=create) before Flyway took over are
+-- baselined at version 1, so V1 never runs on them, and their tables predate the optimistic-locking
+-- version column that V4 and the entities rely on. It is added here, with existing rows starting
+-- at 0; on a database built by V1 every statement is a no-op.
+
+ALTER TABLE cars ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE customers ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE employees ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE services ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
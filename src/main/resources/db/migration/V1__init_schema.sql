@@ -0,0 +1,120 @@
+-- Initial schema, matching the JPA mappings (validated on startup with ddl-auto=validate)
+
+CREATE TABLE cars (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    deleted       BOOLEAN      NOT NULL DEFAULT FALSE,
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    version       BIGINT,
+    brand         VARCHAR(255),
+    model         VARCHAR(255),
+    year          INTEGER      NOT NULL,
+    license_plate VARCHAR(255),
+    status        VARCHAR(255) CHECK (status IN ('AVAILABLE', 'RENTED', 'IN_SERVICE')),
+    mileage       BIGINT,
+    price         NUMERIC(38, 2)
+);
+
+CREATE TABLE customers (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    deleted        BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at     TIMESTAMP(6),
+    updated_at     TIMESTAMP(6),
+    version        BIGINT,
+    last_name      VARCHAR(255),
+    first_name     VARCHAR(255),
+    middle_name    VARCHAR(255),
+    date_of_birth  TIMESTAMP(6),
+    email          VARCHAR(255),
+    phone_number   VARCHAR(255),
+    address        VARCHAR(255),
+    license_number VARCHAR(255)
+);
+
+CREATE TABLE employees (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    deleted       BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    version       BIGINT,
+    last_name     VARCHAR(255),
+    first_name    VARCHAR(255),
+    middle_name   VARCHAR(255),
+    date_of_birth TIMESTAMP(6),
+    email         VARCHAR(255),
+    phone_number  VARCHAR(255),
+    address       VARCHAR(255),
+    position      VARCHAR(255) CHECK (position IN ('MANAGER', 'TECHNICIAN', 'SALES_REPRESENTATIVE', 'ADMINISTRATOR'))
+);
+
+CREATE TABLE orders (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    deleted     BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at  TIMESTAMP(6),
+    updated_at  TIMESTAMP(6),
+    version     BIGINT,
+    car_id      BIGINT REFERENCES cars (id),
+    customer_id BIGINT REFERENCES customers (id),
+    employee_id BIGINT REFERENCES employees (id),
+    start_date  TIMESTAMP(6),
+    end_date    TIMESTAMP(6),
+    status      VARCHAR(255) CHECK (status IN ('RESERVED', 'ACTIVE', 'COMPLETED', 'CANCELED')),
+    cost        NUMERIC(38, 2)
+);
+
+CREATE TABLE services (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    deleted     BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at  TIMESTAMP(6),
+    updated_at  TIMESTAMP(6),
+    version     BIGINT,
+    car_id      BIGINT REFERENCES cars (id),
+    employee_id BIGINT REFERENCES employees (id),
+    start_date  TIMESTAMP(6),
+    end_date    TIMESTAMP(6),
+    description VARCHAR(255),
+    cost        NUMERIC(38, 2),
+    status      VARCHAR(255) CHECK (status IN ('RESERVED', 'ACTIVE', 'COMPLETED', 'CANCELED'))
+);
+
+CREATE TABLE users (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    deleted    BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    version    BIGINT,
+    username   VARCHAR(255),
+    password   VARCHAR(255),
+    role       VARCHAR(255) CHECK (role IN ('ROLE_ADMIN', 'ROLE_USER'))
+);
+
+-- cars: duplicate check on create (existsByLicensePlateAndDeletedIsFalse) and the available listing
+CREATE INDEX idx_cars_license_plate_live ON cars (license_plate) WHERE deleted = FALSE;
+CREATE INDEX idx_cars_live_id ON cars (id) WHERE deleted = FALSE;
+
+-- customers: duplicate check on create (existsByLicenseNumber)
+CREATE INDEX idx_customers_license_number ON customers (license_number);
+CREATE INDEX idx_customers_live_id ON customers (id) WHERE deleted = FALSE;
+
+-- employees: duplicate check on create (existsByPositionAndEmailOrPositionAndPhoneNumber)
+CREATE INDEX idx_employees_position_email ON employees (position, email);
+CREATE INDEX idx_employees_position_phone_number ON employees (position, phone_number);
+CREATE INDEX idx_employees_live_id ON employees (id) WHERE deleted = FALSE;
+
+-- orders: overlap check by car and status, active-order lookup by car and the date sweeps
+CREATE INDEX idx_orders_car_status_dates ON orders (car_id, status, start_date, end_date);
+CREATE INDEX idx_orders_car_start_date ON orders (car_id, start_date);
+CREATE INDEX idx_orders_live_dates ON orders (start_date, end_date) WHERE deleted = FALSE;
+CREATE INDEX idx_orders_customer_id ON orders (customer_id);
+CREATE INDEX idx_orders_employee_id ON orders (employee_id);
+CREATE INDEX idx_orders_live_id ON orders (id) WHERE deleted = FALSE;
+
+-- services: active-service lookup by car (findFirstByCar_IdAndEndDateGreaterThanEqual) and the overlap check
+CREATE INDEX idx_services_car_end_date ON services (car_id, end_date);
+CREATE INDEX idx_services_car_status_dates ON services (car_id, status, start_date, end_date);
+CREATE INDEX idx_services_employee_id ON services (employee_id);
+CREATE INDEX idx_services_live_id ON services (id) WHERE deleted = FALSE;
+
+-- users: login lookup (findByUsername) and registration check
+CREATE UNIQUE INDEX uq_users_username ON users (username);
+CREATE INDEX idx_users_live_id ON users (id) WHERE deleted = FALSE;
@@ -0,0 +1,23 @@
+-- Switch ids from IDENTITY columns to per-entity sequences so Hibernate can batch inserts.
+-- INCREMENT BY matches the default allocationSize (50) used by the pooled-lo optimizer.
+
+CREATE SEQUENCE car_seq INCREMENT BY 50;
+CREATE SEQUENCE customer_seq INCREMENT BY 50;
+CREATE SEQUENCE employee_seq INCREMENT BY 50;
+CREATE SEQUENCE order_seq INCREMENT BY 50;
+CREATE SEQUENCE service_of_car_seq INCREMENT BY 50;
+CREATE SEQUENCE user_seq INCREMENT BY 50;
+
+SELECT setval('car_seq', COALESCE((SELECT MAX(id) FROM cars), 0) + 1, false);
+SELECT setval('customer_seq', COALESCE((SELECT MAX(id) FROM customers), 0) + 1, false);
+SELECT setval('employee_seq', COALESCE((SELECT MAX(id) FROM employees), 0) + 1, false);
+SELECT setval('order_seq', COALESCE((SELECT MAX(id) FROM orders), 0) + 1, false);
+SELECT setval('service_of_car_seq', COALESCE((SELECT MAX(id) FROM services), 0) + 1, false);
+SELECT setval('user_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 1, false);
+
+ALTER TABLE cars ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE customers ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE employees ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE orders ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE services ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
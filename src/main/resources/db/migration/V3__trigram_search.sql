@@ -0,0 +1,21 @@
+-- Trigram GIN indexes for substring and fuzzy search. They are built on lower(column) so both the
+-- lower(col) LIKE '%x%' filters and the similarity search (%) in SearchService can use them.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_customers_last_name_trgm ON customers USING gin (lower(last_name) gin_trgm_ops);
+CREATE INDEX idx_customers_first_name_trgm ON customers USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX idx_customers_middle_name_trgm ON customers USING gin (lower(middle_name) gin_trgm_ops);
+CREATE INDEX idx_customers_email_trgm ON customers USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX idx_customers_phone_number_trgm ON customers USING gin (lower(phone_number) gin_trgm_ops);
+CREATE INDEX idx_customers_license_number_trgm ON customers USING gin (lower(license_number) gin_trgm_ops);
+
+CREATE INDEX idx_employees_last_name_trgm ON employees USING gin (lower(last_name) gin_trgm_ops);
+CREATE INDEX idx_employees_first_name_trgm ON employees USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX idx_employees_middle_name_trgm ON employees USING gin (lower(middle_name) gin_trgm_ops);
+CREATE INDEX idx_employees_email_trgm ON employees USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX idx_employees_phone_number_trgm ON employees USING gin (lower(phone_number) gin_trgm_ops);
+
+CREATE INDEX idx_cars_brand_trgm ON cars USING gin (lower(brand) gin_trgm_ops);
+CREATE INDEX idx_cars_model_trgm ON cars USING gin (lower(model) gin_trgm_ops);
+CREATE INDEX idx_cars_license_plate_trgm ON cars USING gin (lower(license_plate) gin_trgm_ops);
@@ -0,0 +1,48 @@
+-- Denormalized read model behind the order list and filter endpoints. One row per order with the
+-- car, customer and employee columns the lists show, kept in step by OrderViewProjector in the
+-- transaction of every write. The status is the stored one; the effective status is derived from
+-- the dates when the row is read.
+
+CREATE TABLE order_view (
+    order_id          BIGINT PRIMARY KEY REFERENCES orders (id),
+    deleted           BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at        TIMESTAMP(6),
+    updated_at        TIMESTAMP(6),
+    version           BIGINT,
+    car_id            BIGINT,
+    car_brand         VARCHAR(255),
+    car_model         VARCHAR(255),
+    car_license_plate VARCHAR(255),
+    customer_id       BIGINT,
+    customer_name     VARCHAR(767),
+    employee_id       BIGINT,
+    employee_name     VARCHAR(767),
+    start_date        TIMESTAMP(6),
+    end_date          TIMESTAMP(6),
+    status            VARCHAR(255),
+    cost              NUMERIC(38, 2),
+    revision          BIGINT  NOT NULL DEFAULT 0
+);
+
+INSERT INTO order_view (order_id, deleted, created_at, updated_at, version,
+                        car_id, car_brand, car_model, car_license_plate,
+                        customer_id, customer_name, employee_id, employee_name,
+                        start_date, end_date, status, cost)
+SELECT o.id, o.deleted, o.created_at, o.updated_at, o.version,
+       c.id, c.brand, c.model, c.license_plate,
+       cu.id, concat_ws(' ', cu.last_name, cu.first_name, cu.middle_name),
+       e.id, concat_ws(' ', e.last_name, e.first_name, e.middle_name),
+       o.start_date, o.end_date, o.status, o.cost
+FROM orders o
+         LEFT JOIN cars c ON c.id = o.car_id
+         LEFT JOIN customers cu ON cu.id = o.customer_id
+         LEFT JOIN employees e ON e.id = o.employee_id;
+
+-- The effective status is a range predicate on the dates plus the stored status, so every filter
+-- index carries the dates and status for the status check to run on the index entries.
+CREATE INDEX idx_order_view_start_date ON order_view (start_date, order_id) INCLUDE (end_date, status) WHERE NOT deleted;
+CREATE INDEX idx_order_view_end_date ON order_view (end_date, order_id) INCLUDE (start_date, status) WHERE NOT deleted;
+CREATE INDEX idx_order_view_car ON order_view (car_id, start_date) INCLUDE (end_date, status) WHERE NOT deleted;
+CREATE INDEX idx_order_view_customer ON order_view (customer_id, start_date) INCLUDE (end_date, status) WHERE NOT deleted;
+CREATE INDEX idx_order_view_employee ON order_view (employee_id, start_date) INCLUDE (end_date, status) WHERE NOT deleted;
+CREATE INDEX idx_order_view_status ON order_view (status, start_date) INCLUDE (end_date) WHERE NOT deleted;
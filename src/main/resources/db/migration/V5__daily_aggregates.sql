@@ -0,0 +1,34 @@
+-- Daily roll-ups behind the report endpoints. Every row holds one day of one dimension: the whole
+-- fleet (key_id 0), a car, a customer or an employee. DailyAggregator keeps them up to date with
+-- increments as orders and services change, so a report reads one row per day instead of the orders.
+
+CREATE TABLE daily_aggregates (
+    dimension       VARCHAR(16)    NOT NULL,
+    key_id          BIGINT         NOT NULL,
+    day             DATE           NOT NULL,
+    orders_count    BIGINT         NOT NULL DEFAULT 0,
+    revenue         NUMERIC(38, 2) NOT NULL DEFAULT 0,
+    rented_seconds  BIGINT         NOT NULL DEFAULT 0,
+    service_count   BIGINT         NOT NULL DEFAULT 0,
+    service_cost    NUMERIC(38, 2) NOT NULL DEFAULT 0,
+    service_seconds BIGINT         NOT NULL DEFAULT 0,
+    PRIMARY KEY (dimension, key_id, day)
+);
+
+-- What each order and service currently contributes to daily_aggregates. A change subtracts the
+-- recorded contribution and adds the new one, which makes every refresh idempotent.
+CREATE TABLE aggregate_sources (
+    source_type VARCHAR(16) NOT NULL,
+    source_id   BIGINT      NOT NULL,
+    counted     BOOLEAN     NOT NULL DEFAULT FALSE,
+    car_id      BIGINT,
+    customer_id BIGINT,
+    employee_id BIGINT,
+    start_date  TIMESTAMP(6),
+    end_date    TIMESTAMP(6),
+    cost        NUMERIC(38, 2),
+    PRIMARY KEY (source_type, source_id)
+);
+
+-- Reports over all keys of a dimension scan by day
+CREATE INDEX idx_daily_aggregates_day ON daily_aggregates (dimension, day);
@@ -0,0 +1,37 @@
+-- Materialized views behind the fleet dashboard. DashboardService refreshes them CONCURRENTLY,
+-- which needs a unique index on each view but does not block readers during the refresh.
+
+CREATE MATERIALIZED VIEW dashboard_car_status AS
+SELECT c.status, count(*) AS cars
+FROM cars c
+WHERE NOT c.deleted AND c.status IS NOT NULL
+GROUP BY c.status;
+
+CREATE UNIQUE INDEX idx_dashboard_car_status ON dashboard_car_status (status);
+
+-- Same rule as OrderViewSpecifications: canceled and completed orders keep their status, the dates
+-- decide for the others, evaluated at refresh time
+CREATE MATERIALIZED VIEW dashboard_order_status AS
+SELECT s.status, count(*) AS orders
+FROM (SELECT CASE
+                 WHEN o.status IN ('CANCELED', 'COMPLETED') THEN o.status
+                 WHEN o.end_date < LOCALTIMESTAMP THEN 'COMPLETED'
+                 WHEN o.start_date > LOCALTIMESTAMP THEN 'RESERVED'
+                 ELSE 'ACTIVE'
+             END AS status
+      FROM orders o
+      WHERE NOT o.deleted) s
+GROUP BY s.status;
+
+CREATE UNIQUE INDEX idx_dashboard_order_status ON dashboard_order_status (status);
+
+CREATE MATERIALIZED VIEW dashboard_upcoming_services AS
+SELECT CAST(s.start_date AS DATE) AS day, count(*) AS services
+FROM services s
+WHERE NOT s.deleted
+  AND s.status IS DISTINCT FROM 'CANCELED'
+  AND s.start_date >= CURRENT_DATE
+  AND s.start_date < CURRENT_DATE + 7
+GROUP BY 1;
+
+CREATE UNIQUE INDEX idx_dashboard_upcoming_services ON dashboard_upcoming_services (day);
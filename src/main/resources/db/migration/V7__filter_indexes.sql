@@ -0,0 +1,16 @@
+-- Composite indexes behind the range filters and sorts of the filter endpoints. The FilterDefinition
+-- of each entity lists the indexes it may use; keep both in step. The trailing id serves the
+-- tie-breaker the filter engine appends to every sort.
+
+CREATE INDEX idx_cars_live_price ON cars (price, id) WHERE deleted = FALSE;
+CREATE INDEX idx_cars_live_year ON cars (year, id) WHERE deleted = FALSE;
+CREATE INDEX idx_cars_live_mileage ON cars (mileage, id) WHERE deleted = FALSE;
+CREATE INDEX idx_cars_live_status_price ON cars (status, price, id) WHERE deleted = FALSE;
+CREATE INDEX idx_cars_live_status_year ON cars (status, year, id) WHERE deleted = FALSE;
+
+CREATE INDEX idx_order_view_cost ON order_view (cost, order_id) WHERE NOT deleted;
+
+CREATE INDEX idx_services_live_start_date ON services (start_date, id) WHERE deleted = FALSE;
+CREATE INDEX idx_services_live_end_date ON services (end_date, id) WHERE deleted = FALSE;
+CREATE INDEX idx_services_live_cost ON services (cost, id) WHERE deleted = FALSE;
+CREATE INDEX idx_services_live_employee_start_date ON services (employee_id, start_date) WHERE deleted = FALSE;
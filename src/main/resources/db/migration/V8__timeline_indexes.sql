@@ -0,0 +1,6 @@
+-- Index-ordered cursors for the car timeline and the customer order history: every source of a
+-- timeline is read as one range scan in (start_date, id) order, which the merge relies on.
+
+CREATE INDEX idx_orders_live_car_start_date ON orders (car_id, start_date, id) WHERE deleted = FALSE;
+CREATE INDEX idx_orders_live_customer_start_date ON orders (customer_id, start_date, id) WHERE deleted = FALSE;
+CREATE INDEX idx_services_live_car_start_date ON services (car_id, start_date, id) WHERE deleted = FALSE;
@@ -0,0 +1,65 @@
+-- Cold storage for orders and services completed long ago. Archiver moves the rows here in
+-- chunks and keeps their ids, which come from the hot tables' sequences (order_seq and
+-- service_of_car_seq since V2), so an id stays unique across a hot table and its archive.
+
+CREATE TABLE orders_archive (
+    id          BIGINT PRIMARY KEY,
+    deleted     BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at  TIMESTAMP(6),
+    updated_at  TIMESTAMP(6),
+    version     BIGINT,
+    car_id      BIGINT,
+    customer_id BIGINT,
+    employee_id BIGINT,
+    start_date  TIMESTAMP(6),
+    end_date    TIMESTAMP(6),
+    status      VARCHAR(255),
+    cost        NUMERIC(38, 2),
+    archived_at TIMESTAMP(6) NOT NULL DEFAULT LOCALTIMESTAMP
+);
+
+CREATE TABLE services_archive (
+    id          BIGINT PRIMARY KEY,
+    deleted     BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at  TIMESTAMP(6),
+    updated_at  TIMESTAMP(6),
+    version     BIGINT,
+    car_id      BIGINT,
+    employee_id BIGINT,
+    start_date  TIMESTAMP(6),
+    end_date    TIMESTAMP(6),
+    description VARCHAR(255),
+    cost        NUMERIC(38, 2),
+    status      VARCHAR(255),
+    archived_at TIMESTAMP(6) NOT NULL DEFAULT LOCALTIMESTAMP
+);
+
+-- Same cursors as V8, so a timeline merges the archive like any other source
+CREATE INDEX idx_orders_archive_car_start_date ON orders_archive (car_id, start_date, id) WHERE deleted = FALSE;
+CREATE INDEX idx_orders_archive_customer_start_date ON orders_archive (customer_id, start_date, id) WHERE deleted = FALSE;
+CREATE INDEX idx_services_archive_car_start_date ON services_archive (car_id, start_date, id) WHERE deleted = FALSE;
+
+-- The archiver walks the candidates in (end_date, id) order
+CREATE INDEX idx_orders_archivable ON orders (end_date, id) WHERE status = 'COMPLETED';
+CREATE INDEX idx_services_archivable ON services (end_date, id) WHERE status = 'COMPLETED';
+
+-- Archived orders still count as completed on the dashboard
+DROP MATERIALIZED VIEW dashboard_order_status;
+
+CREATE MATERIALIZED VIEW dashboard_order_status AS
+SELECT s.status, count(*) AS orders
+FROM (SELECT CASE
+                 WHEN o.status IN ('CANCELED', 'COMPLETED') THEN o.status
+                 WHEN o.end_date < LOCALTIMESTAMP THEN 'COMPLETED'
+                 WHEN o.start_date > LOCALTIMESTAMP THEN 'RESERVED'
+                 ELSE 'ACTIVE'
+             END AS status
+      FROM orders o
+      WHERE NOT o.deleted
+      UNION ALL
+      SELECT a.status
+      FROM orders_archive a
+      WHERE NOT a.deleted) s
+GROUP BY s.status;
+
+CREATE UNIQUE INDEX idx_dashboard_order_status ON dashboard_order_status (status);
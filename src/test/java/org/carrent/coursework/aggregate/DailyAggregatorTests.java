@@ -0,0 +1,135 @@
+package org.carrent.coursework.aggregate;
+
+import org.carrent.coursework.aggregate.DailyAggregator.Delta;
+import org.carrent.coursework.aggregate.DailyAggregator.Key;
+import org.carrent.coursework.aggregate.DailyAggregator.Source;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.carrent.coursework.aggregate.DailyAggregator.CAR;
+import static org.carrent.coursework.aggregate.DailyAggregator.CUSTOMER;
+import static org.carrent.coursework.aggregate.DailyAggregator.EMPLOYEE;
+import static org.carrent.coursework.aggregate.DailyAggregator.FLEET;
+import static org.carrent.coursework.aggregate.DailyAggregator.FLEET_KEY;
+import static org.carrent.coursework.aggregate.DailyAggregator.ORDERS;
+import static org.carrent.coursework.aggregate.DailyAggregator.SERVICES;
+
+/**
+ * The deltas a refresh writes: the recorded contribution of a row is taken back and the current one
+ * added, with the busy time split at midnight.
+ */
+class DailyAggregatorTests {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 9);
+
+    @Test
+    void orderCountsOnItsFirstDayAndSplitsItsRentedTimeAtMidnight() {
+        Source order = order(7L, DAY.atTime(22, 0), DAY.plusDays(2).atTime(1, 30), "120.00");
+
+        Map<Key, Delta> deltas = deltas(ORDERS, null, order);
+
+        for (Key key : new Key[]{fleet(DAY), new Key(CAR, 7, DAY), new Key(CUSTOMER, 3, DAY), new Key(EMPLOYEE, 5, DAY)}) {
+            assertThat(deltas.get(key).orders).as("%s", key).isEqualTo(1);
+            assertThat(deltas.get(key).revenue).as("%s", key).isEqualByComparingTo("120.00");
+        }
+        assertThat(deltas.get(fleet(DAY)).rentedSeconds).isEqualTo(2 * 3600);
+        assertThat(deltas.get(fleet(DAY.plusDays(1))).rentedSeconds).isEqualTo(24 * 3600);
+        assertThat(deltas.get(fleet(DAY.plusDays(2))).rentedSeconds).isEqualTo(90 * 60);
+        assertThat(deltas.get(new Key(CAR, 7, DAY.plusDays(1))).rentedSeconds).isEqualTo(24 * 3600);
+        assertThat(deltas.get(fleet(DAY.plusDays(1))).orders).isZero();
+        // Busy time is not tracked per customer or employee
+        assertThat(deltas).doesNotContainKey(new Key(CUSTOMER, 3, DAY.plusDays(1)));
+    }
+
+    @Test
+    void orderEndingAtMidnightDoesNotTouchTheNextDay() {
+        Source order = order(7L, DAY.atTime(12, 0), DAY.plusDays(1).atStartOfDay(), "50.00");
+
+        Map<Key, Delta> deltas = deltas(ORDERS, null, order);
+
+        assertThat(deltas.get(fleet(DAY)).rentedSeconds).isEqualTo(12 * 3600);
+        assertThat(deltas).doesNotContainKey(fleet(DAY.plusDays(1)));
+    }
+
+    @Test
+    void unchangedRowHasNoDelta() {
+        Source order = order(7L, DAY.atTime(22, 0), DAY.plusDays(2).atTime(1, 30), "120.00");
+
+        Map<Key, Delta> deltas = deltas(ORDERS, order, order);
+
+        assertThat(deltas.values()).allMatch(Delta::isZero);
+    }
+
+    @Test
+    void movingAnOrderToAnotherCarShiftsItsContribution() {
+        Source before = order(7L, DAY.atTime(10, 0), DAY.atTime(16, 0), "80.00");
+        Source after = order(8L, DAY.atTime(10, 0), DAY.atTime(18, 0), "100.00");
+
+        Map<Key, Delta> deltas = deltas(ORDERS, before, after);
+
+        Delta fleet = deltas.get(fleet(DAY));
+        assertThat(fleet.orders).isZero();
+        assertThat(fleet.revenue).isEqualByComparingTo("20.00");
+        assertThat(fleet.rentedSeconds).isEqualTo(2 * 3600);
+        Delta oldCar = deltas.get(new Key(CAR, 7, DAY));
+        assertThat(oldCar.orders).isEqualTo(-1);
+        assertThat(oldCar.revenue).isEqualByComparingTo("-80.00");
+        assertThat(oldCar.rentedSeconds).isEqualTo(-6 * 3600);
+        Delta newCar = deltas.get(new Key(CAR, 8, DAY));
+        assertThat(newCar.orders).isEqualTo(1);
+        assertThat(newCar.revenue).isEqualByComparingTo("100.00");
+        assertThat(newCar.rentedSeconds).isEqualTo(8 * 3600);
+        assertThat(deltas.get(new Key(CUSTOMER, 3, DAY)).orders).isZero();
+        assertThat(deltas.get(new Key(CUSTOMER, 3, DAY)).revenue).isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    void canceledOrderTakesBackItsWholeContribution() {
+        Source before = order(7L, DAY.atTime(22, 0), DAY.plusDays(1).atTime(2, 0), "60.00");
+
+        Map<Key, Delta> deltas = deltas(ORDERS, before, Source.NOT_COUNTED);
+
+        assertThat(deltas.get(fleet(DAY)).orders).isEqualTo(-1);
+        assertThat(deltas.get(fleet(DAY)).revenue).isEqualByComparingTo("-60.00");
+        assertThat(deltas.get(fleet(DAY)).rentedSeconds).isEqualTo(-2 * 3600);
+        assertThat(deltas.get(fleet(DAY.plusDays(1))).rentedSeconds).isEqualTo(-2 * 3600);
+    }
+
+    @Test
+    void serviceCountsForTheFleetAndTheCarOnly() {
+        Source service = new Source(true, 7L, null, 5L, DAY.atTime(23, 0), DAY.plusDays(1).atTime(1, 0), new BigDecimal("40.00"));
+
+        Map<Key, Delta> deltas = deltas(SERVICES, null, service);
+
+        assertThat(deltas.keySet()).extracting(Key::dimension).containsOnly(FLEET, CAR);
+        Delta car = deltas.get(new Key(CAR, 7, DAY));
+        assertThat(car.serviceCount).isEqualTo(1);
+        assertThat(car.serviceCost).isEqualByComparingTo("40.00");
+        assertThat(car.serviceSeconds).isEqualTo(3600);
+        assertThat(car.orders).isZero();
+        assertThat(deltas.get(new Key(CAR, 7, DAY.plusDays(1))).serviceSeconds).isEqualTo(3600);
+    }
+
+    private static Map<Key, Delta> deltas(String sourceType, Source before, Source after) {
+        Map<Key, Delta> deltas = new TreeMap<>(Key.ORDER);
+        if (before != null) {
+            DailyAggregator.contribute(sourceType, before, -1, deltas);
+        }
+        DailyAggregator.contribute(sourceType, after, 1, deltas);
+        return deltas;
+    }
+
+    private static Source order(Long carId, LocalDateTime start, LocalDateTime end, String cost) {
+        return new Source(true, carId, 3L, 5L, start, end, new BigDecimal(cost));
+    }
+
+    private static Key fleet(LocalDate day) {
+        return new Key(FLEET, FLEET_KEY, day);
+    }
+}
@@ -0,0 +1,85 @@
+package org.carrent.coursework.archive;
+
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The archiver walks the candidates in (end_date, id) chunks; with chunks of two, rows sharing an end
+ * date straddle the chunk boundaries. The chunks join the test transaction, which rolls back.
+ */
+@SpringBootTest(properties = {"archive.chunk-size=2", "archive.cron=-"})
+class ArchiverTests {
+
+    private static final LocalDateTime LONG_AGO = LocalDateTime.of(2001, 5, 1, 12, 0);
+
+    @Autowired
+    private Archiver archiver;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @SpyBean
+    private CacheInvalidator cacheInvalidator;
+
+    @Test
+    void movesEveryOldCompletedRowAcrossChunksAndEvictsTheCaches() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Long> oldOrders = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                // Three of the five end at the same time
+                oldOrders.add(insert("orders", "order_seq", "COMPLETED", LONG_AGO.plusHours(Math.max(0, i - 2))));
+            }
+            Long recentOrder = insert("orders", "order_seq", "COMPLETED", LocalDateTime.now().minusDays(1));
+            Long oldActiveOrder = insert("orders", "order_seq", "ACTIVE", LONG_AGO);
+            List<Long> oldServices = List.of(
+                    insert("services", "service_of_car_seq", "COMPLETED", LONG_AGO),
+                    insert("services", "service_of_car_seq", "COMPLETED", LONG_AGO),
+                    insert("services", "service_of_car_seq", "COMPLETED", LONG_AGO));
+
+            archiver.archiveOnSchedule();
+
+            assertThat(archiver.getStatus().state()).isEqualTo("COMPLETED");
+            assertThat(ids("orders_archive", oldOrders)).containsExactlyInAnyOrderElementsOf(oldOrders);
+            assertThat(ids("orders", oldOrders)).isEmpty();
+            assertThat(ids("services_archive", oldServices)).containsExactlyInAnyOrderElementsOf(oldServices);
+            assertThat(ids("services", oldServices)).isEmpty();
+            assertThat(ids("orders", List.of(recentOrder, oldActiveOrder))).containsExactlyInAnyOrder(recentOrder, oldActiveOrder);
+            assertThat(archiver.getStatus().ordersArchived()).isGreaterThanOrEqualTo(oldOrders.size());
+
+            verify(cacheInvalidator).invalidate(CacheInvalidator.ORDERS);
+            verify(cacheInvalidator).invalidate(CacheInvalidator.SERVICES);
+            status.setRollbackOnly();
+        });
+    }
+
+    private Long insert(String table, String sequence, String status, LocalDateTime endDate) {
+        return jdbc.queryForObject("INSERT INTO " + table + " (id, start_date, end_date, status, cost) " +
+                        "VALUES (nextval('" + sequence + "'), :start, :end, :status, 10) RETURNING id",
+                new MapSqlParameterSource("start", endDate.minusDays(2))
+                        .addValue("end", endDate)
+                        .addValue("status", status),
+                Long.class);
+    }
+
+    private List<Long> ids(String table, List<Long> ids) {
+        return jdbc.queryForList("SELECT id FROM " + table + " WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), Long.class);
+    }
+}
@@ -0,0 +1,145 @@
+package org.carrent.coursework.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoalescingCaffeineCacheTests {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesRunTheLoaderOnce() throws Exception {
+        CoalescingCaffeineCache cache = cache(Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> cache.get("car-1", () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "loaded";
+            })));
+        }
+        awaitLoading(loads, 1);
+        // Give the other callers time to find the load in flight
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(cache.get("car-1", String.class)).isEqualTo("loaded");
+    }
+
+    @Test
+    void waiterLoadsItselfAfterTheTimeout() throws Exception {
+        CoalescingCaffeineCache cache = cache(Duration.ofMillis(50));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> slow = callers.submit(() -> cache.get("car-1", () -> {
+            loads.incrementAndGet();
+            release.await();
+            return "slow";
+        }));
+        awaitLoading(loads, 1);
+
+        String waited = cache.get("car-1", () -> {
+            loads.incrementAndGet();
+            return "direct";
+        });
+        release.countDown();
+
+        assertThat(waited).isEqualTo("direct");
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loaderFailureReachesTheWaiters() throws Exception {
+        CoalescingCaffeineCache cache = cache(Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        Future<String> owner = callers.submit(() -> cache.get("car-1", () -> {
+            loads.incrementAndGet();
+            release.await();
+            throw failure;
+        }));
+        awaitLoading(loads, 1);
+        Future<String> waiter = callers.submit(() -> cache.get("car-1", () -> {
+            loads.incrementAndGet();
+            return "unexpected";
+        }));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .cause()
+                .isInstanceOf(Cache.ValueRetrievalException.class)
+                .cause().isSameAs(failure);
+        assertThatThrownBy(() -> owner.get(5, TimeUnit.SECONDS))
+                .cause()
+                .isInstanceOf(Cache.ValueRetrievalException.class)
+                .cause().isSameAs(failure);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.get("car-1")).isNull();
+    }
+
+    @Test
+    void valueLoadedBetweenTheLookupAndTheClaimIsNotLoadedAgain() {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = Caffeine.newBuilder().build();
+        AtomicInteger lookups = new AtomicInteger();
+        // The first lookup misses as if it ran just before the owning load put its value
+        CoalescingCaffeineCache cache = new CoalescingCaffeineCache("cars", nativeCache, true,
+                Duration.ofSeconds(5), new SimpleMeterRegistry()) {
+            @Override
+            public ValueWrapper get(Object key) {
+                return lookups.getAndIncrement() == 0 ? null : super.get(key);
+            }
+        };
+        nativeCache.put("car-1", "loaded");
+
+        String value = cache.get("car-1", () -> {
+            throw new AssertionError("loaded again");
+        });
+
+        assertThat(value).isEqualTo("loaded");
+    }
+
+    private static CoalescingCaffeineCache cache(Duration waitTimeout) {
+        return new CoalescingCaffeineCache("cars", Caffeine.newBuilder().build(), true, waitTimeout, new SimpleMeterRegistry());
+    }
+
+    private static void awaitLoading(AtomicInteger loads, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loads.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(loads).hasValue(expected);
+    }
+}
@@ -0,0 +1,156 @@
+package org.carrent.coursework.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.carrent.coursework.dto.CarDto;
+import org.carrent.coursework.enums.CarStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A response cache hit against Jackson serializing the same {@code Page<CarDto>}, the work a hit
+ * saves on every cached GET. Run with -Dbenchmarks=true.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ResponseCacheFilterBenchmarkTests {
+
+    private static final int WARM_UP = 10_000;
+    private static final int ITERATIONS = 20_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    @Test
+    void cachedBytesAgainstSerialization() throws Exception {
+        Page<CarDto> page = page(50);
+        Cache<String, CachedResponse> responseCache = Caffeine.newBuilder().maximumSize(100).build();
+        ResponseCacheFilter filter = new ResponseCacheFilter(responseCache,
+                new CacheInvalidator(new ConcurrentMapCacheManager(), responseCache));
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "gzipMinSize", 1024);
+
+        // The first request goes through to the serializing chain and fills the cache
+        FilterChain serializing = (request, response) -> {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(objectMapper.writeValueAsBytes(page));
+        };
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(request(), first, serializing);
+        FilterChain unreachable = (request, response) -> {
+            throw new AssertionError("cache miss");
+        };
+        MockHttpServletResponse hit = new MockHttpServletResponse();
+        filter.doFilter(request(), hit, unreachable);
+        assertThat(hit.getContentAsByteArray()).isEqualTo(first.getContentAsByteArray());
+
+        // Both sides write into one reused response that discards the body, so only the work that
+        // differs is measured; MockHttpServletResponse copies the body byte by byte
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new DiscardingResponse();
+        Result cached = measure(() -> {
+            response.setCommitted(false);
+            response.reset();
+            filter.doFilter(request, response, unreachable);
+        });
+        Result serialized = measure(() -> {
+            response.setCommitted(false);
+            response.reset();
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), page);
+        });
+
+        System.out.printf("%d cars, %d bytes%n", page.getNumberOfElements(), first.getContentAsByteArray().length);
+        System.out.printf("cache hit:     %s%n", cached);
+        System.out.printf("serialization: %s%n", serialized);
+    }
+
+    private static final class DiscardingResponse extends MockHttpServletResponse {
+        private final ServletOutputStream body = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return body;
+        }
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars");
+        request.setQueryString("page=0&size=50");
+        return request;
+    }
+
+    private static Page<CarDto> page(int size) {
+        List<CarDto> cars = new ArrayList<>(size);
+        Date now = new Date();
+        for (long id = 1; id <= size; id++) {
+            cars.add(new CarDto(id, false, now, now, 3L, "Toyota", "Corolla " + id, 2020, "AB" + id + "CD",
+                    CarStatus.AVAILABLE, 25_000L + id, BigDecimal.valueOf(4_500, 2)));
+        }
+        return new PageImpl<>(cars, PageRequest.of(0, size), 1_000);
+    }
+
+    private record Result(double p50Micros, double p99Micros, long bytesPerCall) {
+        @Override
+        public String toString() {
+            return String.format("p50 %.1f us, p99 %.1f us, %d bytes allocated per call", p50Micros, p99Micros, bytesPerCall);
+        }
+    }
+
+    private static Result measure(Call call) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARM_UP; i++) {
+            call.run();
+        }
+        long[] nanos = new long[ITERATIONS];
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long started = System.nanoTime();
+            call.run();
+            nanos[i] = System.nanoTime() - started;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(nanos);
+        return new Result(nanos[ITERATIONS / 2] / 1_000.0, nanos[ITERATIONS * 99 / 100] / 1_000.0, allocated / ITERATIONS);
+    }
+}
@@ -0,0 +1,104 @@
+package org.carrent.coursework.controller;
+
+import org.carrent.coursework.cache.CacheInvalidator;
+import org.carrent.coursework.cache.NegativeLookupCache;
+import org.carrent.coursework.entity.Car;
+import org.carrent.coursework.exception.RestResponseEntityExceptionHandler;
+import org.carrent.coursework.filter.FilterEngine;
+import org.carrent.coursework.mapper.CarMapper;
+import org.carrent.coursework.pagination.KeysetPager;
+import org.carrent.coursework.repository.CarRepository;
+import org.carrent.coursework.repository.OrderRepository;
+import org.carrent.coursework.repository.ServiceOfCarRepository;
+import org.carrent.coursework.search.AutocompleteIndex;
+import org.carrent.coursework.service.BulkImportService;
+import org.carrent.coursework.service.CarService;
+import org.carrent.coursework.service.OrderViewProjector;
+import org.carrent.coursework.service.TimelineService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A car update based on a stale version is refused: a stale If-Match with 412, a stale version in the
+ * body with 409, and an edit that loses the version-checked UPDATE with 409 as well.
+ */
+class CarControllerVersionTests {
+
+    private static final long ID = 7L;
+    private static final long CURRENT_VERSION = 3L;
+
+    private CarRepository carRepository;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        carRepository = mock(CarRepository.class);
+        Car car = new Car();
+        car.setId(ID);
+        car.setVersion(CURRENT_VERSION);
+        when(carRepository.findById(ID)).thenReturn(Optional.of(car));
+
+        CarService carService = new CarService(carRepository, mock(NegativeLookupCache.class), mock(CacheInvalidator.class),
+                mock(KeysetPager.class), mock(FilterEngine.class), mock(AutocompleteIndex.class),
+                mock(OrderViewProjector.class), mock(OrderRepository.class), mock(CarMapper.class),
+                mock(ServiceOfCarRepository.class));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new CarController(carService, mock(BulkImportService.class), mock(TimelineService.class)))
+                .setControllerAdvice(new RestResponseEntityExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void staleIfMatchFailsThePrecondition() throws Exception {
+        update(null, ETags.forEntity("car", ID, CURRENT_VERSION - 1))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+
+        verify(carRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void staleBodyVersionIsAConflict() throws Exception {
+        update(CURRENT_VERSION - 1, null)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+
+        verify(carRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void lostVersionCheckedUpdateIsAConflict() throws Exception {
+        when(carRepository.saveAndFlush(any())).thenThrow(new ObjectOptimisticLockingFailureException(Car.class, ID));
+
+        update(CURRENT_VERSION, ETags.forEntity("car", ID, CURRENT_VERSION))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("The record was modified concurrently, reload it and retry"));
+    }
+
+    private ResultActions update(Long bodyVersion, String ifMatch) throws Exception {
+        var request = put("/api/cars/{id}", ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"version\":" + bodyVersion + ",\"brand\":\"Skoda\",\"year\":2020}");
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request);
+    }
+}
@@ -0,0 +1,92 @@
+package org.carrent.coursework.controller;
+
+import org.carrent.coursework.dto.DashboardSnapshot;
+import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.enums.OrderStatus;
+import org.carrent.coursework.service.DashboardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The dashboard ETag follows the figures of the snapshot, not the time it was refreshed at.
+ */
+class DashboardControllerTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 9);
+
+    private DashboardService dashboardService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        dashboardService = mock(DashboardService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new DashboardController(dashboardService)).build();
+    }
+
+    @Test
+    void refreshThatChangedNothingKeepsTheTag() {
+        DashboardSnapshot first = snapshot(Instant.parse("2024-03-09T10:00:00Z"), 4, "250.00");
+        DashboardSnapshot second = snapshot(Instant.parse("2024-03-09T10:05:00Z"), 4, "250.0");
+
+        assertThat(ETags.forDashboard(second)).isEqualTo(ETags.forDashboard(first));
+    }
+
+    @Test
+    void changedFigureChangesTheTag() {
+        DashboardSnapshot snapshot = snapshot(Instant.parse("2024-03-09T10:00:00Z"), 4, "250.00");
+
+        assertThat(ETags.forDashboard(snapshot(snapshot.refreshedAt(), 5, "250.00")))
+                .isNotEqualTo(ETags.forDashboard(snapshot));
+        assertThat(ETags.forDashboard(snapshot(snapshot.refreshedAt(), 4, "275.00")))
+                .isNotEqualTo(ETags.forDashboard(snapshot));
+    }
+
+    @Test
+    void matchingIfNoneMatchAfterARefreshIsNotModified() throws Exception {
+        when(dashboardService.getSnapshot()).thenReturn(snapshot(Instant.parse("2024-03-09T10:00:00Z"), 4, "250.00"));
+        String eTag = mockMvc.perform(get("/api/dashboard"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        when(dashboardService.getSnapshot()).thenReturn(snapshot(Instant.parse("2024-03-09T10:05:00Z"), 4, "250.00"));
+        mockMvc.perform(get("/api/dashboard").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        when(dashboardService.getSnapshot()).thenReturn(snapshot(Instant.parse("2024-03-09T10:10:00Z"), 5, "300.00"));
+        mockMvc.perform(get("/api/dashboard").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETags.forDashboard(dashboardService.getSnapshot())));
+    }
+
+    private static DashboardSnapshot snapshot(Instant refreshedAt, long ordersToday, String revenueToday) {
+        Map<CarStatus, Long> cars = new EnumMap<>(CarStatus.class);
+        for (CarStatus status : CarStatus.values()) {
+            cars.put(status, 3L);
+        }
+        Map<OrderStatus, Long> orders = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            orders.put(status, 2L);
+        }
+        Map<LocalDate, Long> services = new LinkedHashMap<>();
+        for (int day = 0; day < 7; day++) {
+            services.put(TODAY.plusDays(day), (long) day);
+        }
+        return new DashboardSnapshot(refreshedAt, cars, orders, 21, services, ordersToday, new BigDecimal(revenueToday));
+    }
+}
@@ -0,0 +1,50 @@
+package org.carrent.coursework.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.carrent.coursework.datasource.SqlBudgetAssertions.assertStatementsAtMost;
+
+/**
+ * Order lists are read from order_view in one query plus the count, however many rows the page has
+ * and whatever they reference.
+ */
+@SpringBootTest
+class OrderControllerQueryBudgetTests {
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearCachedOrders() {
+        cacheManager.getCache("orders").clear();
+    }
+
+    @Test
+    void getAllOrdersRunsThePageAndTheCount() {
+        var response = assertStatementsAtMost(2, () -> orderController.getAllOrders(0, 50, "id", "asc"));
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    @Test
+    void getAllOrdersAvailableRunsThePageAndTheCount() {
+        var response = assertStatementsAtMost(2, () -> orderController.getAllOrdersAvailable(0, 50, "id", "asc"));
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    @Test
+    void cachedPageRunsNoStatement() {
+        orderController.getAllOrders(0, 50, "id", "asc");
+
+        assertStatementsAtMost(0, () -> orderController.getAllOrders(0, 50, "id", "asc"));
+    }
+}
@@ -0,0 +1,178 @@
+package org.carrent.coursework.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing against two local databases standing in for the primary and a replica: the database that
+ * served a transaction is told apart by {@code current_database()}. The replica database is created
+ * on the local server when it does not exist yet.
+ */
+class ReplicaRoutingDataSourceTests {
+    private static final String URL = System.getProperty("test.datasource.url", "jdbc:postgresql://localhost:5432/course_work");
+    private static final String USERNAME = System.getProperty("test.datasource.username", "postgres");
+    private static final String PASSWORD = System.getProperty("test.datasource.password", "postgres");
+    private static final String REPLICA_DATABASE = "course_work_replica";
+
+    private static String primaryDatabase;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @BeforeAll
+    static void createReplicaDatabase() {
+        HikariDataSource primary = pool("setup", URL);
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(primary);
+            primaryDatabase = jdbc.queryForObject("SELECT current_database()", String.class);
+            Integer exists = jdbc.queryForObject("SELECT count(*) FROM pg_database WHERE datname = ?", Integer.class, REPLICA_DATABASE);
+            if (exists == null || exists == 0) {
+                jdbc.execute("CREATE DATABASE " + REPLICA_DATABASE);
+            }
+        } finally {
+            primary.close();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToAHealthyReplicaAndWritesToThePrimary() {
+        ReplicaRoutingDataSource router = router(replicaUrl(), Duration.ofSeconds(5));
+        router.checkReplicas();
+
+        assertThat(database(router, true)).isEqualTo(REPLICA_DATABASE);
+        assertThat(database(router, false)).isEqualTo(primaryDatabase);
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaLags() {
+        ReplicaRoutingDataSource router = router(replicaUrl(), Duration.ofSeconds(5));
+        Replica replica = router.getReplicas().get(0);
+        replica.update(false, Duration.ofSeconds(30));
+
+        assertThat(database(router, true)).isEqualTo(primaryDatabase);
+
+        // The next health check measures no lag on a server that is not replaying
+        router.checkReplicas();
+        assertThat(replica.isHealthy()).isTrue();
+        assertThat(database(router, true)).isEqualTo(REPLICA_DATABASE);
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaIsUnreachable() {
+        ReplicaRoutingDataSource router = router("jdbc:postgresql://localhost:1/" + REPLICA_DATABASE, Duration.ofSeconds(5));
+        Replica replica = router.getReplicas().get(0);
+        // Healthy at its last check, gone since
+        replica.update(true, Duration.ZERO);
+
+        assertThat(database(router, true)).isEqualTo(primaryDatabase);
+        assertThat(replica.isHealthy()).isFalse();
+
+        router.checkReplicas();
+        assertThat(replica.isHealthy()).isFalse();
+    }
+
+    @Test
+    void aUserWhoseWriteCommittedReadsFromThePrimaryForTheStickyWindow() throws InterruptedException {
+        ReplicaRoutingDataSource router = router(replicaUrl(), Duration.ofMillis(500));
+        router.checkReplicas();
+
+        authenticate("alice");
+        write(router, false);
+        assertThat(database(router, true)).isEqualTo(primaryDatabase);
+
+        authenticate("bob");
+        assertThat(database(router, true)).isEqualTo(REPLICA_DATABASE);
+
+        Thread.sleep(700);
+        authenticate("alice");
+        assertThat(database(router, true)).isEqualTo(REPLICA_DATABASE);
+    }
+
+    @Test
+    void aRolledBackWriteDoesNotMakeTheUserSticky() {
+        ReplicaRoutingDataSource router = router(replicaUrl(), Duration.ofSeconds(5));
+        router.checkReplicas();
+
+        authenticate("alice");
+        write(router, true);
+
+        assertThat(database(router, true)).isEqualTo(REPLICA_DATABASE);
+    }
+
+    private ReplicaRoutingDataSource router(String replicaUrl, Duration stickyWindow) {
+        HikariDataSource primaryPool = pool("primary", URL);
+        HikariDataSource replicaPool = pool("replica-0", replicaUrl);
+        replicaPool.setReadOnly(true);
+        replicaPool.setConnectionTimeout(500);
+        replicaPool.setInitializationFailTimeout(-1);
+        pools.add(primaryPool);
+        pools.add(replicaPool);
+        ReplicaRoutingDataSource router = new ReplicaRoutingDataSource(primaryPool,
+                List.of(new Replica("replica-0", replicaPool)),
+                new ReadYourWritesTracker(stickyWindow),
+                Duration.ofSeconds(5),
+                new SimpleMeterRegistry());
+        router.afterPropertiesSet();
+        return router;
+    }
+
+    // The routing decision needs the read-only flag, so connections are fetched lazily as in DataSourceConfig
+    private static String database(ReplicaRoutingDataSource router, boolean readOnly) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(router);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT current_database()", String.class));
+    }
+
+    private static void write(ReplicaRoutingDataSource router, boolean rollBack) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(router);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.executeWithoutResult(status -> {
+            new JdbcTemplate(dataSource).execute("CREATE TEMPORARY TABLE routing_probe (id INT) ON COMMIT DROP");
+            if (rollBack) {
+                status.setRollbackOnly();
+            }
+        });
+    }
+
+    private static void authenticate(String user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(user, null, List.of()));
+    }
+
+    private static String replicaUrl() {
+        return URL.substring(0, URL.lastIndexOf('/') + 1) + REPLICA_DATABASE;
+    }
+
+    private static HikariDataSource pool(String name, String url) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(USERNAME);
+        pool.setPassword(PASSWORD);
+        pool.setMaximumPoolSize(2);
+        return pool;
+    }
+}
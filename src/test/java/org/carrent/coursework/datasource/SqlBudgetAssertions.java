@@ -0,0 +1,34 @@
+package org.carrent.coursework.datasource;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query budget assertions: the code under test must not run more than a fixed number of statements,
+ * whatever the number of rows it touches. A failure names the statement that ran most often, which
+ * is usually the N+1.
+ */
+public final class SqlBudgetAssertions {
+
+    private SqlBudgetAssertions() {
+    }
+
+    public static SqlStatistics assertStatementsAtMost(int max, Runnable action) {
+        SqlStatistics statistics = SqlStatementRecorder.record(action);
+        assertWithin(max, statistics);
+        return statistics;
+    }
+
+    public static <T> T assertStatementsAtMost(int max, Supplier<T> action) {
+        SqlStatementRecorder.Recorded<T> recorded = SqlStatementRecorder.recordResult(action);
+        assertWithin(max, recorded.statistics());
+        return recorded.result();
+    }
+
+    private static void assertWithin(int max, SqlStatistics statistics) {
+        assertThat(statistics.getStatements())
+                .as("statements run (most repeated: %s)", statistics.getMostRepeatedSql())
+                .isLessThanOrEqualTo(max);
+    }
+}
@@ -0,0 +1,104 @@
+package org.carrent.coursework.filter;
+
+import org.carrent.coursework.entity.Car;
+import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.repository.CarRepository;
+import org.carrent.coursework.repository.SoftDeleteSpecifications;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency and allocation of a cached filter plan against the Specification chain it replaced, for the
+ * same car filter. Run with -Dbenchmarks=true; both sides hit the same database, so the difference is
+ * what building and interpreting the query costs per call.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class FilterEngineBenchmarkTests {
+
+    private static final int WARM_UP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    private static final FilterDefinition<Car> FILTERS = FilterDefinition.builder(Car.class, "c")
+            .where("c.deleted = false")
+            .contains("brand", "brand")
+            .equal("status", "status")
+            .atLeast("minPrice", "price")
+            .index("status", "price", "id")
+            .build();
+
+    private static final Pageable PAGE = PageRequest.of(0, 20, Sort.by("price").ascending());
+
+    @Autowired
+    private FilterEngine filterEngine;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Test
+    void cachedPlanAgainstSpecification() {
+        Filters filters = Filters.create()
+                .with("brand", "o")
+                .with("status", CarStatus.AVAILABLE)
+                .with("minPrice", BigDecimal.valueOf(50));
+        Supplier<Page<Car>> cachedPlan = () -> filterEngine.find(FILTERS, filters, PAGE);
+        Supplier<Page<Car>> specification = () -> carRepository.findAll(specification("o", CarStatus.AVAILABLE,
+                BigDecimal.valueOf(50)), PAGE);
+
+        assertThat(cachedPlan.get().getContent()).isEqualTo(specification.get().getContent());
+        Result plan = measure(cachedPlan);
+        Result criteria = measure(specification);
+
+        System.out.printf("cached plan:   %s%n", plan);
+        System.out.printf("specification: %s%n", criteria);
+    }
+
+    // The chain CarService built before the filter engine
+    private static Specification<Car> specification(String brand, CarStatus status, BigDecimal minPrice) {
+        Specification<Car> specification = Specification.where(SoftDeleteSpecifications.notDeleted());
+        specification = specification.and((root, query, criteriaBuilder) ->
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("brand")), "%" + brand.toLowerCase() + "%"));
+        specification = specification.and((root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(root.get("status"), status));
+        return specification.and((root, query, criteriaBuilder) ->
+                criteriaBuilder.greaterThanOrEqualTo(root.get("price"), minPrice));
+    }
+
+    private record Result(long p50Micros, long p99Micros, long bytesPerCall) {
+        @Override
+        public String toString() {
+            return String.format("p50 %d us, p99 %d us, %d bytes allocated per call", p50Micros, p99Micros, bytesPerCall);
+        }
+    }
+
+    private static Result measure(Supplier<?> call) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARM_UP; i++) {
+            call.get();
+        }
+        long[] nanos = new long[ITERATIONS];
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long started = System.nanoTime();
+            call.get();
+            nanos[i] = System.nanoTime() - started;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(nanos);
+        return new Result(nanos[ITERATIONS / 2] / 1_000, nanos[ITERATIONS * 99 / 100] / 1_000, allocated / ITERATIONS);
+    }
+}
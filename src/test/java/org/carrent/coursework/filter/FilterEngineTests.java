@@ -0,0 +1,104 @@
+package org.carrent.coursework.filter;
+
+import org.carrent.coursework.entity.Car;
+import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.exception.InvalidFilterException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A filter shape is only accepted when the equality filters and the sort, or without a sort one of
+ * the ranges, are served by the same declared index; other ranges are residual predicates.
+ */
+class FilterEngineTests {
+
+    // The indexes CarService declares
+    private static final FilterDefinition<Car> CARS = FilterDefinition.builder(Car.class, "c")
+            .equal("status", "status")
+            .atLeast("minPrice", "price")
+            .atMost("maxPrice", "price")
+            .atLeast("minMileage", "mileage")
+            .atMost("maxMileage", "mileage")
+            .atLeast("minYear", "year")
+            .atLeast("createdAfter", "createdAt")
+            .index("price", "id")
+            .index("year", "id")
+            .index("mileage", "id")
+            .index("status", "price", "id")
+            .index("status", "year", "id")
+            .index("licensePlate")
+            .build();
+
+    @Test
+    void rangesOfOtherColumnsThanAnIndexedSortAreAccepted() {
+        // maxPrice=…&maxMileage=…&sort=year,desc scans (year, id) and checks price and mileage on its rows
+        Filters filters = Filters.create().with("maxPrice", BigDecimal.TEN).with("maxMileage", 50_000L);
+
+        assertThatCode(() -> FilterEngine.checkIndexed(CARS, filters, Sort.by(Sort.Direction.DESC, "year")))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void unsortedRangesOfTwoIndexedColumnsAreAccepted() {
+        Filters filters = Filters.create().with("minPrice", BigDecimal.TEN).with("minMileage", 1_000L);
+
+        assertThatCode(() -> FilterEngine.checkIndexed(CARS, filters, Sort.unsorted()))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void unsortedRangeWithoutAnIndexIsRejected() {
+        Filters filters = Filters.create().with("createdAfter", new Date(0));
+
+        assertThatThrownBy(() -> FilterEngine.checkIndexed(CARS, filters, Sort.unsorted()))
+                .isInstanceOf(InvalidFilterException.class)
+                .hasMessageContaining("not backed by an index");
+        assertThatCode(() -> FilterEngine.checkIndexed(CARS, filters, Sort.by("price")))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void bothBoundsOfOneColumnSortedByItAreAccepted() {
+        Filters filters = Filters.create().with("minPrice", BigDecimal.ONE).with("maxPrice", BigDecimal.TEN);
+
+        assertThatCode(() -> FilterEngine.checkIndexed(CARS, filters, Sort.by("price", "id")))
+                .doesNotThrowAnyException();
+        assertThatCode(() -> FilterEngine.checkIndexed(CARS, filters, Sort.unsorted()))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void fixedPrefixRangeAndSortFittingOneIndexAreAccepted() {
+        Filters filters = Filters.create().with("status", CarStatus.AVAILABLE).with("minYear", 2015);
+
+        assertThatCode(() -> FilterEngine.checkIndexed(CARS, filters, Sort.by(Sort.Direction.DESC, "year")))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void sortRunningPastTheIndexOfTheRangeIsRejected() {
+        // (mileage, id) serves the range, but no index continues with year
+        Filters filters = Filters.create().with("status", CarStatus.AVAILABLE).with("minMileage", 1_000L);
+
+        assertThatThrownBy(() -> FilterEngine.checkIndexed(CARS, filters, Sort.by("mileage", "year")))
+                .isInstanceOf(InvalidFilterException.class);
+    }
+
+    @Test
+    void sortsWithoutARangeStillNeedAnIndex() {
+        assertThatCode(() -> FilterEngine.checkIndexed(CARS, Filters.create(), Sort.by("year")))
+                .doesNotThrowAnyException();
+        assertThatThrownBy(() -> FilterEngine.checkIndexed(CARS, Filters.create(), Sort.by("price", "year")))
+                .isInstanceOf(InvalidFilterException.class);
+        assertThatThrownBy(() -> FilterEngine.checkIndexed(CARS, Filters.create(),
+                Sort.by(Sort.Order.asc("price"), Sort.Order.desc("id"))))
+                .isInstanceOf(InvalidFilterException.class)
+                .hasMessageContaining("mixed directions");
+    }
+}
@@ -0,0 +1,45 @@
+package org.carrent.coursework.pagination;
+
+import org.carrent.coursework.entity.User;
+import org.carrent.coursework.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Sort properties outside the caller's indexed whitelist are rejected before any query runs, whether
+ * they come with the first request or inside a cursor.
+ */
+class KeysetPagerTests {
+
+    private static final Set<String> SORTABLE = Set.of("username");
+
+    private final KeysetPager pager = new KeysetPager(null, 100);
+
+    @Test
+    void unindexedSortPropertyIsRejected() {
+        assertThatThrownBy(() -> pager.scroll(null, User.class, SORTABLE, null, null, 10, "password", "asc", user -> user))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessageContaining("not backed by an index");
+    }
+
+    @Test
+    void missingSortPropertyIsRejected() {
+        assertThatThrownBy(() -> pager.scroll(null, User.class, SORTABLE, null, null, 10, null, "asc", user -> user))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void cursorNamingAnUnindexedPropertyIsRejected() {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("password\nASC\n$2a$10$hash\n7".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> pager.scroll(null, User.class, SORTABLE, null, cursor, 10, "username", "asc", user -> user))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessageContaining("not backed by an index");
+    }
+}
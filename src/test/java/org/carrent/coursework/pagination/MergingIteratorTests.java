@@ -0,0 +1,94 @@
+package org.carrent.coursework.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MergingIteratorTests {
+
+    @Test
+    void mergesSortedSourcesIntoOneOrder() {
+        MergingIterator<Integer> merged = new MergingIterator<>(List.of(
+                List.of(1, 4, 7, 10).iterator(),
+                List.of(2, 3, 8).iterator(),
+                List.of(5, 6, 9, 11, 12).iterator()), Comparator.naturalOrder());
+
+        assertThat(drain(merged)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+    }
+
+    @Test
+    void followsTheGivenComparator() {
+        MergingIterator<Integer> merged = new MergingIterator<>(List.of(
+                List.of(9, 5, 1).iterator(),
+                List.of(8, 5, 2).iterator()), Comparator.reverseOrder());
+
+        assertThat(drain(merged)).containsExactly(9, 8, 5, 5, 2, 1);
+    }
+
+    @Test
+    void skipsEmptySources() {
+        MergingIterator<Integer> merged = new MergingIterator<>(List.of(
+                List.<Integer>of().iterator(),
+                List.of(3).iterator(),
+                List.<Integer>of().iterator()), Comparator.naturalOrder());
+
+        assertThat(drain(merged)).containsExactly(3);
+    }
+
+    @Test
+    void withoutSourcesIsEmpty() {
+        MergingIterator<Integer> merged = new MergingIterator<>(List.of(), Comparator.naturalOrder());
+
+        assertThat(merged.hasNext()).isFalse();
+        assertThatThrownBy(merged::next).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void readsEverySourceOnlyOneAheadOfWhatWasConsumed() {
+        CountingIterator first = new CountingIterator(List.of(1, 3, 5, 7, 9));
+        CountingIterator second = new CountingIterator(List.of(2, 4, 6, 8, 10));
+        MergingIterator<Integer> merged = new MergingIterator<>(List.of(first, second), Comparator.naturalOrder());
+
+        assertThat(first.read + second.read).isEqualTo(2);
+        merged.next();
+        merged.next();
+        merged.next();
+
+        // 1, 2 and 3 consumed; the heads 4 and 5 are the only rows read ahead
+        assertThat(first.read).isEqualTo(3);
+        assertThat(second.read).isEqualTo(2);
+    }
+
+    private static List<Integer> drain(Iterator<Integer> iterator) {
+        List<Integer> values = new ArrayList<>();
+        iterator.forEachRemaining(values::add);
+        return values;
+    }
+
+    private static final class CountingIterator implements Iterator<Integer> {
+        private final Iterator<Integer> values;
+        private int read;
+
+        CountingIterator(List<Integer> values) {
+            this.values = values.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return values.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+            read++;
+            return values.next();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.carrent.coursework.repository;
+
+import jakarta.persistence.EntityManager;
+import org.carrent.coursework.datasource.SqlStatementRecorder;
+import org.carrent.coursework.datasource.SqlStatistics;
+import org.carrent.coursework.entity.Car;
+import org.carrent.coursework.entity.Order;
+import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.enums.OrderStatus;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pooled sequence ids and JDBC batching: a saveAll must not cost one round trip per row.
+ * Every test rolls back what it inserted.
+ */
+@SpringBootTest
+class CarRepositoryBatchingTests {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void saveAllFetchesIdsPerSequenceBlockAndInsertsInBatches() {
+        // 120 rows: three blocks of 50 ids and three batches of at most 50 inserts
+        SqlStatistics statistics = insertAndRollBack(120);
+
+        assertThat(statistics.getStatements()).isLessThanOrEqualTo(6);
+    }
+
+    /**
+     * Order inserts followed by a saveAll update pass, first one statement per row (batch size 1,
+     * the behaviour before batching was configured) and then with the configured batch size;
+     * run with -Dbenchmarks=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void insertThroughput() {
+        int rows = 20_000;
+        int chunk = 1_000;
+        insertAndUpdateOrders(chunk, 1);
+        insertAndUpdateOrders(chunk, null);
+
+        for (Integer batchSize : new Integer[] {1, null}) {
+            long startedAt = System.nanoTime();
+            int statements = 0;
+            for (int inserted = 0; inserted < rows; inserted += chunk) {
+                statements += insertAndUpdateOrders(chunk, batchSize).getStatements();
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            System.out.printf("%s: inserted and updated %d orders in %d ms (%.0f rows/s) with %d statements%n",
+                    batchSize == null ? "batched" : "unbatched", rows, elapsedMillis,
+                    rows * 1000.0 / Math.max(elapsedMillis, 1), statements);
+        }
+    }
+
+    /**
+     * Inserts orders, then changes every one and saves them again, and rolls back. A null batch size
+     * keeps the configured hibernate.jdbc.batch_size.
+     */
+    private SqlStatistics insertAndUpdateOrders(int rows, Integer batchSize) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            if (batchSize != null) {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            }
+            List<Order> orders = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                orders.add(order(i));
+            }
+            SqlStatistics statistics = SqlStatementRecorder.record(() -> {
+                orderRepository.saveAll(orders);
+                entityManager.flush();
+                orders.forEach(order -> order.setStatus(OrderStatus.COMPLETED));
+                orderRepository.saveAll(orders);
+                entityManager.flush();
+            });
+            status.setRollbackOnly();
+            return statistics;
+        });
+    }
+
+    private SqlStatistics insertAndRollBack(int rows) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            List<Car> cars = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                cars.add(car(i));
+            }
+            SqlStatistics statistics = SqlStatementRecorder.record(() -> {
+                carRepository.saveAll(cars);
+                entityManager.flush();
+            });
+            status.setRollbackOnly();
+            return statistics;
+        });
+    }
+
+    private static Car car(int i) {
+        Car car = new Car();
+        car.setBrand("Batch");
+        car.setModel("Test " + i);
+        car.setYear(2020);
+        car.setLicensePlate("BT" + i);
+        car.setStatus(CarStatus.AVAILABLE);
+        car.setMileage(0L);
+        car.setPrice(BigDecimal.TEN);
+        return car;
+    }
+
+    private static Order order(int i) {
+        Order order = new Order();
+        order.setStartDate(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i));
+        order.setEndDate(LocalDateTime.of(2024, 1, 2, 0, 0).plusMinutes(i));
+        order.setStatus(OrderStatus.ACTIVE);
+        order.setCost(BigDecimal.TEN);
+        return order;
+    }
+}
@@ -0,0 +1,139 @@
+package org.carrent.coursework.search;
+
+import org.carrent.coursework.dto.AutocompleteHit;
+import org.carrent.coursework.dto.CarDto;
+import org.carrent.coursework.dto.CustomerDto;
+import org.carrent.coursework.enums.CarStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutocompleteIndexTests {
+
+    private static final String[] SYLLABLES = {"ko", "va", "len", "shev", "chen", "bon", "da", "ren", "tka", "mel",
+            "nyk", "boy", "ol", "iy", "kra", "sa", "hor", "lyt", "vyn", "pet"};
+
+    private final AutocompleteIndex index = new AutocompleteIndex();
+
+    @Test
+    void findsCarsByPlatePrefixAndModelWord() {
+        index.indexCar(car(1, "Skoda", "Octavia", "AA1234BB", false));
+        index.indexCar(car(2, "Toyota", "Corolla", "AA9876CC", false));
+
+        assertThat(ids(index.search("aa12", Set.of(), 10))).containsExactly(1L);
+        assertThat(ids(index.search("coro", Set.of(), 10))).containsExactly(2L);
+    }
+
+    @Test
+    void loadedRowsAreIndexedWhenNothingChangesDuringTheLoad() {
+        index.beginLoad();
+        index.loadCar(car(1, "Skoda", "Octavia", "AA1234BB", false));
+        index.endLoad();
+
+        assertThat(ids(index.search("octavia", Set.of(), 10))).containsExactly(1L);
+    }
+
+    @Test
+    void loadedRowDoesNotOverwriteAnUpdateCommittedDuringTheLoad() {
+        index.beginLoad();
+        index.indexCar(car(1, "Skoda", "Superb", "AA1234BB", false));
+        index.loadCar(car(1, "Skoda", "Octavia", "AA1234BB", false));
+        index.endLoad();
+
+        assertThat(index.search("octavia", Set.of(), 10)).isEmpty();
+        assertThat(ids(index.search("superb", Set.of(), 10))).containsExactly(1L);
+    }
+
+    @Test
+    void loadedRowDoesNotResurrectADeleteCommittedDuringTheLoad() {
+        index.beginLoad();
+        index.remove(AutocompleteIndex.CUSTOMERS, 7L);
+        index.loadCustomer(customer(7, "Shevchenko", "Taras"));
+        index.endLoad();
+
+        assertThat(index.search("shevchenko", Set.of(), 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void changesAfterTheLoadAreNotTracked() {
+        index.beginLoad();
+        index.remove(AutocompleteIndex.CUSTOMERS, 7L);
+        index.endLoad();
+        index.indexCustomer(customer(7, "Shevchenko", "Taras"));
+
+        assertThat(ids(index.search("shev", Set.of(), 10))).containsExactly(7L);
+    }
+
+    /**
+     * Lookup latency of typed name prefixes (3 to 6 characters) over 100k customers and 20k cars;
+     * run with -Dbenchmarks=true. The median is held to the sub-millisecond target. The tail is only
+     * reported: a short prefix shared by thousands of names scores every one of them.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void lookupLatency() {
+        Random random = new Random(42);
+        List<String> lastNames = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            String lastName = name(random, 3) + "ko";
+            lastNames.add(lastName.toLowerCase(Locale.ROOT));
+            index.indexCustomer(customer(i, lastName, name(random, 2)));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            index.indexCar(car(i, "Brand" + (i % 50), "Model" + (i % 500), "AA" + i + "BB", false));
+        }
+        String[] queries = new String[1_000];
+        for (int i = 0; i < queries.length; i++) {
+            String lastName = lastNames.get(random.nextInt(lastNames.size()));
+            queries[i] = lastName.substring(0, Math.min(lastName.length(), 3 + random.nextInt(4)));
+        }
+
+        for (int i = 0; i < 20_000; i++) {
+            index.search(queries[i % queries.length], Set.of(), 10);
+        }
+        long[] nanos = new long[50_000];
+        for (int i = 0; i < nanos.length; i++) {
+            long started = System.nanoTime();
+            index.search(queries[i % queries.length], Set.of(), 10);
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        long p50 = nanos[nanos.length / 2];
+        System.out.printf("Autocomplete lookup over %d documents: p50 %d us, p99 %d us, max %d us%n",
+                index.size(), p50 / 1_000, nanos[nanos.length * 99 / 100] / 1_000, nanos[nanos.length - 1] / 1_000);
+
+        assertThat(p50).isLessThan(1_000_000L);
+    }
+
+    private static String name(Random random, int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static List<Long> ids(List<AutocompleteHit> hits) {
+        return hits.stream().map(AutocompleteHit::id).toList();
+    }
+
+    private static CarDto car(long id, String brand, String model, String licensePlate, boolean deleted) {
+        return new CarDto(id, deleted, null, null, 0L, brand, model, 2020, licensePlate,
+                CarStatus.AVAILABLE, 0L, BigDecimal.TEN);
+    }
+
+    private static CustomerDto customer(long id, String lastName, String firstName) {
+        return new CustomerDto(id, false, null, null, 0L, lastName, firstName, null, null,
+                lastName.toLowerCase(Locale.ROOT) + id + "@example.com", "+38050" + (1_000_000 + id), null, "LN" + id);
+    }
+}
@@ -0,0 +1,75 @@
+package org.carrent.coursework.service;
+
+import jakarta.persistence.EntityManager;
+import org.carrent.coursework.entity.Car;
+import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.repository.CarRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.carrent.coursework.datasource.SqlBudgetAssertions.assertStatementsAtMost;
+
+/**
+ * The status sweep checks the orders and services of all cars in bulk, so its cost does not grow
+ * with the fleet. Every test rolls back what it changed.
+ */
+@SpringBootTest
+class CarServiceQueryBudgetTests {
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void updateCarStatusesRunsAConstantNumberOfStatements() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Car> cars = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                cars.add(car(i, i % 2 == 0 ? CarStatus.RENTED : CarStatus.IN_SERVICE));
+            }
+            carRepository.saveAll(cars);
+            entityManager.flush();
+            entityManager.clear();
+
+            // cars, active orders, active services and the batched status updates
+            assertStatementsAtMost(5, () -> {
+                carService.updateCarStatuses();
+                entityManager.flush();
+            });
+
+            entityManager.clear();
+            assertThat(carRepository.findAllById(cars.stream().map(Car::getId).toList()))
+                    .extracting(Car::getStatus)
+                    .containsOnly(CarStatus.AVAILABLE);
+            status.setRollbackOnly();
+        });
+    }
+
+    private static Car car(int i, CarStatus status) {
+        Car car = new Car();
+        car.setBrand("Budget");
+        car.setModel("Test " + i);
+        car.setYear(2020);
+        car.setLicensePlate("QB" + i);
+        car.setStatus(status);
+        car.setMileage(0L);
+        car.setPrice(BigDecimal.TEN);
+        return car;
+    }
+}
@@ -0,0 +1,56 @@
+package org.carrent.coursework.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * A sweep that loses a version check is rerun straight away, at most max-attempts times, and a sweep
+ * that gives up does not stop the others.
+ */
+class GlobalStatusUpdaterTests {
+
+    private CarService carService;
+    private OrderService orderService;
+    private ServiceOfCarService serviceOfCarService;
+    private GlobalStatusUpdater updater;
+
+    @BeforeEach
+    void setUp() {
+        carService = mock(CarService.class);
+        orderService = mock(OrderService.class);
+        serviceOfCarService = mock(ServiceOfCarService.class);
+        updater = new GlobalStatusUpdater(carService, orderService, serviceOfCarService);
+        ReflectionTestUtils.setField(updater, "maxAttempts", 3);
+    }
+
+    @Test
+    void sweepThatLostTheVersionCheckIsRerun() {
+        doThrow(new ObjectOptimisticLockingFailureException("Car", 1L))
+                .doNothing()
+                .when(carService).updateCarStatuses();
+
+        updater.updateStatuses();
+
+        verify(carService, times(2)).updateCarStatuses();
+        verify(orderService).updateOrderStatuses();
+    }
+
+    @Test
+    void sweepGivesUpAfterMaxAttemptsAndTheOthersStillRun() {
+        doThrow(new ObjectOptimisticLockingFailureException("Order", 1L)).when(orderService).updateOrderStatuses();
+        doNothing().when(serviceOfCarService).updateServiceOfCarStatuses();
+
+        updater.updateStatuses();
+
+        verify(orderService, times(3)).updateOrderStatuses();
+        verify(serviceOfCarService).updateServiceOfCarStatuses();
+    }
+}
@@ -0,0 +1,144 @@
+package org.carrent.coursework.service;
+
+import org.carrent.coursework.dto.CursorPage;
+import org.carrent.coursework.dto.TimelineEntry;
+import org.carrent.coursework.entity.Car;
+import org.carrent.coursework.enums.CarStatus;
+import org.carrent.coursework.exception.InvalidCursorException;
+import org.carrent.coursework.repository.CarRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Paging a car timeline slice by slice returns every order and service exactly once, in start date,
+ * type rank and id order, also when orders, services and archived rows share a start date.
+ * Every test rolls back what it inserted.
+ */
+@SpringBootTest
+class TimelineServiceTests {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 9, 10, 0);
+
+    private record Expected(String type, long id, LocalDateTime startDate) {
+        static final Comparator<Expected> ORDER = Comparator.comparing(Expected::startDate)
+                .thenComparingInt(expected -> "order".equals(expected.type()) ? 0 : 1)
+                .thenComparingLong(Expected::id);
+    }
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void slicesCoverTheTimelineOnceInBothDirections() {
+        inRolledBackTransaction(carId -> {
+            List<Expected> expected = seed(carId);
+
+            for (int size = 1; size <= 4; size++) {
+                assertThat(readAll(carId, size, "asc")).as("ascending by %d", size)
+                        .containsExactlyElementsOf(expected);
+                assertThat(readAll(carId, size, "desc")).as("descending by %d", size)
+                        .containsExactlyElementsOf(expected.reversed());
+            }
+        });
+    }
+
+    @Test
+    void cursorKeepsTheDirectionItWasIssuedFor() {
+        inRolledBackTransaction(carId -> {
+            List<Expected> expected = seed(carId);
+
+            CursorPage<TimelineEntry> first = timelineService.carTimeline(carId, null, 3, "desc");
+            // The order parameter of a continuation is ignored in favor of the cursor
+            CursorPage<TimelineEntry> second = timelineService.carTimeline(carId, first.nextCursor(), 3, "asc");
+
+            assertThat(second.content().get(0).id()).isEqualTo(expected.reversed().get(3).id());
+        });
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        inRolledBackTransaction(carId -> {
+            assertThatThrownBy(() -> timelineService.carTimeline(carId, "not a cursor", 3, "asc"))
+                    .isInstanceOf(InvalidCursorException.class);
+            assertThatThrownBy(() -> timelineService.carTimeline(carId, "YXNjCjIwMjQ", 3, "asc"))
+                    .isInstanceOf(InvalidCursorException.class);
+        });
+    }
+
+    private List<Expected> readAll(Long carId, int size, String order) {
+        List<Expected> read = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<TimelineEntry> page = timelineService.carTimeline(carId, cursor, size, order);
+            assertThat(page.content()).hasSizeLessThanOrEqualTo(size);
+            page.content().forEach(entry -> read.add(new Expected(entry.type(), entry.id(), entry.startDate())));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return read;
+    }
+
+    // Orders, services and archived rows, several of each on the same start dates
+    private List<Expected> seed(Long carId) {
+        List<Expected> expected = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            LocalDateTime start = DAY.plusDays(day);
+            expected.add(insert("order", "orders", "order_seq", carId, start));
+            expected.add(insert("order", "orders", "order_seq", carId, start));
+            expected.add(insert("service", "services", "service_of_car_seq", carId, start));
+            expected.add(insert("order", "orders_archive", "order_seq", carId, start));
+            expected.add(insert("service", "services_archive", "service_of_car_seq", carId, start));
+        }
+        expected.add(insert("service", "services", "service_of_car_seq", carId, DAY.plusDays(3)));
+        expected.sort(Expected.ORDER);
+        return expected;
+    }
+
+    private Expected insert(String type, String table, String sequence, Long carId, LocalDateTime start) {
+        Long id = jdbc.queryForObject("INSERT INTO " + table + " (id, car_id, start_date, end_date, status, cost) " +
+                        "VALUES (nextval('" + sequence + "'), :carId, :start, :end, 'COMPLETED', 10) RETURNING id",
+                new MapSqlParameterSource("carId", carId)
+                        .addValue("start", start)
+                        .addValue("end", start.plusHours(4)),
+                Long.class);
+        return new Expected(type, id, start);
+    }
+
+    private void inRolledBackTransaction(Consumer<Long> test) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Car car = new Car();
+            car.setBrand("Timeline");
+            car.setModel("Test");
+            car.setYear(2020);
+            car.setLicensePlate("TL0001");
+            car.setStatus(CarStatus.AVAILABLE);
+            car.setMileage(0L);
+            car.setPrice(BigDecimal.TEN);
+            test.accept(carRepository.saveAndFlush(car).getId());
+            status.setRollbackOnly();
+        });
+    }
+}